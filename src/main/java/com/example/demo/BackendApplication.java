@@ -4,11 +4,13 @@ import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Application entry point for the Spring Boot application.
  */
 @SpringBootApplication
+@EnableScheduling
 public class BackendApplication {
 
     @Value("${spring.datasource.url}")
@@ -2,16 +2,25 @@ package com.example.demo.config;
 
 
 import com.example.demo.repository.UserRepository;
+import com.example.demo.utils.BoundedPasswordEncoder;
+import com.example.demo.utils.PasswordHashingExecutor;
+import com.example.demo.utils.PasswordEncoderCalibrator;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Map;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 /**
@@ -21,6 +30,10 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 @RequiredArgsConstructor
 public class ApplicationConfig {
 
+  private static final String BCRYPT_ID = "bcrypt";
+  private static final int MIN_BCRYPT_STRENGTH = 10;
+  private static final int MAX_BCRYPT_STRENGTH = 16;
+
   private final UserRepository userRepository;
 
   @Bean
@@ -32,25 +45,58 @@ public class ApplicationConfig {
   /**
    * Provides the configuration of the authentication provider
    * with the UserDetailsService and PasswordEncoder.
+   * Hashes flagged for upgrade are rewritten through the password upgrade service.
    *
+   * @param passwordEncoder the application password encoder
+   * @param passwordUpgradeService service persisting upgraded hashes
    * @return Configured AuthenticationProvider
    */
   @Bean
-  public AuthenticationProvider authenticationProvider() {
+  public AuthenticationProvider authenticationProvider(
+          PasswordEncoder passwordEncoder, UserDetailsPasswordService passwordUpgradeService) {
     DaoAuthenticationProvider authenticationProvider = new DaoAuthenticationProvider();
     authenticationProvider.setUserDetailsService(userDetailService());
-    authenticationProvider.setPasswordEncoder(passwordEncoder());
+    authenticationProvider.setPasswordEncoder(passwordEncoder);
+    authenticationProvider.setUserDetailsPasswordService(passwordUpgradeService);
     return authenticationProvider;
   }
 
+  /**
+   * Provides a delegating password encoder whose BCrypt work factor is either fixed by
+   * {@code password-hashing.bcrypt-strength} or calibrated at startup to the target latency.
+   * Legacy hashes stored without an encoder id are still verified as BCrypt and are
+   * flagged for upgrade, so they are rehashed on the next successful login.
+   * Hashing runs on the dedicated pool so it never uses more threads than there are cores.
+   *
+   * @param passwordHashingExecutor the hashing pool
+   * @param meterRegistry registry for hash-latency metrics
+   * @param bcryptStrength fixed BCrypt strength, or 0 to calibrate
+   * @param targetLatency target time per hash used for calibration
+   * @return Configured PasswordEncoder
+   */
   @Bean
-  public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+  public PasswordEncoder passwordEncoder(
+          PasswordHashingExecutor passwordHashingExecutor,
+          MeterRegistry meterRegistry,
+          @Value("${password-hashing.bcrypt-strength:0}") int bcryptStrength,
+          @Value("${password-hashing.target-latency:250ms}") Duration targetLatency) {
+    int strength = bcryptStrength > 0
+            ? bcryptStrength
+            : PasswordEncoderCalibrator.calibrateBcryptStrength(
+                    targetLatency, MIN_BCRYPT_STRENGTH, MAX_BCRYPT_STRENGTH);
+    System.out.printf("BCrypt configurado con costo %d%n", strength);
+
+    DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(
+            BCRYPT_ID, Map.of(BCRYPT_ID, new BCryptPasswordEncoder(strength)));
+    delegating.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+    return new BoundedPasswordEncoder(delegating, passwordHashingExecutor, meterRegistry);
   }
 
   /**
    * Provides the service to load user details
    * based on the email.
+   * The user is read from the database rather than the user cache, because the cache
+   * does not hold password hashes.
    *
    * @return Configured UserDetailsService
    */
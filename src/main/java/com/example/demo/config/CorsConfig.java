@@ -28,9 +28,10 @@ public class CorsConfig {
             "http://localhost:5173"
     ));
     configuration.setAllowedMethods(Arrays.asList(
-            "GET", "POST", "PUT", "DELETE", "OPTIONS", "HEAD"
+            "GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS", "HEAD"
     ));
     configuration.setAllowedHeaders(List.of("*"));
+    configuration.setExposedHeaders(List.of("Location", "Upload-Offset"));
     configuration.setAllowCredentials(true);
     configuration.setMaxAge(3600L);
 
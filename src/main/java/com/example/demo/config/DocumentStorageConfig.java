@@ -0,0 +1,62 @@
+package com.example.demo.config;
+
+import com.example.demo.service.CloudinaryDocumentStorage;
+import com.example.demo.service.CloudinaryService;
+import com.example.demo.service.DocumentStorage;
+import com.example.demo.service.LocalDocumentStorage;
+import jakarta.servlet.MultipartConfigElement;
+import java.nio.file.Path;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.MultipartConfigFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Selects where company documents are stored and how large they may be.
+ */
+@Configuration
+public class DocumentStorageConfig {
+
+  /** Room left in a multipart request for the form fields sent next to the document. */
+  private static final DataSize FORM_FIELDS_SIZE = DataSize.ofMegabytes(2);
+
+  /**
+   * Applies {@code company-profile.document.max-size} to multipart uploads, the same limit
+   * resumable and direct uploads are checked against.
+   *
+   * @param maxSize maximum size of a company document
+   * @return the multipart configuration
+   */
+  @Bean
+  public MultipartConfigElement multipartConfigElement(
+          @Value("${company-profile.document.max-size:10MB}") DataSize maxSize) {
+    MultipartConfigFactory factory = new MultipartConfigFactory();
+    factory.setMaxFileSize(maxSize);
+    factory.setMaxRequestSize(DataSize.ofBytes(maxSize.toBytes() + FORM_FIELDS_SIZE.toBytes()));
+    return factory.createMultipartConfig();
+  }
+
+  /**
+   * Creates the storage selected by {@code document-storage.type}: {@code cloudinary}, or
+   * {@code local}, which keeps documents on this host's disk and serves them itself.
+   *
+   * @param type              storage type
+   * @param localRoot         directory holding the documents in local mode
+   * @param localBaseUrl      URL prefix local documents are served under
+   * @param cloudinaryService Cloudinary access
+   * @return the document storage
+   */
+  @Bean
+  public DocumentStorage documentStorage(
+          @Value("${document-storage.type:cloudinary}") String type,
+          @Value("${document-storage.local.root:documents}") String localRoot,
+          @Value("${document-storage.local.base-url:/documents}") String localBaseUrl,
+          CloudinaryService cloudinaryService) {
+    return switch (type.toLowerCase()) {
+      case "cloudinary" -> new CloudinaryDocumentStorage(cloudinaryService);
+      case "local" -> new LocalDocumentStorage(Path.of(localRoot), localBaseUrl);
+      default -> throw new IllegalStateException("Unsupported document-storage.type: " + type);
+    };
+  }
+}
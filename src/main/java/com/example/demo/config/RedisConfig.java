@@ -1,11 +1,30 @@
 package com.example.demo.config;
 
+import com.example.demo.service.UserCacheService;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.TimeoutOptions;
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.cluster.ClusterTopologyRefreshOptions;
+import io.lettuce.core.resource.ClientResources;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisSentinelConfiguration;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.listener.adapter.RedisListenerExecutionFailedException;
+import org.springframework.data.redis.serializer.RedisSerializer;
 
 /**
  * Redis configuration for the application.
@@ -20,25 +39,164 @@ public class RedisConfig {
     @Value("${REDIS_PORT:6379}")
     private int redisPort;
 
+    @Value("${redis.mode:standalone}")
+    private String mode;
+
+    @Value("${redis.password:}")
+    private String password;
+
+    @Value("${redis.sentinel.master:mymaster}")
+    private String sentinelMaster;
+
+    @Value("${redis.sentinel.nodes:}")
+    private List<String> sentinelNodes;
+
+    @Value("${redis.cluster.nodes:}")
+    private List<String> clusterNodes;
+
+    @Value("${redis.cluster.max-redirects:3}")
+    private int clusterMaxRedirects;
+
+    @Value("${redis.cluster.refresh-period:30s}")
+    private Duration clusterRefreshPeriod;
+
+    @Value("${redis.read-from:replicaPreferred}")
+    private String readFrom;
+
+    @Value("${redis.command-timeout:2s}")
+    private Duration commandTimeout;
+
+    @Value("${redis.connect-timeout:2s}")
+    private Duration connectTimeout;
+
     /**
      * Creates and configures the Redis connection using Lettuce.
-     * @return a LettuceConnectionFactory connected to the specified Redis server.
+     * The topology is chosen by {@code redis.mode}: {@code standalone} (host and port),
+     * {@code sentinel} (master name and sentinel nodes) or {@code cluster} (seed nodes, with
+     * periodic and adaptive topology refresh). In Sentinel and Cluster mode plain reads are
+     * routed according to {@code redis.read-from} (default {@code replicaPreferred}); scripts
+     * and writes always go to the master, so reads that must not lag behind a write, such as
+     * token versions and cached users, are issued as scripts.
+     * All callers share one native connection, which reconnects automatically; while it is
+     * disconnected commands fail immediately instead of queueing, and every command is
+     * bounded by the command timeout. The client resources come from Spring Boot, so Lettuce
+     * records per-command latency in the {@code lettuce.command.*} metrics.
+     * @param clientResources the shared Lettuce client resources.
+     * @return a LettuceConnectionFactory connected to the configured Redis topology.
      */
     @Bean
-    public LettuceConnectionFactory redisConnectionFactory() {
-        RedisStandaloneConfiguration config = new RedisStandaloneConfiguration(redisHost, redisPort);
-        return new LettuceConnectionFactory(config);
+    public LettuceConnectionFactory redisConnectionFactory(ClientResources clientResources) {
+        LettuceConnectionFactory factory = switch (mode.toLowerCase()) {
+            case "standalone" -> {
+                RedisStandaloneConfiguration config =
+                        new RedisStandaloneConfiguration(redisHost, redisPort);
+                config.setPassword(password);
+                yield new LettuceConnectionFactory(
+                        config, clientConfiguration(clientResources, ClientOptions.builder()));
+            }
+            case "sentinel" -> {
+                RedisSentinelConfiguration config =
+                        new RedisSentinelConfiguration(sentinelMaster, Set.copyOf(sentinelNodes));
+                config.setPassword(password);
+                yield new LettuceConnectionFactory(
+                        config, clientConfiguration(clientResources, ClientOptions.builder()));
+            }
+            case "cluster" -> {
+                RedisClusterConfiguration config = new RedisClusterConfiguration(clusterNodes);
+                config.setMaxRedirects(clusterMaxRedirects);
+                config.setPassword(password);
+                ClusterClientOptions.Builder options = ClusterClientOptions.builder()
+                        .topologyRefreshOptions(ClusterTopologyRefreshOptions.builder()
+                                .enablePeriodicRefresh(clusterRefreshPeriod)
+                                .enableAllAdaptiveRefreshTriggers()
+                                .build());
+                yield new LettuceConnectionFactory(
+                        config, clientConfiguration(clientResources, options));
+            }
+            default -> throw new IllegalStateException("Unsupported redis.mode: " + mode);
+        };
+        factory.setShareNativeConnection(true);
+        return factory;
+    }
+
+    private LettuceClientConfiguration clientConfiguration(
+            ClientResources clientResources, ClientOptions.Builder options) {
+        LettuceClientConfiguration.LettuceClientConfigurationBuilder builder =
+                LettuceClientConfiguration.builder()
+                        .clientResources(clientResources)
+                        .commandTimeout(commandTimeout)
+                        .clientOptions(options
+                                .autoReconnect(true)
+                                .disconnectedBehavior(
+                                        ClientOptions.DisconnectedBehavior.REJECT_COMMANDS)
+                                .socketOptions(SocketOptions.builder()
+                                        .connectTimeout(connectTimeout)
+                                        .keepAlive(true)
+                                        .build())
+                                .timeoutOptions(TimeoutOptions.enabled(commandTimeout))
+                                .build());
+        if (!"standalone".equalsIgnoreCase(mode)) {
+            builder.readFrom(ReadFrom.valueOf(readFrom));
+        }
+        return builder.build();
     }
 
     /**
-     * Configures a RedisTemplate to work with String keys and values.
+     * Configures a RedisTemplate to work with String keys and values, both stored as UTF-8.
      * @param factory the Redis connection factory injected by Spring.
      * @return a RedisTemplate configured with the Redis connection.
      */
     @Bean
-    public RedisTemplate<String, String> redisTemplate(LettuceConnectionFactory factory) {
+    public RedisTemplate<String, String> redisTemplate(RedisConnectionFactory factory) {
         RedisTemplate<String, String> template = new RedisTemplate<>();
         template.setConnectionFactory(factory);
+        template.setKeySerializer(RedisSerializer.string());
+        template.setValueSerializer(RedisSerializer.string());
+        template.setHashKeySerializer(RedisSerializer.string());
+        template.setHashValueSerializer(RedisSerializer.string());
+        return template;
+    }
+
+    /**
+     * Configures a RedisTemplate with UTF-8 String keys and raw byte array values.
+     * @param factory the Redis connection factory injected by Spring.
+     * @return a RedisTemplate for binary values.
+     */
+    @Bean
+    public RedisTemplate<String, byte[]> binaryRedisTemplate(RedisConnectionFactory factory) {
+        RedisTemplate<String, byte[]> template = new RedisTemplate<>();
+        template.setConnectionFactory(factory);
+        template.setKeySerializer(RedisSerializer.string());
+        template.setValueSerializer(RedisSerializer.byteArray());
+        template.setHashKeySerializer(RedisSerializer.string());
+        template.setHashValueSerializer(RedisSerializer.byteArray());
         return template;
     }
-}
\ No newline at end of file
+
+    /**
+     * Subscribes the user cache to invalidations published by any replica.
+     * Redis being unreachable at startup does not prevent the application from starting;
+     * until the subscription is established local entries are bounded by their TTL.
+     * @param factory the Redis connection factory injected by Spring.
+     * @param userCacheService the cache that evicts its local entries.
+     * @return a listener container bound to the user cache invalidation channel.
+     */
+    @Bean
+    public RedisMessageListenerContainer userCacheListenerContainer(
+            RedisConnectionFactory factory, UserCacheService userCacheService) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer() {
+            @Override
+            public void start() {
+                try {
+                    super.start();
+                } catch (RedisListenerExecutionFailedException e) {
+                    System.out.println("No se pudo suscribir a Redis: " + e.getMessage());
+                }
+            }
+        };
+        container.setConnectionFactory(factory);
+        container.addMessageListener(
+                userCacheService, new ChannelTopic(UserCacheService.INVALIDATION_CHANNEL));
+        return container;
+    }
+}
@@ -3,8 +3,8 @@ package com.example.demo.config;
 import com.example.demo.dto.auth.JwtDataDto;
 import com.example.demo.entity.User;
 import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.repository.UserRepository;
 import com.example.demo.service.TwoFactorAuthService;
-import com.example.demo.service.UserService;
 import com.example.demo.utils.CustomOauth2UserService;
 import com.example.demo.utils.CustomOidcUserService;
 import com.example.demo.utils.JwtAuthFilter;
@@ -47,7 +47,7 @@ public class SecurityConfig {
   private final CustomOidcUserService customOidcUserService;
   private final JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
   private final TwoFactorAuthService twoFactorAuthService;
-  private final UserService userService;
+  private final UserRepository userRepository;
 
   /**
    * Security filter chain for OAuth2 login endpoints.
@@ -134,7 +134,7 @@ public class SecurityConfig {
    * <ul>
    *   <li>Extracts user attributes from the OAuth2User.</li>
    *   <li>Checks if 2FA is enabled for the user.</li>
-   *   <li>If 2FA is enabled, sends a verification code and returns a 2FA message.</li>
+   *   <li>If 2FA is enabled, opens a 2FA challenge and returns its login ticket.</li>
    *   <li>If 2FA is not enabled, generates a JWT token and returns
    *        it in the response header and body.</li>
    * </ul>
@@ -150,18 +150,27 @@ public class SecurityConfig {
       String fullname = (String) oauth2User.getAttributes().get("name");
       String role = (String) oauth2User.getAttributes().get("role");
       Boolean is2faEnabled = (Boolean) oauth2User.getAttributes().get("twoFactorEnabled");
+      Integer tokenVersion = (Integer) oauth2User.getAttributes().get("tokenVersion");
       JwtDataDto jwtDataDto = new JwtDataDto();
       jwtDataDto.setUuid(userId);
       jwtDataDto.setFullname(fullname);
       jwtDataDto.setEmail(email);
       jwtDataDto.setRole(role);
       jwtDataDto.setTwoFactorEnabled(is2faEnabled);
+      jwtDataDto.setTokenVersion(tokenVersion != null ? tokenVersion : 0);
       if (is2faEnabled) {
-        User user = userService.findByEmail(email)
+        User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
-        twoFactorAuthService.sendVerificationCode(user);
+        String ticket = twoFactorAuthService.startChallenge(user);
         response.setStatus(HttpServletResponse.SC_OK);
-        response.getWriter().write("{\"message\": \"Código 2FA enviado\"}");
+        response.setHeader("Authorization", "Bearer " + ticket);
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        String message = user.usesTotp()
+                ? "Ingresa el código de tu app de autenticación"
+                : "Código 2FA enviado";
+        response.getWriter().write(String.format(
+                "{\"message\": \"%s\", \"ticket\": \"%s\"}", message, ticket));
       } else {
         jwtDataDto.setTwoFactorEnabled(false);
         String token = jwtService.generateToken(jwtDataDto);
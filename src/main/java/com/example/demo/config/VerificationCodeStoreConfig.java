@@ -0,0 +1,51 @@
+package com.example.demo.config;
+
+import com.example.demo.service.FailoverVerificationCodeStore;
+import com.example.demo.service.InMemoryVerificationCodeStore;
+import com.example.demo.service.RedisVerificationCodeStore;
+import com.example.demo.service.VerificationCodeStore;
+import com.example.demo.utils.RedisGateway;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Selects where 2FA verification codes are stored.
+ */
+@Configuration
+public class VerificationCodeStoreConfig {
+
+  /**
+   * Creates the store selected by {@code verification-code.store}: {@code redis},
+   * {@code memory} (used by the {@code local} profile), or {@code failover}, which uses Redis
+   * and falls back to memory while Redis is unavailable.
+   *
+   * @param store         store type
+   * @param maxEntries    maximum number of codes kept in memory
+   * @param retryAfter    time Redis is skipped after a failure in failover mode
+   * @param redisGateway  Redis access
+   * @param meterRegistry registry for fallback metrics
+   * @return the verification code store
+   */
+  @Bean
+  public VerificationCodeStore verificationCodeStore(
+          @Value("${verification-code.store:failover}") String store,
+          @Value("${verification-code.memory.max-entries:100000}") int maxEntries,
+          @Value("${verification-code.failover.retry-after:30s}") Duration retryAfter,
+          RedisGateway redisGateway,
+          MeterRegistry meterRegistry) {
+    return switch (store.toLowerCase()) {
+      case "redis" -> new RedisVerificationCodeStore(redisGateway);
+      case "memory" -> new InMemoryVerificationCodeStore(maxEntries);
+      case "failover" -> new FailoverVerificationCodeStore(
+              new RedisVerificationCodeStore(redisGateway),
+              new InMemoryVerificationCodeStore(maxEntries),
+              retryAfter,
+              meterRegistry);
+      default -> throw new IllegalStateException(
+              "Unsupported verification-code.store: " + store);
+    };
+  }
+}
@@ -0,0 +1,11 @@
+package com.example.demo.constant;
+
+/**
+ * Represents the processing statuses of a company profile submission.
+ */
+public enum CompanyProfileJobStatus {
+  PENDING,
+  PROCESSING,
+  COMPLETED,
+  FAILED
+}
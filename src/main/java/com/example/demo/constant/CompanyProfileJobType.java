@@ -0,0 +1,9 @@
+package com.example.demo.constant;
+
+/**
+ * Represents the kind of change a company profile submission applies.
+ */
+public enum CompanyProfileJobType {
+  CREATE,
+  UPDATE
+}
@@ -0,0 +1,9 @@
+package com.example.demo.constant;
+
+/**
+ * Represents the statuses of a queued document deletion.
+ */
+public enum DocumentDeletionStatus {
+  PENDING,
+  FAILED
+}
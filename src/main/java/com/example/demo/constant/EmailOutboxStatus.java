@@ -0,0 +1,10 @@
+package com.example.demo.constant;
+
+/**
+ * Represents the delivery statuses of a queued email.
+ */
+public enum EmailOutboxStatus {
+  PENDING,
+  SENDING,
+  FAILED
+}
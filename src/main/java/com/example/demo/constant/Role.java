@@ -1,10 +1,38 @@
 package com.example.demo.constant;
 
+import java.util.List;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
 /**
  * Enum that defines the roles available in the application.
+ * Each role keeps its granted authorities precomputed so they are not
+ * rebuilt on every authenticated request.
  */
 public enum Role {
   ADMIN,
   USER,
   COMPANY,
+  ;
+
+  private final List<GrantedAuthority> authorities =
+          List.of(new SimpleGrantedAuthority("ROLE_" + name()));
+
+  public List<GrantedAuthority> getAuthorities() {
+    return authorities;
+  }
+
+  /**
+   * Resolves a role from the {@code role} claim issued in the JWT (e.g. {@code ROLE_USER}).
+   *
+   * @param claim role claim value, with or without the {@code ROLE_} prefix
+   * @return the matching role
+   * @throws IllegalArgumentException if the claim does not match any role
+   */
+  public static Role fromClaim(String claim) {
+    if (claim == null) {
+      throw new IllegalArgumentException("Claim de rol ausente");
+    }
+    return valueOf(claim.startsWith("ROLE_") ? claim.substring(5) : claim);
+  }
 }
@@ -0,0 +1,9 @@
+package com.example.demo.constant;
+
+/**
+ * Represents how a user proves the second authentication factor.
+ */
+public enum TwoFactorMethod {
+  EMAIL,
+  TOTP
+}
@@ -9,12 +9,13 @@ import com.example.demo.dto.auth.RegisterRequestDto;
 import com.example.demo.entity.User;
 import com.example.demo.exception.ForbiddenException;
 import com.example.demo.service.AuthService;
-import com.example.demo.service.CaptchaService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -36,40 +37,49 @@ import org.springframework.web.server.ResponseStatusException;
 public class AuthController {
 
   private final AuthService authService;
-  private final CaptchaService captchaService;
+  private final AsyncTaskExecutor applicationTaskExecutor;
 
   /**
    * Endpoint for user login.
    * This method validates the received reCAPTCHA token and user credentials.
    * If the reCAPTCHA token is invalid, it throws a `ForbiddenException`.
    * If the user has two-factor authentication (2FA) enabled,
-   * a verification code is sent to their email, and the response returns
-   * HTTP status 202 (Accepted) indicating that the code was sent.
+   * a verification code is sent to their email (unless they use an authenticator app),
+   * and the response returns HTTP status 202 (Accepted) with a short-lived login ticket
+   * in the "Authorization" header and in the body, to be sent with the code.
    * If 2FA is not enabled, a JWT token is generated and returned
    * both in the "Authorization" header and in the response body.
+   * The reCAPTCHA verification and the credential check run concurrently,
+   * and the request thread is released while they are in progress.
    *
    * @param request object containing the login request
    *                data, including email, password, and reCAPTCHA token
    * @return ResponseEntity with:
    *         - HTTP 200 and the JWT token in the header and body if login
    *         is successful and 2FA is not enabled
-   *         - HTTP 202 with a message indicating that the 2FA code has been sent
+   *         - HTTP 202 with the login ticket and the pending 2FA step
    *         if two-factor authentication is enabled
    * @throws ForbiddenException if the reCAPTCHA token is invalid
    */
   @PostMapping("/login")
-  public ResponseEntity<?> login(@Valid @RequestBody LoginRequestDto request) {
-    if (!captchaService.verify(request.getRecaptchaToken())) {
-      System.out.println("Token recibido: " + request.getRecaptchaToken());
-      throw new ForbiddenException("Captcha inválido");
-    }
-    User user = authService.validateUserCredentials(request);
+  public CompletableFuture<ResponseEntity<?>> login(@Valid @RequestBody LoginRequestDto request) {
+    return authService.loginAsync(request)
+            .thenApplyAsync(this::loginResponse, applicationTaskExecutor);
+  }
+
+  private ResponseEntity<?> loginResponse(User user) {
     if (user.isTwoFactorEnabled()) {
-      authService.sendTwoFactorCodeToEmail(user);
-      return ResponseEntity.status(HttpStatus.ACCEPTED)
-              .body(new ApiResult<>(true, "Código de verificación enviado al email", "2FA_CODE_SENT"));
+      String ticket = authService.startTwoFactorChallenge(user);
+      HttpHeaders headers = new HttpHeaders();
+      headers.set("Authorization", "Bearer " + ticket);
+      ApiResult<Map<String, String>> response = user.usesTotp()
+              ? new ApiResult<>(true, "Ingresa el código de tu app de autenticación",
+                      Map.of("status", "2FA_TOTP_REQUIRED", "ticket", ticket))
+              : new ApiResult<>(true, "Código de verificación enviado al email",
+                      Map.of("status", "2FA_CODE_SENT", "ticket", ticket));
+      return ResponseEntity.status(HttpStatus.ACCEPTED).headers(headers).body(response);
     }
-    String token = authService.generateJwtToken(request.getEmail());
+    String token = authService.generateJwtToken(user);
     HttpHeaders headers = new HttpHeaders();
     headers.set("Authorization", "Bearer " + token);
     Map<String, String> data = Map.of("token", token);
@@ -79,18 +89,22 @@ public class AuthController {
 
   /**
    * Endpoint for user registration.
+   * The password is hashed on the dedicated hashing pool, so the request thread
+   * is released while the registration completes.
    *
    * @param request registration request data
    * @return JWT token in header and body
    */
   @PostMapping("/register")
-  public ResponseEntity<?> register(@Valid @RequestBody RegisterRequestDto request) {
-    String token = authService.register(request);
-    HttpHeaders headers = new HttpHeaders();
-    headers.set("Authorization", "Bearer " + token);
-    Map<String, String> data = Map.of("token", token);
-    ApiResult<Map<String, String>> response = new ApiResult<>(true, "Registro exitoso", data);
-    return ResponseEntity.ok().headers(headers).body(response);
+  public CompletableFuture<ResponseEntity<?>> register(
+          @Valid @RequestBody RegisterRequestDto request) {
+    return authService.registerAsync(request).thenApply(token -> {
+      HttpHeaders headers = new HttpHeaders();
+      headers.set("Authorization", "Bearer " + token);
+      Map<String, String> data = Map.of("token", token);
+      ApiResult<Map<String, String>> response = new ApiResult<>(true, "Registro exitoso", data);
+      return ResponseEntity.ok().headers(headers).body(response);
+    });
   }
 
   /**
@@ -2,8 +2,10 @@ package com.example.demo.controller;
 
 import com.example.demo.constant.ApiResult;
 import com.example.demo.constant.CompanyProfileStatus;
+import com.example.demo.dto.CompanyProfileJobDto;
 import com.example.demo.dto.CompanyProfileRequestDto;
 import com.example.demo.dto.CompanyProfileResponseDto;
+import com.example.demo.dto.SignedUploadDto;
 import com.example.demo.exception.BadRequestException;
 import com.example.demo.service.CompanyProfileService;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -12,9 +14,11 @@ import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validation;
 import jakarta.validation.Validator;
 import jakarta.validation.ValidatorFactory;
+import java.net.URI;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -23,6 +27,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -39,27 +44,58 @@ public class CompanyProfileController {
   public final CompanyProfileService companyProfileService;
 
   /**
-   * Creates a new company profile.
+   * Issues signed parameters to upload the profile document straight to Cloudinary.
+   * The resulting public ID is then sent to the create or update endpoint instead of a file.
    *
-   * @param file file to upload
+   * @param authentication Authentication object with user details
+   * @return signed upload parameters
+   */
+  @PreAuthorize("hasRole('USER')")
+  @PostMapping("/company-profile/upload-signature")
+  public ResponseEntity<SignedUploadDto> createUploadSignature(Authentication authentication) {
+    return ResponseEntity.ok(companyProfileService.issueUploadSignature(authentication.getName()));
+  }
+
+  /**
+   * Creates a company profile. With a file or a completed resumable upload, the document is
+   * uploaded and the profile saved in the background and progress is available at the
+   * returned job location. With the
+   * public ID of a document uploaded straight to Cloudinary, the profile is saved right away.
+   *
+   * @param file file to upload, when not uploaded directly
+   * @param publicId public ID of a document uploaded with signed parameters
+   * @param uploadId identifier of a completed resumable upload
    * @param companyProfileRequestDtoJson JSON string with profile data
-   * @return ApiResponse with success message
+   * @param authentication Authentication object with user details
+   * @return 202 Accepted with the queued submission, or 201 Created with the profile
    * @throws JsonProcessingException if JSON is invalid
    */
   @PreAuthorize("hasRole('USER')")
   @PostMapping(value = "/create/company-profile", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
   public ResponseEntity<?> createCompanyProfile(
-          @RequestParam("file") MultipartFile file,
-          @RequestParam("data") String companyProfileRequestDtoJson)
+          @RequestParam(value = "file", required = false) MultipartFile file,
+          @RequestParam(value = "publicId", required = false) String publicId,
+          @RequestParam(value = "uploadId", required = false) UUID uploadId,
+          @RequestParam("data") String companyProfileRequestDtoJson,
+          Authentication authentication)
           throws JsonProcessingException {
 
-    validateFile(file);
+    requireSingleDocument(file, publicId, uploadId);
     CompanyProfileRequestDto companyProfileRequestDto = valid(companyProfileRequestDtoJson);
-    CompanyProfileResponseDto createdProfile = companyProfileService.create(
-            file, companyProfileRequestDto);
-    ApiResult<CompanyProfileResponseDto> response = new ApiResult<>(
-            true, "Perfil de empresa creado correctamente", createdProfile);
-    return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    if (publicId != null) {
+      CompanyProfileResponseDto createdProfile = companyProfileService.createFromUpload(
+              publicId, companyProfileRequestDto, authentication.getName());
+      return ResponseEntity.status(HttpStatus.CREATED).body(new ApiResult<>(
+              true, "Perfil de empresa creado correctamente", createdProfile));
+    }
+    if (uploadId != null) {
+      CompanyProfileJobDto job = companyProfileService.createFromSession(
+              uploadId, companyProfileRequestDto, authentication.getName());
+      return accepted(job, "Solicitud de perfil de empresa recibida");
+    }
+    validateFile(file);
+    CompanyProfileJobDto job = companyProfileService.create(file, companyProfileRequestDto);
+    return accepted(job, "Solicitud de perfil de empresa recibida");
   }
 
   /**
@@ -82,26 +118,63 @@ public class CompanyProfileController {
   }
 
   /**
-   * Updates a rejected company profile.
+   * Updates a rejected company profile. With a file or a completed resumable upload, the
+   * document is uploaded and the profile saved in the background and progress is available
+   * at the returned job location.
+   * With the public ID of a document uploaded straight to Cloudinary, the profile is saved
+   * right away.
    *
-   * @param file file to upload
+   * @param file file to upload, when not uploaded directly
+   * @param publicId public ID of a document uploaded with signed parameters
+   * @param uploadId identifier of a completed resumable upload
    * @param companyProfileRequestDtoJson JSON string with profile data
-   * @return ApiResponse with success message
+   * @param authentication Authentication object with user details
+   * @return 202 Accepted with the queued submission, or 200 OK with the profile
    * @throws JsonProcessingException if JSON is invalid
    */
   @PreAuthorize("hasRole('USER')")
   @PutMapping(value = "/update/company-profile", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
   public ResponseEntity<?> updateCompanyProfile(
-          @RequestParam("file") MultipartFile file,
-          @RequestParam("data") String companyProfileRequestDtoJson)
+          @RequestParam(value = "file", required = false) MultipartFile file,
+          @RequestParam(value = "publicId", required = false) String publicId,
+          @RequestParam(value = "uploadId", required = false) UUID uploadId,
+          @RequestParam("data") String companyProfileRequestDtoJson,
+          Authentication authentication)
           throws JsonProcessingException {
 
-    validateFile(file);
+    requireSingleDocument(file, publicId, uploadId);
     CompanyProfileRequestDto companyProfileRequestDto = valid(companyProfileRequestDtoJson);
-    CompanyProfileResponseDto updateProfile = companyProfileService.updateRejectedProfile(file, companyProfileRequestDto);
-    ApiResult<CompanyProfileResponseDto> response = new ApiResult<>(
-            true, "Se actualizo exitosamente el perfil de empresa.", updateProfile);
-    return ResponseEntity.ok(response);
+    if (publicId != null) {
+      CompanyProfileResponseDto updateProfile = companyProfileService
+              .updateRejectedProfileFromUpload(
+                      publicId, companyProfileRequestDto, authentication.getName());
+      return ResponseEntity.ok(new ApiResult<>(
+              true, "Se actualizo exitosamente el perfil de empresa.", updateProfile));
+    }
+    if (uploadId != null) {
+      CompanyProfileJobDto job = companyProfileService.updateRejectedProfileFromSession(
+              uploadId, companyProfileRequestDto, authentication.getName());
+      return accepted(job, "Solicitud de actualización del perfil de empresa recibida");
+    }
+    validateFile(file);
+    CompanyProfileJobDto job = companyProfileService.updateRejectedProfile(
+            file, companyProfileRequestDto);
+    return accepted(job, "Solicitud de actualización del perfil de empresa recibida");
+  }
+
+  /**
+   * Gets the state of a company profile submission of the authenticated user.
+   *
+   * @param id submission identifier
+   * @param authentication Authentication object with user details
+   * @return submission state
+   */
+  @PreAuthorize("hasAnyRole('USER', 'COMPANY')")
+  @GetMapping("/company-profile/jobs/{id}")
+  public ResponseEntity<CompanyProfileJobDto> getCompanyProfileJob(
+          @PathVariable UUID id,
+          Authentication authentication) {
+    return ResponseEntity.ok(companyProfileService.getJob(id, authentication.getName()));
   }
 
   /**
@@ -121,6 +194,21 @@ public class CompanyProfileController {
     return ResponseEntity.ok(profile);
   }
 
+  private static ResponseEntity<?> accepted(CompanyProfileJobDto job, String message) {
+    return ResponseEntity.accepted()
+            .location(URI.create("/company-profile/jobs/" + job.getId()))
+            .body(new ApiResult<>(true, message, job));
+  }
+
+  private static void requireSingleDocument(MultipartFile file, String publicId, UUID uploadId) {
+    long documents = Stream.of(file, publicId, uploadId).filter(Objects::nonNull).count();
+    if (documents != 1) {
+      throw new BadRequestException(
+              "Envíe el archivo, el publicId de una subida directa o el uploadId de una "
+                      + "subida reanudable, solo uno de ellos");
+    }
+  }
+
   private CompanyProfileRequestDto valid(
           String companyProfileRequestDtoJson) throws JsonProcessingException {
     ObjectMapper objectMapper = new ObjectMapper();
@@ -0,0 +1,168 @@
+package com.example.demo.controller;
+
+import com.example.demo.entity.User;
+import com.example.demo.exception.ForbiddenException;
+import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.service.DocumentStorage;
+import com.example.demo.service.LocalDocumentStorage;
+import com.example.demo.service.UserCacheService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+
+/**
+ * Serves documents kept by the {@link LocalDocumentStorage}.
+ * Downloads support conditional requests ({@code ETag}/{@code Last-Modified}) and single
+ * byte ranges, and are sent with Tomcat's sendfile when the connector supports it, falling
+ * back to {@link FileChannel#transferTo} otherwise, so the file is never read into the heap.
+ * Only the owner of the document folder and administrators can download it.
+ */
+@RestController
+@RequiredArgsConstructor
+public class DocumentController {
+
+  private static final String PREFIX = "/documents/";
+  private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+  private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+  private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+  private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+  private final DocumentStorage documentStorage;
+  private final UserCacheService userCacheService;
+
+  /**
+   * Streams a stored document, or the requested byte range of it.
+   *
+   * @param request        current request
+   * @param response       current response
+   * @param authentication Authentication object with user details
+   * @throws IOException if the document cannot be read or sent
+   */
+  @GetMapping(PREFIX + "**")
+  public void download(
+          HttpServletRequest request,
+          HttpServletResponse response,
+          Authentication authentication) throws IOException {
+    if (!(documentStorage instanceof LocalDocumentStorage localStorage)) {
+      throw new ResourceNotFoundException("Documento no encontrado");
+    }
+    String key = request.getRequestURI()
+            .substring(request.getContextPath().length() + PREFIX.length());
+    authorize(key, authentication);
+
+    Path file = localStorage.resolve(key);
+    if (!Files.isRegularFile(file)) {
+      throw new ResourceNotFoundException("Documento no encontrado");
+    }
+    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+    long length = attributes.size();
+    long lastModified = attributes.lastModifiedTime().toMillis();
+    String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+
+    if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+      return;
+    }
+    response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+    response.setContentType(MediaTypeFactory.getMediaType(key)
+            .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+
+    long start = 0;
+    long end = length - 1;
+    HttpRange range = singleRange(request, etag, lastModified);
+    if (range != null) {
+      start = range.getRangeStart(length);
+      end = range.getRangeEnd(length);
+      if (start >= length || start > end) {
+        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+        response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+        return;
+      }
+      response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+      response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+    }
+    response.setContentLengthLong(end - start + 1);
+    send(request, response, file, start, end + 1);
+  }
+
+  private void authorize(String key, Authentication authentication) {
+    boolean admin = authentication.getAuthorities().stream()
+            .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+    if (admin) {
+      return;
+    }
+    User user = userCacheService.findByEmail(authentication.getName())
+            .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
+    if (!key.startsWith("users/" + user.getId() + "/")) {
+      throw new ForbiddenException("No tiene acceso a este documento");
+    }
+  }
+
+  /**
+   * Returns the requested range, or {@code null} to send the whole document: malformed and
+   * multi-range headers are ignored, and so is a range whose {@code If-Range} no longer
+   * matches the current version.
+   */
+  private static HttpRange singleRange(HttpServletRequest request, String etag, long lastModified) {
+    String header = request.getHeader(HttpHeaders.RANGE);
+    if (header == null || !ifRangeMatches(request, etag, lastModified)) {
+      return null;
+    }
+    try {
+      List<HttpRange> ranges = HttpRange.parseRanges(header);
+      return ranges.size() == 1 ? ranges.getFirst() : null;
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+    String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+    if (ifRange == null) {
+      return true;
+    }
+    if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+      return ifRange.equals(etag);
+    }
+    long since = request.getDateHeader(HttpHeaders.IF_RANGE);
+    return since != -1 && lastModified / 1000 <= since / 1000;
+  }
+
+  private static void send(
+          HttpServletRequest request,
+          HttpServletResponse response,
+          Path file,
+          long start,
+          long endExclusive) throws IOException {
+    if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+      request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+      request.setAttribute(SENDFILE_START, start);
+      request.setAttribute(SENDFILE_END, endExclusive);
+      return;
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+      long position = start;
+      while (position < endExclusive) {
+        position += channel.transferTo(position, endExclusive - position, out);
+      }
+    }
+  }
+}
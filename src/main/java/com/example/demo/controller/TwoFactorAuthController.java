@@ -2,6 +2,8 @@ package com.example.demo.controller;
 
 import com.example.demo.constant.ApiResult;
 import com.example.demo.dto.TwoFactorRequest;
+import com.example.demo.entity.User;
+import com.example.demo.exception.UnauthorizedException;
 import com.example.demo.service.AuthService;
 import com.example.demo.service.TwoFactorAuthService;
 import java.util.Map;
@@ -12,13 +14,15 @@ import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 /**
  * REST controller for handling Two-Factor Authentication (2FA) operations.
- * Provides endpoints to toggle 2FA settings and to validate 2FA codes during login.
+ * Provides endpoints to toggle 2FA settings, enrol an authenticator app,
+ * and validate 2FA codes during login.
  */
 @RestController
 @RequestMapping("/api/auth")
@@ -26,6 +30,7 @@ import org.springframework.web.bind.annotation.RestController;
 public class TwoFactorAuthController {
   private final TwoFactorAuthService twoFactorService;
   private final AuthService authService;
+  private static final String BEARER_PREFIX = "Bearer ";
 
   /**
    * Enables or disables Two-Factor Authentication for the authenticated user.
@@ -44,16 +49,53 @@ public class TwoFactorAuthController {
   }
 
   /**
-   * Validates the provided 2FA code for the given user email.
+   * Starts authenticator-app (TOTP) enrolment for the authenticated user.
+   *
+   * @param authentication current user's authentication object
+   * @return ApiResult with the provisioning URI to render as a QR code
+   */
+  @PostMapping("/2fa/totp/enroll")
+  public ResponseEntity<?> enrollTotp(Authentication authentication) {
+    String uri = twoFactorService.enrollTotp(authentication.getName());
+    return ResponseEntity.ok(new ApiResult<>(
+            true, "Escanea el código QR con tu app de autenticación",
+            Map.of("provisioningUri", uri)));
+  }
+
+  /**
+   * Confirms TOTP enrolment with a code from the authenticator app and enables 2FA.
+   *
+   * @param request DTO containing the current TOTP code
+   * @param authentication current user's authentication object
+   * @return ApiResult indicating success of the enrolment
+   */
+  @PostMapping("/2fa/totp/confirm")
+  public ResponseEntity<?> confirmTotp(
+          @RequestBody TwoFactorRequest request, Authentication authentication) {
+    twoFactorService.confirmTotp(authentication.getName(), request.getCode());
+    return ResponseEntity.ok(new ApiResult<>(
+            true, "2FA con app de autenticación activado", null));
+  }
+
+  /**
+   * Validates the provided 2FA code for the user named in the login ticket.
    * If the code is valid, generates a JWT token and returns it in the response header and body.
    *
-   * @param request DTO containing the user's email and 2FA code
+   * @param authorization login ticket returned by the password step, as a Bearer token
+   * @param request DTO containing the 2FA code
    * @return ApiResult with JWT token on successful validation
+   * @throws UnauthorizedException if the ticket is missing, invalid or already used
    */
   @PostMapping("/2fa/validate")
-  public ResponseEntity<?> validateTwoFactorCode(@RequestBody TwoFactorRequest request) {
-    twoFactorService.validateCode(request.getEmail(), request.getCode());
-    String token = authService.generateJwtToken(request.getEmail());
+  public ResponseEntity<?> validateTwoFactorCode(
+          @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+          @RequestBody TwoFactorRequest request) {
+    if (authorization == null || !authorization.startsWith(BEARER_PREFIX)) {
+      throw new UnauthorizedException("Missing 2FA ticket.");
+    }
+    User user = twoFactorService.validateCode(
+            authorization.substring(BEARER_PREFIX.length()), request.getCode());
+    String token = authService.generateJwtToken(user);
     HttpHeaders headers = new HttpHeaders();
     headers.set("Authorization", "Bearer " + token);
     Map<String, String> data = Map.of("token", token);
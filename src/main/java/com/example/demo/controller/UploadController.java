@@ -1,10 +1,9 @@
 package com.example.demo.controller;
 
-import com.example.demo.exception.FileUploadException;
 import com.example.demo.service.CloudinaryService;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletableFuture;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -24,28 +23,21 @@ public class UploadController {
 
   /**
    * Uploads a file asynchronously to Cloudinary under a user-specific folder.
+   * The servlet thread is released while the upload runs.
    *
    * @param file   the multipart file to upload
    * @param userId the ID of the user uploading the file
-   * @return a map with the upload result data
+   * @return a future with the upload result data
    */
   @PostMapping("/upload")
-  public ResponseEntity<?> uploadFile(
+  public CompletableFuture<ResponseEntity<Map<String, Object>>> uploadFile(
           @RequestParam MultipartFile file,
           @RequestParam String userId) {
-    try {
-      String folder = "usuarios/" + userId;
-      String publicId = folder + "/foto-" + UUID.randomUUID();
+    String folder = "usuarios/" + userId;
+    String publicId = folder + "/foto-" + UUID.randomUUID();
 
-      Map<String, Object> result = cloudinaryService
-              .uploadAsync(file, folder, publicId)
-              .get();
-
-      return ResponseEntity.ok(result);
-
-    } catch (InterruptedException | ExecutionException e) {
-      Thread.currentThread().interrupt();
-      throw new FileUploadException("Error al subir el archivo", e);
-    }
+    return cloudinaryService
+            .uploadAsync(file, folder, publicId)
+            .thenApply(ResponseEntity::ok);
   }
-}
\ No newline at end of file
+}
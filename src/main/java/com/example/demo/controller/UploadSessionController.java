@@ -0,0 +1,98 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.UploadSessionDto;
+import com.example.demo.dto.UploadSessionRequestDto;
+import com.example.demo.service.UploadSessionService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import java.io.IOException;
+import java.net.URI;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller for resumable company document uploads.
+ * A client opens a session, sends the document in chunks with {@code PATCH} and, after a
+ * dropped connection, asks for the session to learn the offset to resume from. Once all
+ * bytes are received, the session identifier is sent as {@code uploadId} to the company
+ * profile create or update endpoint instead of a file.
+ */
+@RestController
+@RequiredArgsConstructor
+public class UploadSessionController {
+
+  public static final String UPLOAD_OFFSET = "Upload-Offset";
+
+  private final UploadSessionService uploadSessionService;
+
+  /**
+   * Opens a resumable upload.
+   *
+   * @param request        document name and size
+   * @param authentication Authentication object with user details
+   * @return 201 Created with the session, located at {@code /company-profile/uploads/{id}}
+   */
+  @PreAuthorize("hasRole('USER')")
+  @PostMapping("/company-profile/uploads")
+  public ResponseEntity<UploadSessionDto> createUpload(
+          @Valid @RequestBody UploadSessionRequestDto request,
+          Authentication authentication) {
+    UploadSessionDto session = uploadSessionService.create(authentication.getName(), request);
+    return ResponseEntity.created(URI.create("/company-profile/uploads/" + session.getId()))
+            .header(UPLOAD_OFFSET, String.valueOf(session.getOffset()))
+            .body(session);
+  }
+
+  /**
+   * Gets the state of a resumable upload, including the offset to resume from.
+   *
+   * @param id             session identifier
+   * @param authentication Authentication object with user details
+   * @return the session state
+   */
+  @PreAuthorize("hasRole('USER')")
+  @GetMapping("/company-profile/uploads/{id}")
+  public ResponseEntity<UploadSessionDto> getUpload(
+          @PathVariable UUID id,
+          Authentication authentication) {
+    UploadSessionDto session = uploadSessionService.get(id, authentication.getName());
+    return ResponseEntity.ok()
+            .header(UPLOAD_OFFSET, String.valueOf(session.getOffset()))
+            .body(session);
+  }
+
+  /**
+   * Appends a chunk to a resumable upload. The raw request body is the chunk content and
+   * must start at the current offset.
+   *
+   * @param id             session identifier
+   * @param offset         offset the chunk starts at
+   * @param request        current request, whose body is streamed to disk
+   * @param authentication Authentication object with user details
+   * @return the session state with the new offset
+   * @throws IOException if the request body cannot be read
+   */
+  @PreAuthorize("hasRole('USER')")
+  @PatchMapping("/company-profile/uploads/{id}")
+  public ResponseEntity<UploadSessionDto> appendChunk(
+          @PathVariable UUID id,
+          @RequestHeader(UPLOAD_OFFSET) long offset,
+          HttpServletRequest request,
+          Authentication authentication) throws IOException {
+    UploadSessionDto session = uploadSessionService.append(
+            id, authentication.getName(), offset, request.getInputStream());
+    return ResponseEntity.ok()
+            .header(UPLOAD_OFFSET, String.valueOf(session.getOffset()))
+            .body(session);
+  }
+}
@@ -2,11 +2,10 @@ package com.example.demo.controller;
 
 
 import com.example.demo.dto.UserProfileResponseDto;
-import com.example.demo.service.AuthService;
-
 import com.example.demo.service.UserProfileService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -24,17 +23,18 @@ import org.springframework.web.bind.annotation.RestController;
 public class UserProfileController {
 
     public final UserProfileService userProfileService;
-    private final AuthService authService;
 
     /**
      * Endpoint to get the user profile.
-     * It retrieves the authenticated user's email and returns their profile information.
+     * It takes the authenticated user's email from the security context and returns
+     * their profile information, loaded in a single query.
      *
+     * @param authentication current user's authentication object
      * @return ResponseEntity containing UserProfileResponseDto with user profile data
      */
     @GetMapping
-    public ResponseEntity<UserProfileResponseDto> getUserProfile() {
-        String email = authService.getAuthenticatedUserEmail();
+    public ResponseEntity<UserProfileResponseDto> getUserProfile(Authentication authentication) {
+        String email = authentication.getName();
         UserProfileResponseDto userProfile = userProfileService.getUserProfile(email);
 
         return ResponseEntity.ok(userProfile);
@@ -0,0 +1,25 @@
+package com.example.demo.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for returning the state of a company profile submission.
+ * Carries the job identifier, its status, the resulting profile once completed
+ * and the failure reason when it could not be applied.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CompanyProfileJobDto {
+  private UUID id;
+  private String type;
+  private String status;
+  private UUID profileId;
+  private String error;
+  private LocalDateTime createdAt;
+  private LocalDateTime updatedAt;
+}
@@ -0,0 +1,24 @@
+package com.example.demo.dto;
+
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO with the signed parameters a client needs to upload a document straight to
+ * Cloudinary. Every field except {@code uploadUrl} and {@code expiresAt} must be sent as-is
+ * in the upload form, together with the file.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SignedUploadDto {
+  private String uploadUrl;
+  private String apiKey;
+  private String publicId;
+  private String allowedFormats;
+  private long timestamp;
+  private String signature;
+  private Instant expiresAt;
+}
@@ -7,13 +7,12 @@ import lombok.NoArgsConstructor;
 
 /**
  * DTO for Two-Factor Authentication request.
- * Contains the user's email and the 2FA verification code.
+ * Contains the 2FA verification code; the user is identified by the login ticket.
  */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class TwoFactorRequest {
-  private String email;
   private String code;
 }
@@ -0,0 +1,22 @@
+package com.example.demo.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for returning the state of a resumable upload.
+ * The offset is the number of bytes received so far, where the next chunk must start.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UploadSessionDto {
+  private UUID id;
+  private String fileName;
+  private long length;
+  private long offset;
+  private LocalDateTime expiresAt;
+}
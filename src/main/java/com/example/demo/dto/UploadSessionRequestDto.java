@@ -0,0 +1,27 @@
+package com.example.demo.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for opening a resumable upload.
+ * Declares the name of the document and its total size in bytes.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UploadSessionRequestDto {
+
+  @NotBlank
+  @Size(max = 255)
+  private String fileName;
+
+  @Positive
+  private long length;
+}
@@ -14,5 +14,6 @@ public class JwtDataDto {
   private String email;
   private String role;
   private boolean twoFactorEnabled;
+  private int tokenVersion;
 
 }
@@ -23,7 +23,8 @@ import org.hibernate.type.SqlTypes;
 /**
  * Entity representing the profile of a company.
  * Includes legal, location, and representative data,
- * along with file URL and profile status.
+ * along with file URL and profile status. The file key identifies the document in the
+ * storage backend; it is empty for profiles saved before it was recorded.
  */
 @Data
 @NoArgsConstructor
@@ -53,6 +54,8 @@ public class CompanyProfile {
   private String legalRepresentative;
   @Column(nullable = false, name = "file_url")
   private String fileUrl;
+  @Column(length = 500, name = "file_key")
+  private String fileKey;
   @Column(nullable = false, length = 15)
   private String phone;
 
@@ -0,0 +1,81 @@
+package com.example.demo.entity;
+
+import com.example.demo.constant.CompanyProfileJobStatus;
+import com.example.demo.constant.CompanyProfileJobType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+/**
+ * Entity representing a company profile submission waiting to be uploaded and saved.
+ * The document is spooled to local disk when the request is accepted and the profile
+ * data is kept as JSON until a background worker applies it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "company_profile_job",
+        indexes = {
+          @Index(name = "idx_company_profile_job_due", columnList = "status, next_attempt_at"),
+          @Index(name = "idx_company_profile_job_user", columnList = "user_id, status")
+        })
+public class CompanyProfileJob {
+
+  @Id
+  @GeneratedValue
+  @JdbcTypeCode(SqlTypes.UUID)
+  @Column(updatable = false, nullable = false)
+  private UUID id;
+
+  @JdbcTypeCode(SqlTypes.UUID)
+  @Column(name = "user_id", nullable = false, updatable = false)
+  private UUID userId;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, updatable = false)
+  private CompanyProfileJobType type;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false)
+  private CompanyProfileJobStatus status;
+
+  @Column(nullable = false, columnDefinition = "TEXT")
+  private String payload;
+
+  @Column(name = "spool_path", length = 1000)
+  private String spoolPath;
+
+  @Column(nullable = false)
+  private int attempts;
+
+  @JdbcTypeCode(SqlTypes.UUID)
+  @Column(name = "profile_id")
+  private UUID profileId;
+
+  @Column(name = "created_at", nullable = false, updatable = false)
+  private LocalDateTime createdAt;
+
+  @Column(name = "updated_at", nullable = false)
+  private LocalDateTime updatedAt;
+
+  @Column(name = "next_attempt_at", nullable = false)
+  private LocalDateTime nextAttemptAt;
+
+  @Column(name = "last_error", length = 1000)
+  private String lastError;
+}
@@ -0,0 +1,62 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+/**
+ * Entity indexing a stored document by the SHA-256 of its content.
+ * Entries are scoped to the owning user, so identical files uploaded by different users
+ * are stored separately, and count how many profiles reference the stored object.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "document_blob",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_document_blob_user_hash", columnNames = {"user_id", "sha256"}),
+        indexes = @Index(name = "idx_document_blob_url", columnList = "url"))
+public class DocumentBlob {
+
+  @Id
+  @GeneratedValue
+  @JdbcTypeCode(SqlTypes.UUID)
+  @Column(updatable = false, nullable = false)
+  private UUID id;
+
+  @JdbcTypeCode(SqlTypes.UUID)
+  @Column(name = "user_id", nullable = false, updatable = false)
+  private UUID userId;
+
+  @Column(nullable = false, updatable = false, length = 64)
+  private String sha256;
+
+  @Column(nullable = false, updatable = false)
+  private long size;
+
+  @Column(name = "storage_key", nullable = false, updatable = false, length = 500)
+  private String storageKey;
+
+  @Column(nullable = false, updatable = false, length = 1000)
+  private String url;
+
+  @Column(name = "reference_count", nullable = false)
+  private int referenceCount;
+
+  @Column(name = "created_at", nullable = false, updatable = false)
+  private LocalDateTime createdAt;
+}
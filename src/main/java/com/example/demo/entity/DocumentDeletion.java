@@ -0,0 +1,62 @@
+package com.example.demo.entity;
+
+import com.example.demo.constant.DocumentDeletionStatus;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+/**
+ * Entity representing a stored document waiting to be deleted.
+ * Rows are queued when no profile references a document anymore and removed by the
+ * cleanup worker once the storage backend confirms the deletion.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "document_deletion",
+        indexes = {
+          @Index(name = "idx_document_deletion_due", columnList = "status, next_attempt_at"),
+          @Index(name = "idx_document_deletion_key", columnList = "storage_key")
+        })
+public class DocumentDeletion {
+
+  @Id
+  @GeneratedValue
+  @JdbcTypeCode(SqlTypes.UUID)
+  @Column(updatable = false, nullable = false)
+  private UUID id;
+
+  @Column(name = "storage_key", nullable = false, updatable = false, length = 500)
+  private String storageKey;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false)
+  private DocumentDeletionStatus status;
+
+  @Column(nullable = false)
+  private int attempts;
+
+  @Column(name = "created_at", nullable = false, updatable = false)
+  private LocalDateTime createdAt;
+
+  @Column(name = "next_attempt_at", nullable = false)
+  private LocalDateTime nextAttemptAt;
+
+  @Column(name = "last_error", length = 1000)
+  private String lastError;
+}
@@ -0,0 +1,62 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+/**
+ * Entity representing a resumable document upload in progress.
+ * The bytes received so far are kept in a spool file on local disk and the offset records
+ * how many of them are durable, so a client can resume after a dropped connection.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "upload_session",
+        indexes = {
+          @Index(name = "idx_upload_session_user", columnList = "user_id"),
+          @Index(name = "idx_upload_session_expires", columnList = "expires_at")
+        })
+public class UploadSession {
+
+  @Id
+  @GeneratedValue
+  @JdbcTypeCode(SqlTypes.UUID)
+  @Column(updatable = false, nullable = false)
+  private UUID id;
+
+  @JdbcTypeCode(SqlTypes.UUID)
+  @Column(name = "user_id", nullable = false, updatable = false)
+  private UUID userId;
+
+  @Column(name = "file_name", nullable = false, updatable = false)
+  private String fileName;
+
+  @Column(nullable = false, updatable = false)
+  private long length;
+
+  @Column(name = "upload_offset", nullable = false)
+  private long uploadOffset;
+
+  @Column(name = "spool_path", nullable = false, updatable = false, length = 1000)
+  private String spoolPath;
+
+  @Column(name = "created_at", nullable = false, updatable = false)
+  private LocalDateTime createdAt;
+
+  @Column(name = "expires_at", nullable = false)
+  private LocalDateTime expiresAt;
+}
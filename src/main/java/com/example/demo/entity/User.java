@@ -1,18 +1,20 @@
 package com.example.demo.entity;
 
 import com.example.demo.constant.Role;
+import com.example.demo.constant.TwoFactorMethod;
 import jakarta.persistence.*;
 
 import java.util.Collection;
 import java.util.Date;
-import java.util.List;
 import java.util.UUID;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 /**
@@ -54,9 +56,40 @@ public class User implements UserDetails {
   @Column(nullable = false, name = "two_factor_enabled")
   private Boolean twoFactorEnabled;
 
+  /**
+   * Second factor used when 2FA is enabled; {@code null} means email codes.
+   */
+  @Enumerated(EnumType.STRING)
+  @Column(name = "two_factor_method")
+  private TwoFactorMethod twoFactorMethod;
+
+  /**
+   * TOTP shared secret in use, encrypted by {@code TotpSecretCipher};
+   * set when enrolment is confirmed.
+   */
+  @ToString.Exclude
+  @Column(name = "totp_secret", length = 128)
+  private String totpSecret;
+
+  /**
+   * Encrypted TOTP secret of an enrolment that has not been confirmed yet.
+   * It does not affect how the user signs in until it replaces {@link #totpSecret}.
+   */
+  @ToString.Exclude
+  @Column(name = "pending_totp_secret", length = 128)
+  private String pendingTotpSecret;
+
+  /**
+   * Incremented whenever previously issued tokens must stop being accepted
+   * (role change, password reset).
+   */
+  @ColumnDefault("0")
+  @Column(nullable = false, name = "token_version")
+  private int tokenVersion;
+
   @Override
   public Collection<? extends GrantedAuthority> getAuthorities() {
-    return List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
+    return role.getAuthorities();
   }
 
   @Override
@@ -64,6 +97,12 @@ public class User implements UserDetails {
     return password;
   }
 
+  /**
+   * Only loaded on access; the build enhances this entity so the inverse side
+   * of the association can be lazy.
+   */
+  @ToString.Exclude
+  @EqualsAndHashCode.Exclude
   @OneToOne(mappedBy = "user", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
   private CompanyProfile companyProfile;
 
@@ -93,6 +132,10 @@ public class User implements UserDetails {
     return true;
   }
 
+  public boolean usesTotp() {
+    return twoFactorMethod == TwoFactorMethod.TOTP && totpSecret != null;
+  }
+
   public boolean isTwoFactorEnabled() {
     return twoFactorEnabled;
   }
@@ -0,0 +1,45 @@
+package com.example.demo.repository;
+
+import com.example.demo.constant.CompanyProfileJobStatus;
+import com.example.demo.entity.CompanyProfileJob;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CompanyProfileJobRepository extends JpaRepository<CompanyProfileJob, UUID> {
+
+  /**
+   * Locks the next batch of due submissions: pending ones whose retry time has come and
+   * processing ones whose worker stopped updating them, e.g. after a restart. Rows already
+   * locked by another worker are skipped.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+  @Query("SELECT j FROM CompanyProfileJob j "
+          + "WHERE (j.status = com.example.demo.constant.CompanyProfileJobStatus.PENDING "
+          + "AND j.nextAttemptAt <= :now) "
+          + "OR (j.status = com.example.demo.constant.CompanyProfileJobStatus.PROCESSING "
+          + "AND j.updatedAt <= :staleBefore) "
+          + "ORDER BY j.nextAttemptAt")
+  List<CompanyProfileJob> lockDue(LocalDateTime now, LocalDateTime staleBefore, Pageable page);
+
+  Optional<CompanyProfileJob> findByIdAndUserId(UUID id, UUID userId);
+
+  boolean existsByUserIdAndStatusIn(UUID userId, Collection<CompanyProfileJobStatus> statuses);
+
+  @Modifying
+  @Query("DELETE FROM CompanyProfileJob j WHERE j.status IN :statuses AND j.updatedAt < :before")
+  int deleteFinishedBefore(Collection<CompanyProfileJobStatus> statuses, LocalDateTime before);
+}
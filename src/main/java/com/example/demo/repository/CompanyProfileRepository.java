@@ -2,9 +2,12 @@ package com.example.demo.repository;
 
 import com.example.demo.entity.CompanyProfile;
 import com.example.demo.entity.User;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -17,4 +20,10 @@ public interface CompanyProfileRepository extends JpaRepository<CompanyProfile,
   boolean existsByUser(User user);
 
   Optional<CompanyProfile> findByUser(User user);
+
+  @Query("SELECT p.fileKey FROM CompanyProfile p WHERE p.fileKey IN :keys")
+  List<String> findReferencedKeys(Collection<String> keys);
+
+  @Query("SELECT p.fileUrl FROM CompanyProfile p WHERE p.fileUrl IN :urls")
+  List<String> findReferencedUrls(Collection<String> urls);
 }
@@ -0,0 +1,58 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.DocumentBlob;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface DocumentBlobRepository extends JpaRepository<DocumentBlob, UUID> {
+
+  Optional<DocumentBlob> findByUserIdAndSha256(UUID userId, String sha256);
+
+  Optional<DocumentBlob> findFirstByUrl(String url);
+
+  @Query("SELECT b.storageKey FROM DocumentBlob b WHERE b.storageKey IN :keys")
+  List<String> findIndexedKeys(Collection<String> keys);
+
+  /**
+   * Adds one reference to an indexed document.
+   *
+   * @param id document identifier
+   * @return number of updated rows, 0 if the entry was removed meanwhile
+   */
+  @Transactional
+  @Modifying
+  @Query("update DocumentBlob b set b.referenceCount = b.referenceCount + 1 where b.id = :id")
+  int addReference(@Param("id") UUID id);
+
+  /**
+   * Drops one reference from an indexed document, never going below zero.
+   *
+   * @param id document identifier
+   * @return number of updated rows
+   */
+  @Transactional
+  @Modifying
+  @Query("update DocumentBlob b set b.referenceCount = b.referenceCount - 1 "
+          + "where b.id = :id and b.referenceCount > 0")
+  int removeReference(@Param("id") UUID id);
+
+  /**
+   * Removes an entry only if nothing references it anymore.
+   *
+   * @param id document identifier
+   * @return number of deleted rows, 0 if it was referenced again meanwhile
+   */
+  @Transactional
+  @Modifying
+  @Query("delete from DocumentBlob b where b.id = :id and b.referenceCount = 0")
+  int deleteIfUnreferenced(@Param("id") UUID id);
+}
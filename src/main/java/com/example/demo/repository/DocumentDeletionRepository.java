@@ -0,0 +1,35 @@
+package com.example.demo.repository;
+
+import com.example.demo.constant.DocumentDeletionStatus;
+import com.example.demo.entity.DocumentDeletion;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DocumentDeletionRepository extends JpaRepository<DocumentDeletion, UUID> {
+
+  /**
+   * Locks the next batch of due deletions. Rows already locked by another worker are
+   * skipped, so several instances can drain the queue without deleting twice.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+  @Query("SELECT d FROM DocumentDeletion d "
+          + "WHERE d.status = :status AND d.nextAttemptAt <= :now ORDER BY d.nextAttemptAt")
+  List<DocumentDeletion> lockDue(DocumentDeletionStatus status, LocalDateTime now, Pageable page);
+
+  @Query("SELECT d.storageKey FROM DocumentDeletion d WHERE d.storageKey IN :keys")
+  List<String> findQueuedKeys(Collection<String> keys);
+
+  long countByStatus(DocumentDeletionStatus status);
+}
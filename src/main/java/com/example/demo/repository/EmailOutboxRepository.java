@@ -0,0 +1,43 @@
+package com.example.demo.repository;
+
+import com.example.demo.constant.EmailOutboxStatus;
+import com.example.demo.entity.EmailOutboxMessage;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, UUID> {
+
+  /**
+   * Locks the next batch of due messages. Rows already locked by another dispatcher
+   * are skipped, so several instances can drain the outbox without sending twice.
+   * Claimed messages stay in {@code SENDING} until their claim expires at
+   * {@code nextAttemptAt}, after which they are due again.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+  @Query("SELECT m FROM EmailOutboxMessage m "
+          + "WHERE m.status IN :statuses AND m.nextAttemptAt <= :now ORDER BY m.nextAttemptAt")
+  List<EmailOutboxMessage> lockDue(
+          Collection<EmailOutboxStatus> statuses, LocalDateTime now, Pageable page);
+
+  long countByStatus(EmailOutboxStatus status);
+
+  Optional<EmailOutboxMessage> findFirstByStatusOrderByCreatedAtAsc(EmailOutboxStatus status);
+
+  @Modifying
+  @Query("DELETE FROM EmailOutboxMessage m WHERE m.status = :status AND m.createdAt < :before")
+  int deleteByStatusCreatedBefore(EmailOutboxStatus status, LocalDateTime before);
+}
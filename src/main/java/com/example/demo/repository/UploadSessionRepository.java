@@ -0,0 +1,57 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.UploadSession;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, UUID> {
+
+  Optional<UploadSession> findByIdAndUserId(UUID id, UUID userId);
+
+  long countByUserIdAndExpiresAtAfter(UUID userId, LocalDateTime now);
+
+  List<UploadSession> findByExpiresAtBefore(LocalDateTime now, Pageable page);
+
+  /**
+   * Moves the offset forward only if it still has the expected value, and extends the
+   * session lifetime.
+   *
+   * @param id        session identifier
+   * @param expected  offset the caller wrote from
+   * @param offset    new offset
+   * @param expiresAt new expiry
+   * @return number of updated rows, 0 if the offset changed meanwhile
+   */
+  @Transactional
+  @Modifying
+  @Query("update UploadSession s set s.uploadOffset = :offset, s.expiresAt = :expiresAt "
+          + "where s.id = :id and s.uploadOffset = :expected")
+  int advanceOffset(
+          @Param("id") UUID id,
+          @Param("expected") long expected,
+          @Param("offset") long offset,
+          @Param("expiresAt") LocalDateTime expiresAt);
+
+  /**
+   * Removes a session only if all of its bytes were received, so it is handed over once.
+   *
+   * @param id     session identifier
+   * @param userId owner of the session
+   * @return number of deleted rows
+   */
+  @Transactional
+  @Modifying
+  @Query("delete from UploadSession s "
+          + "where s.id = :id and s.userId = :userId and s.uploadOffset = s.length")
+  int deleteCompleted(@Param("id") UUID id, @Param("userId") UUID userId);
+}
@@ -3,8 +3,11 @@ package com.example.demo.repository;
 import java.util.Optional;
 import java.util.UUID;
 
+import com.example.demo.dto.UserProfileResponseDto;
 import com.example.demo.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 /**
  * Repositorio para la entidad UserProfile.
@@ -14,10 +17,16 @@ import org.springframework.data.jpa.repository.JpaRepository;
 public interface UserProfileRepository extends JpaRepository<User, UUID> {
 
     /**
-     * Busca un perfil de usuario por el email del usuario asociado.
+     * Busca el perfil de usuario por su email en una sola consulta,
+     * uniendo la tabla de usuarios con la de perfiles de empresa
+     * y construyendo el DTO directamente, sin cargar entidades.
      *
      * @param email el email del usuario.
      * @return un Optional que contiene el perfil de usuario si se encuentra.
      */
-    Optional<User> findByEmail(String email);
+    @Query("select new com.example.demo.dto.UserProfileResponseDto("
+            + "u.id, u.email, u.fullname, cp.tradeName, cp.legalName, cp.cuit, cp.country, "
+            + "cp.companyLocation, cp.legalRepresentative, cp.phone) "
+            + "from User u left join u.companyProfile cp where u.email = :email")
+    Optional<UserProfileResponseDto> findProfileByEmail(@Param("email") String email);
 }
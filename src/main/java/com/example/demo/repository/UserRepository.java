@@ -1,9 +1,15 @@
 package com.example.demo.repository;
 
 import com.example.demo.entity.User;
+import jakarta.persistence.LockModeType;
 import java.util.Optional;
 import java.util.UUID;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Repository interface for managing User entities.
@@ -14,4 +20,32 @@ public interface UserRepository extends JpaRepository<User, UUID> {
 
 
   Optional<User> findByEmail(String email);
+
+  /**
+   * Locks the user's row until the current transaction ends, so per-user checks that are
+   * followed by an insert run one at a time.
+   *
+   * @param id user ID
+   * @return the locked user, or empty if it does not exist
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select u from User u where u.id = :id")
+  Optional<User> lockById(@Param("id") UUID id);
+
+  /**
+   * Replaces the password hash only if it still matches the expected one.
+   *
+   * @param email            user email
+   * @param expectedPassword hash the caller read before computing the new one
+   * @param newPassword      new hash
+   * @return number of updated rows, 0 if the hash changed meanwhile
+   */
+  @Transactional
+  @Modifying
+  @Query("update User u set u.password = :newPassword "
+          + "where u.email = :email and u.password = :expectedPassword")
+  int updatePasswordIfUnchanged(
+          @Param("email") String email,
+          @Param("expectedPassword") String expectedPassword,
+          @Param("newPassword") String newPassword);
 }
@@ -8,23 +8,31 @@ import com.example.demo.entity.PasswordResetToken;
 import com.example.demo.entity.User;
 import com.example.demo.exception.BadRequestException;
 import com.example.demo.exception.ConflictException;
+import com.example.demo.exception.ForbiddenException;
 import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.exception.ServiceUnavailableException;
 import com.example.demo.repository.PasswordResetTokenRepository;
 import com.example.demo.repository.UserRepository;
 import com.example.demo.utils.JwtService;
+import com.example.demo.utils.PasswordHashingExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.security.SecureRandom;
 
 
@@ -41,48 +49,69 @@ public class AuthService {
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
     private final PasswordResetService passwordResetService;
-    private final JavaMailSender mailSender;
+    private final EmailService emailService;
     private final PasswordResetTokenRepository tokenRepo;
     private final TwoFactorAuthService twoFactorService;
     private final UserService userService;
+    private final TokenVersionService tokenVersionService;
+    private final UserCacheService userCacheService;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final AsyncTaskExecutor applicationTaskExecutor;
+    private final CaptchaService captchaService;
+    private final MeterRegistry meterRegistry;
 
     /**
-     * Generates a JWT token for the given email.
+     * Runs credential checks on virtual threads. A check blocks while the password-hashing
+     * pool verifies the password, so a bounded platform pool in front of it would queue logins
+     * instead of letting a saturated hashing pool reject them with a 503.
+     */
+    private final ExecutorService credentialCheckExecutor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("login-", 0).factory());
+
+    /**
+     * Generates a JWT token for an already loaded user, without looking it up again.
      *
-     * @param email the user's email address
-     * @return a JWT token if authentication is successful
-     * @throws ResourceNotFoundException if the user is not found
+     * @param user the authenticated user
+     * @return a JWT token for the user
      */
-    public String generateJwtToken(String email) {
-        User user = userService.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
+    public String generateJwtToken(User user) {
         JwtDataDto jwtDataDto = new JwtDataDto();
         jwtDataDto.setUuid(user.getId());
         jwtDataDto.setFullname(user.getFullname());
         jwtDataDto.setEmail(user.getEmail());
         jwtDataDto.setRole(user.getRole().name());
         jwtDataDto.setTwoFactorEnabled(user.isTwoFactorEnabled());
+        jwtDataDto.setTokenVersion(user.getTokenVersion());
         return jwtService.generateToken(jwtDataDto);
     }
 
     /**
-     * Registers a new user in the system with the default role of USER.
+     * Registers a new user without holding the calling thread while the password is hashed.
+     * The hash runs on the password-hashing pool and the user is then saved
+     * on the application task executor.
      *
      * @param request DTO containing the new user's registration data
-     * @return a JWT token generated for the new user
-     * @throws ConflictException if the email is already registered
-     * @throws ServiceUnavailableException if an error occurs during registration
+     * @return a future completed with the JWT token generated for the new user
+     * @throws ServiceUnavailableException if the password-hashing pool is saturated
      */
-    @Transactional
-    public String register(RegisterRequestDto request) {
+    public CompletableFuture<String> registerAsync(RegisterRequestDto request) {
+        checkPasswordConfirmation(request);
+        return passwordHashingExecutor.supplyAsync(() -> passwordEncoder.encode(request.getPassword()))
+                .thenApplyAsync(hash -> createUser(request, hash), applicationTaskExecutor);
+    }
+
+    private void checkPasswordConfirmation(RegisterRequestDto request) {
         if (!request.getPassword().equals(request.getConfirmPassword())) {
             throw new BadRequestException("La confirmación de contraseña no coincide");
         }
+    }
+
+    private String createUser(RegisterRequestDto request, String passwordHash) {
         try {
             User u = new User();
             u.setFullname(request.getFullname());
             u.setEmail(request.getEmail());
-            u.setPassword(passwordEncoder.encode(request.getPassword()));
+            u.setPassword(passwordHash);
             u.setRole(Role.USER);
             u.setTwoFactorEnabled(false);
             userRepository.save(u);
@@ -93,6 +122,7 @@ public class AuthService {
             jwtDataDto.setEmail(u.getEmail());
             jwtDataDto.setRole(u.getRole().name());
             jwtDataDto.setTwoFactorEnabled(u.getTwoFactorEnabled());
+            jwtDataDto.setTokenVersion(u.getTokenVersion());
 
             return jwtService.generateToken(jwtDataDto);
         } catch (DataIntegrityViolationException e) {
@@ -140,23 +170,82 @@ public class AuthService {
 
     /**
      * Validates user credentials using the authentication manager.
+     * The user loaded by the authentication provider is returned as is,
+     * so a successful login only looks the user up once.
      *
      * @param request DTO containing the user's login credentials
      * @return the User entity if authentication is successful
      * @throws BadRequestException if credentials are invalid
-     * @throws ResourceNotFoundException if the user is not found
      */
     public User validateUserCredentials(LoginRequestDto request) {
+        Authentication authentication;
         try {
-            authenticationManager.authenticate(
+            authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())
             );
         } catch (BadCredentialsException ex) {
             throw new BadRequestException("Usuario o contraseña inválidos");
         }
 
-        return userService.findByEmail(request.getEmail())
-                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
+        return (User) authentication.getPrincipal();
+    }
+
+    /**
+     * Validates user credentials without holding the calling thread.
+     * The user lookup runs on a virtual thread; only the BCrypt comparison is handed to the
+     * password-hashing pool by the password encoder, so database and Redis I/O never occupy
+     * a hashing thread and a full hashing queue fails the login straight away.
+     *
+     * @param request DTO containing the user's login credentials
+     * @return a future completed with the authenticated User, or failed with
+     *         {@link ServiceUnavailableException} if the password-hashing pool is saturated
+     */
+    public CompletableFuture<User> validateUserCredentialsAsync(LoginRequestDto request) {
+        return CompletableFuture.supplyAsync(
+                () -> validateUserCredentials(request), credentialCheckExecutor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        credentialCheckExecutor.shutdown();
+    }
+
+    /**
+     * Runs the reCAPTCHA verification and the credential check concurrently,
+     * so a login costs roughly the slower of the two instead of their sum.
+     * The result is only decided once both have finished: a captcha failure always wins,
+     * and the response time does not depend on whether the credentials were valid.
+     * Stage durations are recorded in the {@code auth.login.stage} timer.
+     *
+     * @param request DTO containing the user's login credentials and reCAPTCHA token
+     * @return a future completed with the authenticated User
+     * @throws ForbiddenException if the reCAPTCHA token is invalid
+     * @throws BadRequestException if credentials are invalid
+     */
+    public CompletableFuture<User> loginAsync(LoginRequestDto request) {
+        long start = System.nanoTime();
+        CompletableFuture<Boolean> captcha = timed(
+                captchaService.verifyAsync(request.getRecaptchaToken()), "captcha", start);
+        CompletableFuture<User> credentials = timed(
+                validateUserCredentialsAsync(request), "credentials", start);
+
+        return CompletableFuture.allOf(captcha, credentials).handle((ignored, error) -> {
+            recordStage("total", start);
+            if (!captcha.isCompletedExceptionally() && !captcha.join()) {
+                throw new ForbiddenException("Captcha inválido");
+            }
+            captcha.join();
+            return credentials.join();
+        });
+    }
+
+    private <T> CompletableFuture<T> timed(CompletableFuture<T> stage, String name, long start) {
+        return stage.whenComplete((result, error) -> recordStage(name, start));
+    }
+
+    private void recordStage(String name, long start) {
+        meterRegistry.timer("auth.login.stage", "stage", name)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
     }
 
     /**
@@ -176,6 +265,7 @@ public class AuthService {
      * @return Un mensaje indicando que se ha enviado un correo con el código de verificación.
      * @throws RuntimeException si no se encuentra un usuario registrado con el correo proporcionado.
      */
+    @Transactional
     public String forgotPassword(String email) {
         System.out.println("Email del usuario: " + email);
         User user = userRepository.findByEmail(email).orElseThrow(() -> new RuntimeException("No se encontró ningún usuario con este email"));
@@ -190,31 +280,30 @@ public class AuthService {
     }
 
     /**
-     * Sends the 2FA verification code to the user's email.
+     * Opens the 2FA challenge for a user who passed the password step,
+     * emailing the code unless the user verifies with an authenticator app.
      *
-     * @param user the user to whom the 2FA code is sent
+     * @param user the user who passed the password step
+     * @return the login ticket required to validate the 2FA code
      */
-    public void sendTwoFactorCodeToEmail(User user) {
-        twoFactorService.sendVerificationCode(user);
+    public String startTwoFactorChallenge(User user) {
+        return twoFactorService.startChallenge(user);
     }
 
     /**
      * Envía un correo electrónico al usuario con el código de verificación para restablecer su contraseña.
      * <p>
-     * Este metodo utiliza {@link org.springframework.mail.javamail.JavaMailSender} para enviar un mensaje
-     * de texto plano con el código de recuperación. El asunto del correo es "Recuperación de Contraseña"
-     * y el cuerpo incluye el código de verificación generado.
+     * El mensaje de texto plano con el código de recuperación se encola en el outbox de correos
+     * dentro de la misma transacción y se envía en segundo plano.
+     * El asunto del correo es "Recuperación de Contraseña" y el cuerpo incluye el código de verificación generado.
      * </p>
      *
      * @param email Correo electrónico del destinatario (usuario que solicitó la recuperación).
      * @param verificationCode Código de verificación de 6 dígitos que debe ingresar el usuario para validar el cambio de contraseña.
      */
     private void sendPasswordResetEmail(String email, String verificationCode) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setTo(email);
-        message.setSubject("Recuperación de Contraseña");
-        message.setText("Pega el siguiente codigo para restablecer tu contraseña: " + verificationCode);
-        mailSender.send(message);
+        emailService.enqueue(email, "Recuperación de Contraseña",
+                "Pega el siguiente codigo para restablecer tu contraseña: " + verificationCode);
     }
 
     /**
@@ -236,6 +325,7 @@ public class AuthService {
      * @throws RuntimeException si el token es inválido, ya ha sido utilizado o ha expirado.
      * @throws IllegalArgumentException si la nueva contraseña es nula o está vacía.
      */
+    @Transactional
     public void resetPassword(String token, String newPassword) {
 
         PasswordResetToken resetToken = tokenRepo.findByToken(token)
@@ -255,7 +345,8 @@ public class AuthService {
 
         User user = resetToken.getUser();
         user.setPassword(passwordEncoder.encode(newPassword));
-        userRepository.save(user);
+        tokenVersionService.revokeTokens(user);
+        userCacheService.invalidate(user.getEmail());
 
         resetToken.setUsed(true);
         tokenRepo.save(resetToken);
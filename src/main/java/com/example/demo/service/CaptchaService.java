@@ -2,42 +2,79 @@ package com.example.demo.service;
 
 import com.example.demo.config.CaptchaConfig;
 import com.example.demo.exception.RecaptchaValidationException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.demo.exception.ServiceUnavailableException;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
 import java.io.IOException;
-import java.util.Map;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpEntity;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
-import org.springframework.web.client.RestTemplate;
 
 /**
  * Service responsible for validating the client's response against reCAPTCHA.
  * Uses the secret key provided in application configuration
  * to send a request to Google's verification API and validate
  * whether the user's response is valid.
+ * Requests go through a shared HTTP client that keeps connections alive, with strict
+ * connect and response timeouts, and behind a circuit breaker so a failing verification
+ * endpoint is rejected fast with a 503 instead of holding login threads.
  */
 @Service
 public class CaptchaService {
 
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
   private final CaptchaConfig captchaConfig;
-  private final RestTemplate restTemplate;
-  private final ObjectMapper objectMapper;
+  private final HttpClient httpClient;
+  private final CircuitBreaker circuitBreaker;
+  private final URI verifyUri;
+  private final Duration timeout;
 
   /**
    * Constructor for CaptchaService.
    *
-   * @param captchaConfig Configuration properties for reCAPTCHA.
+   * @param captchaConfig  Configuration properties for reCAPTCHA.
+   * @param verifyUrl      verification endpoint, overridable to point at a local stub.
+   * @param connectTimeout maximum time to open a connection.
+   * @param timeout        maximum time to receive the response.
    */
   @Autowired
-  public CaptchaService(CaptchaConfig captchaConfig) {
+  public CaptchaService(
+          CaptchaConfig captchaConfig,
+          @Value("${google.recaptcha.verify-url:https://www.google.com/recaptcha/api/siteverify}")
+          String verifyUrl,
+          @Value("${google.recaptcha.connect-timeout:2s}") Duration connectTimeout,
+          @Value("${google.recaptcha.timeout:3s}") Duration timeout) {
     this.captchaConfig = captchaConfig;
-    this.restTemplate = new RestTemplate();
-    this.objectMapper = new ObjectMapper();
+    this.verifyUri = URI.create(verifyUrl);
+    this.timeout = timeout;
+    this.httpClient = HttpClient.newBuilder()
+            .connectTimeout(connectTimeout)
+            .build();
+    this.circuitBreaker = CircuitBreaker.of("recaptcha", CircuitBreakerConfig.custom()
+            .slidingWindowSize(20)
+            .minimumNumberOfCalls(10)
+            .failureRateThreshold(50)
+            .slowCallDurationThreshold(timeout)
+            .waitDurationInOpenState(Duration.ofSeconds(30))
+            .ignoreExceptions(RecaptchaValidationException.class)
+            .build());
   }
 
   /**
@@ -47,29 +84,98 @@ public class CaptchaService {
    * @return {@code true} if verification is successful, {@code false} otherwise.
    * @throws RecaptchaValidationException if the response from reCAPTCHA
    *                                      is empty or if there is an error parsing the response.
+   * @throws ServiceUnavailableException  if the verification endpoint is unreachable,
+   *                                      too slow, or the circuit breaker is open.
    */
   public boolean verify(String recaptchaResponse) {
-    HttpHeaders headers = new HttpHeaders();
-    MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
-    params.add("response", recaptchaResponse);
-    params.add("secret", captchaConfig.getSecret());
+    try {
+      return verifyAsync(recaptchaResponse).join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Validates the reCAPTCHA response from the client without blocking the caller.
+   *
+   * @param recaptchaResponse The reCAPTCHA response sent from the frontend.
+   * @return a future completed with the verification result, or completed exceptionally
+   *         with the same exceptions documented on {@link #verify(String)}.
+   */
+  public CompletableFuture<Boolean> verifyAsync(String recaptchaResponse) {
+    String form = "secret=" + encode(captchaConfig.getSecret())
+            + "&response=" + encode(recaptchaResponse);
+    HttpRequest request = HttpRequest.newBuilder(verifyUri)
+            .timeout(timeout)
+            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+            .POST(HttpRequest.BodyPublishers.ofString(form))
+            .build();
 
-    HttpEntity<MultiValueMap<String, String>> request = new HttpEntity<>(params, headers);
-    String verifyUrl = "https://www.google.com/recaptcha/api/siteverify";
-    ResponseEntity<String> response = restTemplate.postForEntity(verifyUrl, request, String.class);
-    String body = response.getBody();
+    return circuitBreaker.decorateCompletionStage(() -> httpClient
+                    .sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+                    .thenApply(CaptchaService::readResponse))
+            .get()
+            .toCompletableFuture()
+            .exceptionallyCompose(CaptchaService::translate);
+  }
 
-    if (body.isEmpty()) {
-      throw new RecaptchaValidationException("La respuesta de reCAPTCHA está vacía.");
+  private static boolean readResponse(HttpResponse<InputStream> response) {
+    if (response.statusCode() >= 500) {
+      try {
+        response.body().close();
+      } catch (IOException ignored) {
+        // the connection is discarded anyway
+      }
+      throw new CompletionException(
+              new IOException("reCAPTCHA respondió con estado " + response.statusCode()));
     }
+    return readSuccess(response.body());
+  }
 
-    try {
-      Map<String, Object> json = objectMapper.readValue(
-              body, new TypeReference<Map<String, Object>>() {}
-      );
-      return Boolean.TRUE.equals(json.get("success"));
+  /**
+   * Reads the {@code success} field from the verification response with a streaming parser,
+   * skipping every other field without materializing it.
+   */
+  private static boolean readSuccess(InputStream body) {
+    try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+      JsonToken token = parser.nextToken();
+      if (token == null) {
+        throw new RecaptchaValidationException("La respuesta de reCAPTCHA está vacía.");
+      }
+      if (token != JsonToken.START_OBJECT) {
+        throw new RecaptchaValidationException("Error parseando la respuesta de reCAPTCHA");
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.currentName();
+        JsonToken value = parser.nextToken();
+        if ("success".equals(field)) {
+          return value == JsonToken.VALUE_TRUE;
+        }
+        parser.skipChildren();
+      }
+      return false;
     } catch (IOException e) {
       throw new RecaptchaValidationException("Error parseando la respuesta de reCAPTCHA", e);
     }
   }
+
+  private static CompletableFuture<Boolean> translate(Throwable error) {
+    Throwable cause = error instanceof CompletionException && error.getCause() != null
+            ? error.getCause()
+            : error;
+    if (cause instanceof RecaptchaValidationException) {
+      return CompletableFuture.failedFuture(cause);
+    }
+    String message = cause instanceof CallNotPermittedException
+            ? "Verificación de reCAPTCHA temporalmente no disponible"
+            : "No se pudo verificar el reCAPTCHA";
+    return CompletableFuture.failedFuture(new ServiceUnavailableException(message));
+  }
+
+  private static String encode(String value) {
+    return URLEncoder.encode(value == null ? "" : value, StandardCharsets.UTF_8);
+  }
 }
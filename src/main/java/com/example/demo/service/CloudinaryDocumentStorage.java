@@ -0,0 +1,88 @@
+package com.example.demo.service;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * {@link DocumentStorage} backed by Cloudinary raw uploads. The key is used as the
+ * Cloudinary public ID and documents are served from Cloudinary's CDN.
+ * Bulk deletes and listings go through the Admin API, which is rate limited, so they are
+ * meant for the background cleanup only.
+ */
+public class CloudinaryDocumentStorage implements DocumentStorage {
+
+  private static final String DOCUMENT_PREFIX = "users/";
+
+  private final CloudinaryService cloudinaryService;
+
+  /**
+   * Creates the storage.
+   *
+   * @param cloudinaryService Cloudinary access
+   */
+  public CloudinaryDocumentStorage(CloudinaryService cloudinaryService) {
+    this.cloudinaryService = cloudinaryService;
+  }
+
+  @Override
+  public StoredDocument store(Path source, String key) {
+    String folder = key.contains("/") ? key.substring(0, key.lastIndexOf('/')) : "";
+    Map<String, Object> result = cloudinaryService.upload(source, folder, key);
+    Object publicId = result.get("public_id");
+    return new StoredDocument(
+            publicId != null ? publicId.toString() : key,
+            (String) result.get("secure_url"));
+  }
+
+  @Override
+  public void delete(String key) {
+    cloudinaryService.deleteDocument(key);
+  }
+
+  @Override
+  public void deleteAll(List<String> keys) {
+    cloudinaryService.deleteDocuments(keys);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public void scan(Instant createdBefore, Consumer<List<StoredDocument>> page) {
+    String cursor = null;
+    do {
+      Map<String, Object> result = cloudinaryService.listDocuments(DOCUMENT_PREFIX, cursor);
+      List<StoredDocument> documents = new ArrayList<>();
+      Object resources = result.get("resources");
+      if (resources instanceof List<?> list) {
+        for (Object resource : list) {
+          Map<String, Object> document = (Map<String, Object>) resource;
+          if (createdBefore(document, createdBefore)) {
+            documents.add(new StoredDocument(
+                    (String) document.get("public_id"), (String) document.get("secure_url")));
+          }
+        }
+      }
+      if (!documents.isEmpty()) {
+        page.accept(documents);
+      }
+      cursor = (String) result.get("next_cursor");
+    } while (cursor != null);
+  }
+
+  private static boolean createdBefore(Map<String, Object> document, Instant instant) {
+    try {
+      return Instant.parse(String.valueOf(document.get("created_at"))).isBefore(instant);
+    } catch (DateTimeParseException e) {
+      return false;
+    }
+  }
+
+  @Override
+  public boolean supportsDirectUpload() {
+    return true;
+  }
+}
@@ -1,26 +1,61 @@
 package com.example.demo.service;
 
 import com.cloudinary.Cloudinary;
+import com.cloudinary.api.exceptions.NotFound;
 import com.cloudinary.utils.ObjectUtils;
+import com.example.demo.dto.SignedUploadDto;
 import com.example.demo.exception.FileUploadException;
+import com.example.demo.utils.UploadExecutor;
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
-import lombok.RequiredArgsConstructor;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
 /**
  * Service for managing files on Cloudinary.
  * Provides methods to upload files asynchronously and delete files
  * using the Cloudinary API.
+ * Uploads never load the whole file into memory: the multipart is handed over as a file on
+ * disk and streamed to Cloudinary, and files larger than the chunk size go through the
+ * chunked upload API, so heap usage per upload is bounded by one chunk.
+ * Uploads run on the {@link UploadExecutor}, never on the calling thread.
  */
 @Service
-@RequiredArgsConstructor
 public class CloudinaryService {
 
+  private static final int MAX_BULK_DELETE = 100;
+  private static final int MAX_LIST_RESULTS = 500;
+
   private final Cloudinary cloudinary;
+  private final UploadExecutor uploadExecutor;
+  private final int chunkSize;
+
+  /**
+   * Constructor for CloudinaryService.
+   *
+   * @param cloudinary     configured Cloudinary client
+   * @param uploadExecutor pool the uploads run on
+   * @param chunkSize      size of each part for chunked uploads; Cloudinary requires at least 5MB
+   */
+  public CloudinaryService(
+          Cloudinary cloudinary,
+          UploadExecutor uploadExecutor,
+          @Value("${cloudinary.upload.chunk-size:20MB}") DataSize chunkSize) {
+    this.cloudinary = cloudinary;
+    this.uploadExecutor = uploadExecutor;
+    this.chunkSize = Math.toIntExact(chunkSize.toBytes());
+  }
 
   /**
    * Uploads a file to Cloudinary asynchronously to a specific folder.
@@ -28,22 +63,14 @@ public class CloudinaryService {
    * @param file   file to upload (MultipartFile)
    * @param folder destination folder in Cloudinary where the file will be stored
    * @return a {@link CompletableFuture} containing the upload result
-   *         as a {@code Map<String, Object>}
-   * @throws FileUploadException if an error occurs reading or uploading the file
+   *         as a {@code Map<String, Object>}, completed exceptionally with a
+   *         {@link FileUploadException} if an error occurs reading or uploading the file
+   * @throws com.example.demo.exception.ServiceUnavailableException if the upload queue is full
    */
-  @Async
   @SuppressWarnings("unchecked")
   public CompletableFuture<Map<String, Object>> uploadAsync(MultipartFile file, String folder) {
-    try {
-      Map<String, Object> params = (Map<String, Object>) ObjectUtils.asMap("folder", folder);
-      Map<String, Object> uploadResult = cloudinary.uploader().upload(file.getBytes(), params);
-      return CompletableFuture.completedFuture(uploadResult);
-    } catch (IOException e) {
-      CompletableFuture<Map<String, Object>> failedFuture = new CompletableFuture<>();
-      failedFuture.completeExceptionally(
-              new FileUploadException("Error al subir archivo asíncrono", e));
-      return failedFuture;
-    }
+    Map<String, Object> params = (Map<String, Object>) ObjectUtils.asMap("folder", folder);
+    return uploadExecutor.supplyAsync(() -> upload(file, params));
   }
 
   /**
@@ -53,83 +80,198 @@ public class CloudinaryService {
    * @param folder   destination folder in Cloudinary where the file will be stored
    * @param publicId public identifier that will be assigned to the file in Cloudinary
    * @return a {@link CompletableFuture} containing the upload result
-   *         as a {@code Map<String, Object>}
-   * @throws FileUploadException if an error occurs reading or uploading the file
+   *         as a {@code Map<String, Object>}, completed exceptionally with a
+   *         {@link FileUploadException} if an error occurs reading or uploading the file
+   * @throws com.example.demo.exception.ServiceUnavailableException if the upload queue is full
    */
-  @Async
-  @SuppressWarnings("unchecked")
   public CompletableFuture<Map<String, Object>> uploadAsync(
           MultipartFile file, String folder, String publicId) {
+    Map<String, Object> params = documentParams(folder, publicId);
+    return uploadExecutor.supplyAsync(() -> upload(file, params));
+  }
+
+  /**
+   * Uploads a file already stored on local disk to a specific folder with a custom public ID,
+   * on the calling thread. Meant for background workers that already run off the request path.
+   *
+   * @param file     file on local disk; it is streamed, never loaded into memory
+   * @param folder   destination folder in Cloudinary where the file will be stored
+   * @param publicId public identifier that will be assigned to the file in Cloudinary
+   * @return the upload result
+   * @throws FileUploadException if an error occurs reading or uploading the file
+   */
+  public Map<String, Object> upload(Path file, String folder, String publicId) {
     try {
-      Map<String, Object> params = ObjectUtils.asMap(
-              "folder", folder,
-              "public_id", publicId,
-              "resource_type", "raw",
-              "use_filename", true,
-              "unique_filename", false
-      );
-      Map<String, Object> uploadResult = cloudinary.uploader().upload(file.getBytes(), params);
-      return CompletableFuture.completedFuture(uploadResult);
+      return upload(file.toFile(), documentParams(folder, publicId));
     } catch (IOException e) {
-      CompletableFuture<Map<String, Object>> failedFuture = new CompletableFuture<>();
-      failedFuture.completeExceptionally(
-              new FileUploadException("Error al subir archivo asíncrono", e));
-      return failedFuture;
+      throw new FileUploadException("Error al subir archivo", e);
     }
   }
 
   /**
-   * Deletes a file in Cloudinary given its public URL.
+   * Signs the parameters for a raw upload that the client sends straight to Cloudinary, so
+   * the document never passes through this application. The signature covers the public ID
+   * and the allowed formats, so the client cannot store the file anywhere else.
+   *
+   * @param publicId       public identifier the uploaded file must get
+   * @param allowedFormats comma-separated file extensions Cloudinary should accept
+   * @param ttl            time the client has to upload the file and submit its public ID
+   * @return the signed upload parameters
+   */
+  @SuppressWarnings("unchecked")
+  public SignedUploadDto signUpload(String publicId, String allowedFormats, Duration ttl) {
+    Instant now = Instant.now();
+    long timestamp = now.getEpochSecond();
+    Map<String, Object> params = ObjectUtils.asMap(
+            "public_id", publicId,
+            "allowed_formats", allowedFormats,
+            "timestamp", timestamp
+    );
+    String signature = cloudinary.apiSignRequest(params, cloudinary.config.apiSecret);
+    return new SignedUploadDto(
+            cloudinary.cloudinaryApiUrl("upload", ObjectUtils.asMap("resource_type", "raw")),
+            cloudinary.config.apiKey,
+            publicId,
+            allowedFormats,
+            timestamp,
+            signature,
+            now.plus(ttl));
+  }
+
+  /**
+   * Looks up the metadata of a raw file with the Admin API; the file content is not fetched.
    *
-   * @param url public URL of the file in Cloudinary
-   * @return a {@code Map<String, Object>} with the result of the deletion
-   * @throws FileUploadException if an error occurs deleting the file or if the URL is invalid
+   * @param publicId public identifier of the file
+   * @return the file metadata, or empty if no such file exists
+   * @throws FileUploadException if Cloudinary cannot be queried
    */
   @SuppressWarnings("unchecked")
-  public Map<String, Object> deleteByUrl(String url) {
+  public Optional<Map<String, Object>> findResource(String publicId) {
     try {
-      String publicId = extractPublicIdFromUrl(url);
-      return (Map<String, Object>) cloudinary.uploader().destroy(
-              publicId, ObjectUtils.asMap("invalidate", true));
-    } catch (IOException e) {
-      throw new FileUploadException("Error al eliminar imagen en Cloudinary", e);
+      return Optional.of(cloudinary.api().resource(
+              publicId, ObjectUtils.asMap("resource_type", "raw")));
+    } catch (NotFound e) {
+      return Optional.empty();
+    } catch (Exception e) {
+      throw new FileUploadException("Error al consultar el archivo en Cloudinary", e);
     }
   }
 
+  @SuppressWarnings("unchecked")
+  private static Map<String, Object> documentParams(String folder, String publicId) {
+    return ObjectUtils.asMap(
+            "folder", folder,
+            "public_id", publicId,
+            "resource_type", "raw",
+            "use_filename", true,
+            "unique_filename", false
+    );
+  }
+
   /**
-   * Extracts the public identifier (public_id) from a Cloudinary public URL.
+   * Spools the multipart to a temporary file and streams it to Cloudinary from disk.
+   * When the container already keeps the upload on disk the transfer is a move, not a copy.
    *
-   * @param url public Cloudinary URL
-   * @return the extracted public identifier from the URL
-   * @throws FileUploadException if the URL is invalid or the public_id cannot be extracted
+   * @param file   file to upload
+   * @param params upload parameters
+   * @return the upload result
+   * @throws FileUploadException if the file cannot be spooled or uploaded
    */
-  private String extractPublicIdFromUrl(String url) {
+  private Map<String, Object> upload(MultipartFile file, Map<String, Object> params) {
+    String extension = StringUtils.getFilenameExtension(file.getOriginalFilename());
+    Path spooled = null;
     try {
-      String[] parts = url.split("/");
-      int uploadIndex = -1;
-      for (int i = 0; i < parts.length; i++) {
-        if (parts[i].equals("upload")) {
-          uploadIndex = i;
-          break;
-        }
-      }
-      if (uploadIndex == -1 || uploadIndex + 1 >= parts.length) {
-        throw new IllegalArgumentException("URL de Cloudinary inválida");
-      }
-      StringBuilder publicIdBuilder = new StringBuilder();
-      for (int i = uploadIndex + 2; i < parts.length; i++) {
-        String part = parts[i];
-        if (i == parts.length - 1 && part.contains(".")) {
-          part = part.substring(0, part.lastIndexOf('.'));
-        }
-        publicIdBuilder.append(part);
-        if (i < parts.length - 1) {
-          publicIdBuilder.append("/");
-        }
+      spooled = Files.createTempFile("upload-", extension != null ? "." + extension : null);
+      file.transferTo(spooled.toFile());
+      return upload(spooled.toFile(), params);
+    } catch (IOException e) {
+      throw new FileUploadException("Error al subir archivo asíncrono", e);
+    } finally {
+      deleteQuietly(spooled);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private Map<String, Object> upload(File source, Map<String, Object> params) throws IOException {
+    if (source.length() > chunkSize) {
+      return cloudinary.uploader().uploadLarge(source, params, chunkSize);
+    }
+    return cloudinary.uploader().upload(source, params);
+  }
+
+  private static void deleteQuietly(Path path) {
+    if (path == null) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      System.out.println("No se pudo eliminar el archivo temporal " + path + ": " + e.getMessage());
+    }
+  }
+
+  /**
+   * Deletes raw files in Cloudinary in bulk, {@value #MAX_BULK_DELETE} public IDs per Admin
+   * API call. Deleting missing files is not an error.
+   *
+   * @param publicIds public identifiers of the files
+   * @throws FileUploadException if an error occurs deleting the files
+   */
+  public void deleteDocuments(List<String> publicIds) {
+    for (int from = 0; from < publicIds.size(); from += MAX_BULK_DELETE) {
+      List<String> batch = publicIds.subList(
+              from, Math.min(from + MAX_BULK_DELETE, publicIds.size()));
+      try {
+        cloudinary.api().deleteResources(batch, ObjectUtils.asMap(
+                "resource_type", "raw",
+                "type", "upload",
+                "invalidate", true));
+      } catch (Exception e) {
+        throw new FileUploadException("Error al eliminar archivos en Cloudinary", e);
       }
-      return publicIdBuilder.toString();
+    }
+  }
+
+  /**
+   * Lists one page of raw files in Cloudinary under a prefix.
+   *
+   * @param prefix     public ID prefix to list
+   * @param nextCursor cursor returned by the previous page, or null for the first one
+   * @return the page, with the files under {@code resources} and the next cursor, if any,
+   *         under {@code next_cursor}
+   * @throws FileUploadException if an error occurs listing the files
+   */
+  @SuppressWarnings("unchecked")
+  public Map<String, Object> listDocuments(String prefix, String nextCursor) {
+    Map<String, Object> options = ObjectUtils.asMap(
+            "resource_type", "raw",
+            "type", "upload",
+            "prefix", prefix,
+            "max_results", MAX_LIST_RESULTS);
+    if (nextCursor != null) {
+      options.put("next_cursor", nextCursor);
+    }
+    try {
+      return cloudinary.api().resources(options);
     } catch (Exception e) {
-      throw new FileUploadException("No se pudo extraer el public_id desde la URL", e);
+      throw new FileUploadException("Error al listar archivos en Cloudinary", e);
+    }
+  }
+
+  /**
+   * Deletes a raw file in Cloudinary given its public ID. Deleting a missing file is not
+   * an error.
+   *
+   * @param publicId public identifier of the file
+   * @throws FileUploadException if an error occurs deleting the file
+   */
+  public void deleteDocument(String publicId) {
+    try {
+      cloudinary.uploader().destroy(publicId, ObjectUtils.asMap(
+              "resource_type", "raw",
+              "invalidate", true));
+    } catch (IOException e) {
+      throw new FileUploadException("Error al eliminar archivo en Cloudinary", e);
     }
   }
 
@@ -0,0 +1,221 @@
+package com.example.demo.service;
+
+import com.example.demo.constant.CompanyProfileJobStatus;
+import com.example.demo.entity.CompanyProfile;
+import com.example.demo.entity.CompanyProfileJob;
+import com.example.demo.exception.FileUploadException;
+import com.example.demo.exception.ServiceUnavailableException;
+import com.example.demo.repository.CompanyProfileJobRepository;
+import com.example.demo.utils.UploadExecutor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Background worker that applies queued company profile submissions.
+ * Due jobs are claimed with {@code SKIP LOCKED}, marked {@code PROCESSING} and run on the
+ * {@link UploadExecutor}. Upload failures are retried with exponential backoff and the job
+ * is marked {@code FAILED} after the last attempt; business errors fail it right away.
+ * Jobs left in {@code PROCESSING} longer than the stale timeout are claimed again, which
+ * covers restarts while an upload was running. The spooled document is removed once the
+ * job reaches a final state, and finished jobs are purged after the retention period.
+ * Outcomes are published as {@code company.profile.jobs} and the time from submission to
+ * completion as {@code company.profile.jobs.latency}.
+ */
+@Component
+public class CompanyProfileJobWorker {
+
+  private static final int MAX_ERROR_LENGTH = 1000;
+
+  private final CompanyProfileJobRepository companyProfileJobRepository;
+  private final CompanyProfileService companyProfileService;
+  private final UploadExecutor uploadExecutor;
+  private final TransactionTemplate transactionTemplate;
+  private final int batchSize;
+  private final int maxAttempts;
+  private final Duration initialBackoff;
+  private final Duration staleAfter;
+  private final Duration retention;
+  private final Counter completedCounter;
+  private final Counter retryCounter;
+  private final Counter failedCounter;
+  private final Timer latencyTimer;
+
+  /**
+   * Creates the worker and registers its metrics.
+   *
+   * @param companyProfileJobRepository repository holding the queued submissions
+   * @param companyProfileService       service applying a submission
+   * @param uploadExecutor              pool the submissions run on
+   * @param transactionTemplate         template wrapping each state change in a transaction
+   * @param batchSize                   maximum number of submissions claimed per poll
+   * @param maxAttempts                 upload attempts before a submission is marked as failed
+   * @param initialBackoff              delay before the first retry, doubled on every retry
+   * @param staleAfter                  time after which a processing submission is claimed again
+   * @param retention                   time finished submissions stay queryable
+   * @param meterRegistry               registry for job metrics
+   */
+  public CompanyProfileJobWorker(
+          CompanyProfileJobRepository companyProfileJobRepository,
+          CompanyProfileService companyProfileService,
+          UploadExecutor uploadExecutor,
+          TransactionTemplate transactionTemplate,
+          @Value("${company-profile.jobs.batch-size:10}") int batchSize,
+          @Value("${company-profile.jobs.max-attempts:5}") int maxAttempts,
+          @Value("${company-profile.jobs.initial-backoff:10s}") Duration initialBackoff,
+          @Value("${company-profile.jobs.stale-after:15m}") Duration staleAfter,
+          @Value("${company-profile.jobs.retention:7d}") Duration retention,
+          MeterRegistry meterRegistry) {
+    this.companyProfileJobRepository = companyProfileJobRepository;
+    this.companyProfileService = companyProfileService;
+    this.uploadExecutor = uploadExecutor;
+    this.transactionTemplate = transactionTemplate;
+    this.batchSize = batchSize;
+    this.maxAttempts = maxAttempts;
+    this.initialBackoff = initialBackoff;
+    this.staleAfter = staleAfter;
+    this.retention = retention;
+    this.completedCounter = meterRegistry.counter("company.profile.jobs", "result", "completed");
+    this.retryCounter = meterRegistry.counter("company.profile.jobs", "result", "retry");
+    this.failedCounter = meterRegistry.counter("company.profile.jobs", "result", "failed");
+    this.latencyTimer = meterRegistry.timer("company.profile.jobs.latency");
+  }
+
+  /**
+   * Claims the due submissions and hands them to the upload pool. When the pool is full the
+   * remaining submissions go back to pending and are picked up by a later poll.
+   */
+  @Scheduled(fixedDelayString = "${company-profile.jobs.poll-interval-ms:1000}")
+  public void poll() {
+    List<UUID> claimed = transactionTemplate.execute(status -> claimBatch());
+    if (claimed == null) {
+      return;
+    }
+    for (int i = 0; i < claimed.size(); i++) {
+      UUID jobId = claimed.get(i);
+      try {
+        uploadExecutor.supplyAsync(() -> {
+          run(jobId);
+          return null;
+        });
+      } catch (ServiceUnavailableException e) {
+        claimed.subList(i, claimed.size()).forEach(this::release);
+        return;
+      }
+    }
+  }
+
+  /**
+   * Removes finished submissions older than the retention period.
+   */
+  @Scheduled(fixedDelayString = "${company-profile.jobs.purge-interval-ms:3600000}")
+  public void purge() {
+    transactionTemplate.executeWithoutResult(status -> companyProfileJobRepository
+            .deleteFinishedBefore(
+                    List.of(CompanyProfileJobStatus.COMPLETED, CompanyProfileJobStatus.FAILED),
+                    LocalDateTime.now().minus(retention)));
+  }
+
+  private List<UUID> claimBatch() {
+    LocalDateTime now = LocalDateTime.now();
+    List<CompanyProfileJob> jobs = companyProfileJobRepository.lockDue(
+            now, now.minus(staleAfter), PageRequest.of(0, batchSize));
+    List<UUID> claimed = new ArrayList<>();
+    for (CompanyProfileJob job : jobs) {
+      job.setStatus(CompanyProfileJobStatus.PROCESSING);
+      job.setAttempts(job.getAttempts() + 1);
+      job.setUpdatedAt(now);
+      claimed.add(job.getId());
+    }
+    return claimed;
+  }
+
+  /**
+   * Applies one claimed submission and records its outcome.
+   *
+   * @param jobId submission to apply
+   */
+  void run(UUID jobId) {
+    CompanyProfileJob job = companyProfileJobRepository.findById(jobId).orElse(null);
+    if (job == null || job.getStatus() != CompanyProfileJobStatus.PROCESSING) {
+      return;
+    }
+    try {
+      CompanyProfile profile = companyProfileService.applySubmission(job);
+      finish(job, completed -> {
+        completed.setStatus(CompanyProfileJobStatus.COMPLETED);
+        completed.setProfileId(profile.getId());
+        completed.setLastError(null);
+      });
+      completedCounter.increment();
+      latencyTimer.record(Duration.between(job.getCreatedAt(), LocalDateTime.now()));
+    } catch (FileUploadException e) {
+      if (job.getAttempts() >= maxAttempts) {
+        fail(job, e);
+      } else {
+        scheduleRetry(job, e);
+      }
+    } catch (RuntimeException e) {
+      fail(job, e);
+    }
+  }
+
+  private void scheduleRetry(CompanyProfileJob job, Exception error) {
+    Duration delay = initialBackoff.multipliedBy(1L << Math.min(job.getAttempts() - 1, 30));
+    update(job.getId(), pending -> {
+      pending.setStatus(CompanyProfileJobStatus.PENDING);
+      pending.setNextAttemptAt(LocalDateTime.now().plus(delay));
+      pending.setLastError(truncate(error.getMessage()));
+    });
+    retryCounter.increment();
+  }
+
+  private void fail(CompanyProfileJob job, Exception error) {
+    finish(job, failed -> {
+      failed.setStatus(CompanyProfileJobStatus.FAILED);
+      failed.setLastError(truncate(error.getMessage()));
+    });
+    failedCounter.increment();
+    System.out.println("No se pudo procesar la solicitud de perfil " + job.getId()
+            + ": " + error.getMessage());
+  }
+
+  private void finish(CompanyProfileJob job, Consumer<CompanyProfileJob> change) {
+    update(job.getId(), change.andThen(finished -> finished.setSpoolPath(null)));
+    companyProfileService.deleteSpool(job.getSpoolPath());
+  }
+
+  private void release(UUID jobId) {
+    update(jobId, pending -> {
+      pending.setStatus(CompanyProfileJobStatus.PENDING);
+      pending.setAttempts(pending.getAttempts() - 1);
+    });
+  }
+
+  private void update(UUID jobId, Consumer<CompanyProfileJob> change) {
+    transactionTemplate.executeWithoutResult(status -> companyProfileJobRepository
+            .findById(jobId)
+            .ifPresent(job -> {
+              change.accept(job);
+              job.setUpdatedAt(LocalDateTime.now());
+            }));
+  }
+
+  private static String truncate(String message) {
+    if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+      return message;
+    }
+    return message.substring(0, MAX_ERROR_LENGTH);
+  }
+}
@@ -1,46 +1,107 @@
 package com.example.demo.service;
 
+import com.example.demo.constant.CompanyProfileJobStatus;
+import com.example.demo.constant.CompanyProfileJobType;
 import com.example.demo.constant.CompanyProfileStatus;
 import com.example.demo.constant.Role;
+import com.example.demo.dto.CompanyProfileJobDto;
 import com.example.demo.dto.CompanyProfileRequestDto;
 import com.example.demo.dto.CompanyProfileResponseDto;
+import com.example.demo.dto.SignedUploadDto;
 import com.example.demo.entity.CompanyProfile;
+import com.example.demo.entity.CompanyProfileJob;
 import com.example.demo.entity.User;
+import com.example.demo.exception.BadRequestException;
 import com.example.demo.exception.ConflictException;
 import com.example.demo.exception.FileUploadException;
 import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.repository.CompanyProfileJobRepository;
 import com.example.demo.repository.CompanyProfileRepository;
 import com.example.demo.repository.UserRepository;
 import com.example.demo.utils.ConversionUtil;
+import com.example.demo.utils.DocumentValidator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Supplier;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
 /**
  * Service class for managing company profiles.
  * Provides methods to create, update, and retrieve company profiles,
  * including file upload handling via Cloudinary.
+ * Creation and updates are accepted as submissions: the document is spooled to local disk
+ * and a {@link CompanyProfileJob} is queued, so the request returns before the upload.
+ * The {@link CompanyProfileJobWorker} later stores the document in the configured
+ * {@link DocumentStorage} and saves the profile; a document identical to one the user
+ * already stored is reused through the {@link DocumentIndexService} instead of uploaded.
+ * Large documents can be sent through a resumable upload handled by the
+ * {@link UploadSessionService} and submitted once complete.
+ * Clients can also upload the document straight to Cloudinary with signed parameters and
+ * submit only its public ID, which is checked against the file metadata before saving.
  */
 @Service
 @RequiredArgsConstructor
 public class CompanyProfileService {
 
+  private static final String DOCUMENT_FORMATS = "pdf,doc,docx";
+
+  private static final Set<CompanyProfileJobStatus> ACTIVE_JOB_STATUSES =
+          EnumSet.of(CompanyProfileJobStatus.PENDING, CompanyProfileJobStatus.PROCESSING);
+
   private final CloudinaryService cloudinaryService;
+  private final DocumentStorage documentStorage;
+  private final DocumentIndexService documentIndexService;
+  private final UploadSessionService uploadSessionService;
+  private final DocumentValidator documentValidator;
   private final CompanyProfileRepository companyProfileRepository;
+  private final CompanyProfileJobRepository companyProfileJobRepository;
   private final UserRepository userRepository;
   private final ConversionUtil conversionUtil;
+  private final TokenVersionService tokenVersionService;
+  private final UserCacheService userCacheService;
+  private final ObjectMapper objectMapper;
+  private final TransactionTemplate transactionTemplate;
+
+  @Value("${company-profile.jobs.spool-dir:${java.io.tmpdir}/company-profile-spool}")
+  private String spoolDir;
+
+  @Value("${cloudinary.signed-upload.ttl:15m}")
+  private Duration signedUploadTtl;
+
+  @Value("${company-profile.document.max-size:10MB}")
+  private DataSize documentMaxSize;
 
   /**
-   * Creates a new company profile for a user.
+   * Accepts the creation of a company profile for a user. The file is spooled locally and
+   * the upload and persistence are left to the background worker.
    *
    * @param file                     file to upload as part of the profile
    * @param companyProfileRequestDto data for the company profile
+   * @return the queued submission
    * @throws ResourceNotFoundException if user is not found
-   * @throws ConflictException         if profile already exists for the user
-   * @throws FileUploadException       if file upload fails
+   * @throws ConflictException         if profile already exists or a submission is in progress
+   * @throws FileUploadException       if the file cannot be spooled
+   * @throws BadRequestException       if the file content is not a PDF or Word document
    */
-  public CompanyProfileResponseDto create(
+  public CompanyProfileJobDto create(
           MultipartFile file,
           CompanyProfileRequestDto companyProfileRequestDto) {
     User user = userRepository.findById(companyProfileRequestDto.getUserId())
@@ -49,20 +110,109 @@ public class CompanyProfileService {
     if (companyProfileRepository.existsByUser(user)) {
       throw new ConflictException("Ya existe un perfil para este usuario");
     }
-    CompanyProfile profile = new CompanyProfile();
-    saveProfile(profile, user, companyProfileRequestDto, file);
-    return new CompanyProfileResponseDto(
-            profile.getId(),
-            profile.getTradeName(),
-            profile.getLegalName(),
-            profile.getPhone(),
-            profile.getCuit(),
-            profile.getCountry(),
-            profile.getCompanyLocation(),
-            profile.getLegalRepresentative(),
-            profile.getFileUrl(),
-            profile.getStatus().name()
-    );
+    return submit(CompanyProfileJobType.CREATE, user, companyProfileRequestDto, () -> spool(file));
+  }
+
+  /**
+   * Accepts the creation of a company profile whose document was sent through a resumable
+   * upload. The assembled file is handed to the background worker like a regular upload.
+   *
+   * @param uploadId                 identifier of the completed upload session
+   * @param companyProfileRequestDto data for the company profile
+   * @param email                    email of the authenticated user, who owns the upload
+   * @return the queued submission
+   * @throws ResourceNotFoundException if user or upload session is not found
+   * @throws ConflictException         if profile already exists or a submission is in progress
+   * @throws BadRequestException       if the upload is not complete
+   */
+  public CompanyProfileJobDto createFromSession(
+          UUID uploadId,
+          CompanyProfileRequestDto companyProfileRequestDto,
+          String email) {
+    User user = findOwner(email);
+
+    if (companyProfileRepository.existsByUser(user)) {
+      throw new ConflictException("Ya existe un perfil para este usuario");
+    }
+    return submit(CompanyProfileJobType.CREATE, user, companyProfileRequestDto,
+            () -> uploadSessionService.complete(uploadId, user.getId()));
+  }
+
+  /**
+   * Issues signed parameters so the authenticated user can upload the profile document
+   * straight to Cloudinary, under the same folder and public ID scheme as regular uploads.
+   *
+   * @param email email of the authenticated user
+   * @return the signed upload parameters
+   * @throws ResourceNotFoundException if user is not found
+   */
+  public SignedUploadDto issueUploadSignature(String email) {
+    requireDirectUpload();
+    User user = userCacheService.findByEmail(email)
+            .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
+
+    return cloudinaryService.signUpload(
+            documentFolder(user.getId()) + "/file-" + UUID.randomUUID(),
+            DOCUMENT_FORMATS,
+            signedUploadTtl);
+  }
+
+  /**
+   * Creates a new company profile whose document was uploaded straight to Cloudinary.
+   *
+   * @param publicId                 public ID of the uploaded document
+   * @param companyProfileRequestDto data for the company profile
+   * @param email                    email of the authenticated user, who owns the upload
+   * @return the created profile
+   * @throws ResourceNotFoundException if user is not found
+   * @throws ConflictException         if profile already exists or a submission is in progress
+   * @throws BadRequestException       if the document does not pass verification
+   */
+  public CompanyProfileResponseDto createFromUpload(
+          String publicId,
+          CompanyProfileRequestDto companyProfileRequestDto,
+          String email) {
+    User user = findOwner(email);
+
+    if (companyProfileRepository.existsByUser(user)) {
+      throw new ConflictException("Ya existe un perfil para este usuario");
+    }
+    requireNoActiveSubmission(user);
+    DocumentStorage.StoredDocument document = verifiedUpload(user, publicId);
+    CompanyProfile profile = withSubmissionLock(user, () -> saveProfile(
+            new CompanyProfile(), user, companyProfileRequestDto, document));
+    return conversionUtil.convertToDto(profile, CompanyProfileResponseDto.class);
+  }
+
+  /**
+   * Updates a rejected company profile whose new document was uploaded straight to Cloudinary.
+   *
+   * @param publicId                 public ID of the uploaded document
+   * @param companyProfileRequestDto updated profile data
+   * @param email                    email of the authenticated user, who owns the upload
+   * @return the updated profile
+   * @throws ResourceNotFoundException if user or profile not found
+   * @throws ConflictException         if a submission is already in progress
+   * @throws BadRequestException       if the document does not pass verification
+   */
+  public CompanyProfileResponseDto updateRejectedProfileFromUpload(
+          String publicId,
+          CompanyProfileRequestDto companyProfileRequestDto,
+          String email) {
+    User user = findOwner(email);
+
+    CompanyProfile profile = companyProfileRepository.findByUser(user)
+            .orElseThrow(() -> new ResourceNotFoundException("Perfil de empresa no encontrado"));
+
+    requireNoActiveSubmission(user);
+    DocumentStorage.StoredDocument document = verifiedUpload(user, publicId);
+    String previousKey = profile.getFileKey();
+    String previousUrl = profile.getFileUrl();
+    CompanyProfile rejected = profile;
+    profile = withSubmissionLock(user,
+            () -> saveProfile(rejected, user, companyProfileRequestDto, document));
+    documentIndexService.release(previousKey, previousUrl);
+    return conversionUtil.convertToDto(profile, CompanyProfileResponseDto.class);
   }
 
   /**
@@ -72,6 +222,7 @@ public class CompanyProfileService {
    * @param status new status to set
    * @throws ResourceNotFoundException if user or profile not found
    */
+  @Transactional
   public String updateStatus(UUID id, CompanyProfileStatus status) {
     User user = userRepository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
@@ -85,7 +236,8 @@ public class CompanyProfileService {
 
     if (status == CompanyProfileStatus.APPROVED) {
       user.setRole(Role.COMPANY);
-      userRepository.save(user);
+      tokenVersionService.revokeTokens(user);
+      userCacheService.invalidate(user.getEmail());
 
     }
     companyProfileRepository.save(companyProfile);
@@ -94,65 +246,275 @@ public class CompanyProfileService {
   }
 
   /**
-   * Updates a rejected company profile with new file and data.
+   * Accepts new data and file for a rejected company profile. The file is spooled locally
+   * and the upload and persistence are left to the background worker.
    *
    * @param file                     file to upload
    * @param companyProfileRequestDto updated profile data
+   * @return the queued submission
    * @throws ResourceNotFoundException if user or profile not found
-   * @throws FileUploadException       if file upload fails
+   * @throws ConflictException         if a submission is already in progress
+   * @throws FileUploadException       if the file cannot be spooled
+   * @throws BadRequestException       if the file content is not a PDF or Word document
    */
-  public CompanyProfileResponseDto updateRejectedProfile(
+  public CompanyProfileJobDto updateRejectedProfile(
           MultipartFile file,
           CompanyProfileRequestDto companyProfileRequestDto) {
     User user = userRepository.findById(companyProfileRequestDto.getUserId())
             .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
 
-    CompanyProfile profile = companyProfileRepository.findByUser(user)
-            .orElseThrow(() -> new ResourceNotFoundException("Perfil de empresa no encontrado"));
+    if (!companyProfileRepository.existsByUser(user)) {
+      throw new ResourceNotFoundException("Perfil de empresa no encontrado");
+    }
+    return submit(CompanyProfileJobType.UPDATE, user, companyProfileRequestDto, () -> spool(file));
+  }
 
-     saveProfile(profile, user, companyProfileRequestDto, file);
-    return new CompanyProfileResponseDto (
-            profile.getId(),
-            profile.getTradeName(),
-            profile.getLegalName(),
-            profile.getPhone(),
-            profile.getCuit(),
-            profile.getCountry(),
-            profile.getCompanyLocation(),
-            profile.getLegalRepresentative(),
-            profile.getFileUrl(),
-            profile.getStatus().name()
-    );
+  /**
+   * Accepts new data for a rejected company profile whose document was sent through a
+   * resumable upload. The assembled file is handed to the background worker like a
+   * regular upload.
+   *
+   * @param uploadId                 identifier of the completed upload session
+   * @param companyProfileRequestDto updated profile data
+   * @param email                    email of the authenticated user, who owns the upload
+   * @return the queued submission
+   * @throws ResourceNotFoundException if user, profile or upload session is not found
+   * @throws ConflictException         if a submission is already in progress
+   * @throws BadRequestException       if the upload is not complete
+   */
+  public CompanyProfileJobDto updateRejectedProfileFromSession(
+          UUID uploadId,
+          CompanyProfileRequestDto companyProfileRequestDto,
+          String email) {
+    User user = findOwner(email);
+
+    if (!companyProfileRepository.existsByUser(user)) {
+      throw new ResourceNotFoundException("Perfil de empresa no encontrado");
+    }
+    return submit(CompanyProfileJobType.UPDATE, user, companyProfileRequestDto,
+            () -> uploadSessionService.complete(uploadId, user.getId()));
   }
 
   /**
-   * Saves or updates the company profile with data and uploads the file.
+   * Returns the state of a submission owned by the given user.
    *
-   * @param profile existing or new company profile entity
-   * @param user user linked to the profile
-   * @param companyProfileRequestDto profile data
-   * @param file file to upload
-   * @throws FileUploadException if file upload fails
+   * @param jobId submission identifier
+   * @param email email of the authenticated user
+   * @return the submission state
+   * @throws ResourceNotFoundException if the submission does not exist or belongs to another user
    */
-  private void saveProfile(
-          CompanyProfile profile,
+  public CompanyProfileJobDto getJob(UUID jobId, String email) {
+    User user = userCacheService.findByEmail(email)
+            .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
+
+    return companyProfileJobRepository.findByIdAndUserId(jobId, user.getId())
+            .map(CompanyProfileService::toJobDto)
+            .orElseThrow(() -> new ResourceNotFoundException("Solicitud no encontrada"));
+  }
+
+  /**
+   * Stores the spooled document of a submission and saves the profile it describes.
+   * Runs on the background worker, off the request path. The document the profile
+   * referenced before is released once the new one is saved, and the new one is released
+   * if the profile cannot be saved, so neither is left orphaned in the storage.
+   *
+   * @param job submission to apply
+   * @return the saved profile
+   * @throws ResourceNotFoundException if user or profile no longer exist
+   * @throws ConflictException         if a profile was created for the user meanwhile
+   * @throws FileUploadException       if the upload fails
+   */
+  public CompanyProfile applySubmission(CompanyProfileJob job) {
+    CompanyProfileRequestDto companyProfileRequestDto = readPayload(job);
+    User user = userRepository.findById(job.getUserId())
+            .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
+
+    CompanyProfile profile;
+    if (job.getType() == CompanyProfileJobType.CREATE) {
+      if (companyProfileRepository.existsByUser(user)) {
+        throw new ConflictException("Ya existe un perfil para este usuario");
+      }
+      profile = new CompanyProfile();
+    } else {
+      profile = companyProfileRepository.findByUser(user)
+              .orElseThrow(() -> new ResourceNotFoundException("Perfil de empresa no encontrado"));
+    }
+
+    String previousKey = profile.getFileKey();
+    String previousUrl = profile.getFileUrl();
+    String key = documentFolder(job.getUserId()) + "/file-" + UUID.randomUUID();
+    DocumentStorage.StoredDocument document =
+            documentIndexService.store(job.getUserId(), Path.of(job.getSpoolPath()), key);
+    try {
+      profile = saveProfile(profile, user, companyProfileRequestDto, document);
+    } catch (RuntimeException e) {
+      documentIndexService.release(document);
+      throw e;
+    }
+    documentIndexService.release(previousKey, previousUrl);
+    return profile;
+  }
+
+  /**
+   * Checks a directly uploaded document with a single metadata lookup: it must live under
+   * the user's folder, exist, fit the size limit and have been uploaded within the
+   * signature lifetime.
+   *
+   * @return the uploaded document
+   */
+  private DocumentStorage.StoredDocument verifiedUpload(User user, String publicId) {
+    requireDirectUpload();
+    if (publicId == null || !publicId.startsWith(documentFolder(user.getId()) + "/file-")) {
+      throw new BadRequestException("El archivo no corresponde a este usuario");
+    }
+    Map<String, Object> resource = cloudinaryService.findResource(publicId)
+            .orElseThrow(() -> new BadRequestException("El archivo no existe en Cloudinary"));
+
+    long bytes = resource.get("bytes") instanceof Number number ? number.longValue() : -1;
+    if (bytes <= 0 || bytes > documentMaxSize.toBytes()) {
+      throw new BadRequestException("El archivo supera el tamaño permitido");
+    }
+    Instant createdAt;
+    try {
+      createdAt = Instant.parse(String.valueOf(resource.get("created_at")));
+    } catch (DateTimeParseException e) {
+      throw new BadRequestException("No se pudo verificar la fecha de subida del archivo");
+    }
+    if (createdAt.isBefore(Instant.now().minus(signedUploadTtl))) {
+      throw new BadRequestException("La subida del archivo expiró, vuelva a subirlo");
+    }
+    return new DocumentStorage.StoredDocument(publicId, (String) resource.get("secure_url"));
+  }
+
+  private User findOwner(String email) {
+    return userRepository.findByEmail(email)
+            .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
+  }
+
+  private void requireDirectUpload() {
+    if (!documentStorage.supportsDirectUpload()) {
+      throw new BadRequestException("La subida directa no está disponible en este entorno");
+    }
+  }
+
+  private void requireNoActiveSubmission(User user) {
+    if (companyProfileJobRepository.existsByUserIdAndStatusIn(user.getId(), ACTIVE_JOB_STATUSES)) {
+      throw new ConflictException("Ya hay una solicitud de perfil en proceso para este usuario");
+    }
+  }
+
+  /**
+   * Runs the write while holding the user's row lock and after checking again that no
+   * submission is in progress, so two concurrent requests cannot both pass the check.
+   *
+   * @throws ConflictException if a submission is already in progress
+   */
+  private <T> T withSubmissionLock(User user, Supplier<T> write) {
+    return transactionTemplate.execute(status -> {
+      userRepository.lockById(user.getId());
+      requireNoActiveSubmission(user);
+      return write.get();
+    });
+  }
+
+  private static String documentFolder(UUID userId) {
+    return "users/" + userId;
+  }
+
+  private CompanyProfileJobDto submit(
+          CompanyProfileJobType type,
           User user,
           CompanyProfileRequestDto companyProfileRequestDto,
-          MultipartFile file) {
+          Supplier<Path> document) {
+    requireNoActiveSubmission(user);
+    String payload = writePayload(companyProfileRequestDto);
+    Path spooled = document.get();
+    try {
+      CompanyProfileJob job = withSubmissionLock(user, () -> {
+        LocalDateTime now = LocalDateTime.now();
+        return companyProfileJobRepository.save(CompanyProfileJob.builder()
+                .userId(user.getId())
+                .type(type)
+                .status(CompanyProfileJobStatus.PENDING)
+                .payload(payload)
+                .spoolPath(spooled.toString())
+                .createdAt(now)
+                .updatedAt(now)
+                .nextAttemptAt(now)
+                .build());
+      });
+      return toJobDto(job);
+    } catch (RuntimeException e) {
+      deleteSpool(spooled);
+      throw e;
+    }
+  }
+
+  /**
+   * Moves the multipart to the spool directory and checks its content; when the container
+   * already keeps the upload on disk this is a rename, not a copy. A document whose
+   * content does not match its type is discarded before it is queued.
+   */
+  private Path spool(MultipartFile file) {
+    String extension = StringUtils.getFilenameExtension(file.getOriginalFilename());
+    Path spooled;
+    try {
+      Path directory = Files.createDirectories(Path.of(spoolDir));
+      spooled = Files.createTempFile(
+              directory, "profile-", extension != null ? "." + extension : null);
+      file.transferTo(spooled.toFile());
+    } catch (IOException e) {
+      throw new FileUploadException("Error al guardar el archivo para el perfil de la compañía", e);
+    }
+    try {
+      documentValidator.validate(file.getOriginalFilename(), spooled);
+      return spooled;
+    } catch (RuntimeException e) {
+      deleteSpool(spooled);
+      throw e;
+    }
+  }
+
+  /**
+   * Deletes the spooled document of a submission, if any.
+   *
+   * @param spoolPath path of the spooled document
+   */
+  public void deleteSpool(String spoolPath) {
+    if (spoolPath != null) {
+      deleteSpool(Path.of(spoolPath));
+    }
+  }
 
-    String folder = "users/" + companyProfileRequestDto.getUserId();
-    String publicId = folder + "/file-" + UUID.randomUUID();
-    String url;
+  private static void deleteSpool(Path spooled) {
+    try {
+      Files.deleteIfExists(spooled);
+    } catch (IOException e) {
+      System.out.println("No se pudo eliminar el archivo " + spooled + ": " + e.getMessage());
+    }
+  }
 
+  private String writePayload(CompanyProfileRequestDto companyProfileRequestDto) {
     try {
-      url = cloudinaryService.uploadAsync(file, folder, publicId)
-              .thenApply(result -> (String) result.get("secure_url"))
-              .get();
-    } catch (Exception e) {
-      throw new FileUploadException(
-              "Error al subir archivo para el perfil de la compañía", e);
+      return objectMapper.writeValueAsString(companyProfileRequestDto);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("No se pudo serializar la solicitud de perfil", e);
     }
+  }
 
+  private CompanyProfileRequestDto readPayload(CompanyProfileJob job) {
+    try {
+      return objectMapper.readValue(job.getPayload(), CompanyProfileRequestDto.class);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Solicitud de perfil ilegible: " + job.getId(), e);
+    }
+  }
+
+  private CompanyProfile saveProfile(
+          CompanyProfile profile,
+          User user,
+          CompanyProfileRequestDto companyProfileRequestDto,
+          DocumentStorage.StoredDocument document) {
     profile.setTradeName(companyProfileRequestDto.getTradeName());
     profile.setLegalName(companyProfileRequestDto.getLegalName());
     profile.setCuit(companyProfileRequestDto.getCuit());
@@ -160,11 +522,24 @@ public class CompanyProfileService {
     profile.setCompanyLocation(companyProfileRequestDto.getCompanyLocation());
     profile.setLegalRepresentative(companyProfileRequestDto.getLegalRepresentative());
     profile.setPhone(companyProfileRequestDto.getPhone());
-    profile.setFileUrl(url);
+    profile.setFileUrl(document.url());
+    profile.setFileKey(document.key());
     profile.setUser(user);
     profile.setStatus(CompanyProfileStatus.PENDING);
 
-    companyProfileRepository.save(profile);
+    return companyProfileRepository.save(profile);
+  }
+
+  private static CompanyProfileJobDto toJobDto(CompanyProfileJob job) {
+    return new CompanyProfileJobDto(
+            job.getId(),
+            job.getType().name(),
+            job.getStatus().name(),
+            job.getProfileId(),
+            job.getStatus() == CompanyProfileJobStatus.FAILED ? job.getLastError() : null,
+            job.getCreatedAt(),
+            job.getUpdatedAt()
+    );
   }
 
   /**
@@ -175,7 +550,7 @@ public class CompanyProfileService {
    * @throws ResourceNotFoundException if user or profile not found
    */
   public CompanyProfileResponseDto getByUserEmail(String email) {
-    User user = userRepository.findByEmail(email)
+    User user = userCacheService.findByEmail(email)
             .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
 
     CompanyProfile profile = companyProfileRepository.findByUser(user)
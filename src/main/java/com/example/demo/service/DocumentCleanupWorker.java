@@ -0,0 +1,185 @@
+package com.example.demo.service;
+
+import com.example.demo.constant.DocumentDeletionStatus;
+import com.example.demo.entity.DocumentDeletion;
+import com.example.demo.exception.FileUploadException;
+import com.example.demo.repository.CompanyProfileRepository;
+import com.example.demo.repository.DocumentBlobRepository;
+import com.example.demo.repository.DocumentDeletionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Background worker that deletes documents no profile references anymore.
+ * Queued deletions are claimed with {@code SKIP LOCKED} and removed with a single
+ * {@link DocumentStorage#deleteAll} call per batch; when the call fails the whole batch is
+ * retried with exponential backoff and marked {@code FAILED} after the last attempt.
+ * A periodic reconciliation sweep lists the stored documents older than a grace period
+ * and queues the ones that no profile, index entry or queued deletion accounts for, which
+ * catches uploads orphaned by crashes, abandoned direct uploads and profiles saved before
+ * their document key was recorded. The grace period must outlast the direct upload
+ * signature and a submission's retries, so in-flight documents are never swept.
+ * Outcomes are published as {@code document.cleanup} and the queue size as
+ * {@code document.cleanup.pending}.
+ */
+@Component
+public class DocumentCleanupWorker {
+
+  private static final int MAX_ERROR_LENGTH = 1000;
+
+  private final DocumentDeletionRepository documentDeletionRepository;
+  private final DocumentBlobRepository documentBlobRepository;
+  private final CompanyProfileRepository companyProfileRepository;
+  private final DocumentIndexService documentIndexService;
+  private final DocumentStorage documentStorage;
+  private final TransactionTemplate transactionTemplate;
+  private final int batchSize;
+  private final int maxAttempts;
+  private final Duration initialBackoff;
+  private final Duration maxBackoff;
+  private final Duration reconcileGrace;
+  private final Counter deletedCounter;
+  private final Counter retryCounter;
+  private final Counter failedCounter;
+  private final Counter orphanCounter;
+  private final AtomicLong pending = new AtomicLong();
+
+  /**
+   * Creates the worker and registers its metrics.
+   *
+   * @param documentDeletionRepository repository holding the deletion queue
+   * @param documentBlobRepository     repository holding the content index
+   * @param companyProfileRepository   repository of the profiles referencing documents
+   * @param documentIndexService       service queueing deletions
+   * @param documentStorage            storage the documents are deleted from
+   * @param transactionTemplate        template wrapping each batch in its own transaction
+   * @param batchSize                  maximum number of documents deleted per call
+   * @param maxAttempts                attempts before a deletion is marked as failed
+   * @param initialBackoff             delay before the first retry, doubled on every retry
+   * @param maxBackoff                 upper bound for the retry delay
+   * @param reconcileGrace             age a document must reach before the sweep considers it
+   * @param meterRegistry              registry for cleanup metrics
+   */
+  public DocumentCleanupWorker(
+          DocumentDeletionRepository documentDeletionRepository,
+          DocumentBlobRepository documentBlobRepository,
+          CompanyProfileRepository companyProfileRepository,
+          DocumentIndexService documentIndexService,
+          DocumentStorage documentStorage,
+          TransactionTemplate transactionTemplate,
+          @Value("${document-cleanup.batch-size:100}") int batchSize,
+          @Value("${document-cleanup.max-attempts:8}") int maxAttempts,
+          @Value("${document-cleanup.initial-backoff:30s}") Duration initialBackoff,
+          @Value("${document-cleanup.max-backoff:1h}") Duration maxBackoff,
+          @Value("${document-cleanup.reconcile-grace:1d}") Duration reconcileGrace,
+          MeterRegistry meterRegistry) {
+    this.documentDeletionRepository = documentDeletionRepository;
+    this.documentBlobRepository = documentBlobRepository;
+    this.companyProfileRepository = companyProfileRepository;
+    this.documentIndexService = documentIndexService;
+    this.documentStorage = documentStorage;
+    this.transactionTemplate = transactionTemplate;
+    this.batchSize = batchSize;
+    this.maxAttempts = maxAttempts;
+    this.initialBackoff = initialBackoff;
+    this.maxBackoff = maxBackoff;
+    this.reconcileGrace = reconcileGrace;
+    this.deletedCounter = meterRegistry.counter("document.cleanup", "result", "deleted");
+    this.retryCounter = meterRegistry.counter("document.cleanup", "result", "retry");
+    this.failedCounter = meterRegistry.counter("document.cleanup", "result", "failed");
+    this.orphanCounter = meterRegistry.counter("document.cleanup", "result", "orphan");
+    meterRegistry.gauge("document.cleanup.pending", pending);
+  }
+
+  /**
+   * Deletes every due document, batch after batch, until a batch comes back short.
+   */
+  @Scheduled(fixedDelayString = "${document-cleanup.poll-interval-ms:5000}")
+  public void drain() {
+    Integer processed;
+    do {
+      processed = transactionTemplate.execute(status -> deleteBatch());
+    } while (processed != null && processed == batchSize);
+    pending.set(documentDeletionRepository.countByStatus(DocumentDeletionStatus.PENDING));
+  }
+
+  /**
+   * Queues the stored documents that nothing references anymore.
+   */
+  @Scheduled(fixedDelayString = "${document-cleanup.reconcile-interval-ms:86400000}",
+          initialDelayString = "${document-cleanup.reconcile-initial-delay-ms:600000}")
+  public void reconcile() {
+    documentStorage.scan(Instant.now().minus(reconcileGrace), this::queueOrphans);
+  }
+
+  private int deleteBatch() {
+    List<DocumentDeletion> batch = documentDeletionRepository.lockDue(
+            DocumentDeletionStatus.PENDING, LocalDateTime.now(), PageRequest.of(0, batchSize));
+    if (batch.isEmpty()) {
+      return 0;
+    }
+    try {
+      documentStorage.deleteAll(batch.stream().map(DocumentDeletion::getStorageKey).toList());
+    } catch (FileUploadException e) {
+      batch.forEach(deletion -> scheduleRetry(deletion, e));
+      return batch.size();
+    }
+    documentDeletionRepository.deleteAllInBatch(batch);
+    deletedCounter.increment(batch.size());
+    return batch.size();
+  }
+
+  private void queueOrphans(List<DocumentStorage.StoredDocument> documents) {
+    List<String> keys = documents.stream().map(DocumentStorage.StoredDocument::key).toList();
+    List<String> urls = documents.stream().map(DocumentStorage.StoredDocument::url).toList();
+    Set<String> referencedKeys = new HashSet<>(companyProfileRepository.findReferencedKeys(keys));
+    referencedKeys.addAll(documentBlobRepository.findIndexedKeys(keys));
+    referencedKeys.addAll(documentDeletionRepository.findQueuedKeys(keys));
+    Set<String> referencedUrls = new HashSet<>(companyProfileRepository.findReferencedUrls(urls));
+
+    for (DocumentStorage.StoredDocument document : documents) {
+      if (!referencedKeys.contains(document.key()) && !referencedUrls.contains(document.url())) {
+        documentIndexService.enqueueDeletion(document.key());
+        orphanCounter.increment();
+      }
+    }
+  }
+
+  private void scheduleRetry(DocumentDeletion deletion, Exception error) {
+    int attempts = deletion.getAttempts() + 1;
+    deletion.setAttempts(attempts);
+    deletion.setLastError(truncate(error.getMessage()));
+    if (attempts >= maxAttempts) {
+      deletion.setStatus(DocumentDeletionStatus.FAILED);
+      failedCounter.increment();
+      System.out.println("No se pudo eliminar el documento " + deletion.getStorageKey()
+              + ": " + error.getMessage());
+      return;
+    }
+    Duration delay = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 30));
+    if (delay.compareTo(maxBackoff) > 0) {
+      delay = maxBackoff;
+    }
+    deletion.setNextAttemptAt(LocalDateTime.now().plus(delay));
+    retryCounter.increment();
+  }
+
+  private static String truncate(String message) {
+    if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+      return message;
+    }
+    return message.substring(0, MAX_ERROR_LENGTH);
+  }
+}
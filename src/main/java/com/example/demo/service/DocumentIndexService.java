@@ -0,0 +1,182 @@
+package com.example.demo.service;
+
+import com.example.demo.constant.DocumentDeletionStatus;
+import com.example.demo.entity.DocumentBlob;
+import com.example.demo.entity.DocumentDeletion;
+import com.example.demo.exception.FileUploadException;
+import com.example.demo.repository.DocumentBlobRepository;
+import com.example.demo.repository.DocumentDeletionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+/**
+ * Content-addressed front of the {@link DocumentStorage}.
+ * Documents are indexed by the SHA-256 of their content per user: storing a file the user
+ * already uploaded reuses the existing object and only adds a reference, so resubmitting
+ * the same document skips the remote upload. Releasing the last reference removes the
+ * index entry and queues the stored object for deletion by the {@link DocumentCleanupWorker};
+ * documents that are not indexed are queued as soon as they are released.
+ * Lookups are published as {@code document.dedupe} with a {@code hit}/{@code miss} result.
+ */
+@Service
+public class DocumentIndexService {
+
+  private static final int HASH_BUFFER_SIZE = 64 * 1024;
+
+  private final DocumentBlobRepository documentBlobRepository;
+  private final DocumentDeletionRepository documentDeletionRepository;
+  private final DocumentStorage documentStorage;
+  private final Counter hitCounter;
+  private final Counter missCounter;
+
+  /**
+   * Creates the service and registers its metrics.
+   *
+   * @param documentBlobRepository     repository holding the content index
+   * @param documentDeletionRepository repository holding the deletion queue
+   * @param documentStorage            storage the documents are kept in
+   * @param meterRegistry              registry for dedupe metrics
+   */
+  public DocumentIndexService(
+          DocumentBlobRepository documentBlobRepository,
+          DocumentDeletionRepository documentDeletionRepository,
+          DocumentStorage documentStorage,
+          MeterRegistry meterRegistry) {
+    this.documentBlobRepository = documentBlobRepository;
+    this.documentDeletionRepository = documentDeletionRepository;
+    this.documentStorage = documentStorage;
+    this.hitCounter = meterRegistry.counter("document.dedupe", "result", "hit");
+    this.missCounter = meterRegistry.counter("document.dedupe", "result", "miss");
+  }
+
+  /**
+   * Stores a document for a user, reusing an identical one already stored for them.
+   *
+   * @param userId owner of the document
+   * @param source local file to store
+   * @param key    key to store the document under when it is not already stored
+   * @return the stored document
+   * @throws FileUploadException if the file cannot be read or stored
+   */
+  public DocumentStorage.StoredDocument store(UUID userId, Path source, String key) {
+    Hashed hashed = hash(source);
+    Optional<DocumentStorage.StoredDocument> existing = reuse(userId, hashed.sha256());
+    if (existing.isPresent()) {
+      hitCounter.increment();
+      return existing.get();
+    }
+    missCounter.increment();
+    DocumentStorage.StoredDocument stored = documentStorage.store(source, key);
+    try {
+      documentBlobRepository.save(DocumentBlob.builder()
+              .userId(userId)
+              .sha256(hashed.sha256())
+              .size(hashed.size())
+              .storageKey(stored.key())
+              .url(stored.url())
+              .referenceCount(1)
+              .createdAt(LocalDateTime.now())
+              .build());
+      return stored;
+    } catch (DataIntegrityViolationException e) {
+      // the same content was indexed concurrently: keep that copy and drop ours
+      enqueueDeletion(stored.key());
+      return reuse(userId, hashed.sha256()).orElseThrow(() -> e);
+    }
+  }
+
+  /**
+   * Drops a reference to a stored document. Indexed documents are queued for deletion
+   * with their last reference; documents that are not indexed, such as the ones uploaded
+   * straight to Cloudinary, are queued right away. Profiles saved before the key was
+   * recorded have nothing to queue and are left to the reconciliation sweep.
+   *
+   * @param key key of the document no longer referenced, may be null
+   * @param url URL of the document no longer referenced, may be null
+   */
+  public void release(String key, String url) {
+    Optional<DocumentBlob> indexed = url != null
+            ? documentBlobRepository.findFirstByUrl(url)
+            : Optional.empty();
+    if (indexed.isPresent()) {
+      DocumentBlob blob = indexed.get();
+      documentBlobRepository.removeReference(blob.getId());
+      if (documentBlobRepository.deleteIfUnreferenced(blob.getId()) > 0) {
+        enqueueDeletion(blob.getStorageKey());
+      }
+    } else if (key != null) {
+      enqueueDeletion(key);
+    }
+  }
+
+  /**
+   * Releases a document returned by {@link #store}, e.g. when the profile referencing it
+   * could not be saved.
+   *
+   * @param document document no longer referenced
+   */
+  public void release(DocumentStorage.StoredDocument document) {
+    release(document.key(), document.url());
+  }
+
+  /**
+   * Queues a stored document for deletion by the {@link DocumentCleanupWorker}.
+   *
+   * @param key key of the document to delete
+   */
+  public void enqueueDeletion(String key) {
+    LocalDateTime now = LocalDateTime.now();
+    documentDeletionRepository.save(DocumentDeletion.builder()
+            .storageKey(key)
+            .status(DocumentDeletionStatus.PENDING)
+            .createdAt(now)
+            .nextAttemptAt(now)
+            .build());
+  }
+
+  private Optional<DocumentStorage.StoredDocument> reuse(UUID userId, String sha256) {
+    return documentBlobRepository.findByUserIdAndSha256(userId, sha256)
+            .filter(blob -> documentBlobRepository.addReference(blob.getId()) > 0)
+            .map(blob -> new DocumentStorage.StoredDocument(blob.getStorageKey(), blob.getUrl()));
+  }
+
+  /**
+   * Streams the file through SHA-256 with a fixed buffer, so the document is never held
+   * in memory.
+   */
+  private static Hashed hash(Path source) {
+    try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      ByteBuffer buffer = ByteBuffer.allocate(HASH_BUFFER_SIZE);
+      long size = 0;
+      int read;
+      while ((read = channel.read(buffer)) != -1) {
+        buffer.flip();
+        digest.update(buffer);
+        buffer.clear();
+        size += read;
+      }
+      return new Hashed(HexFormat.of().formatHex(digest.digest()), size);
+    } catch (IOException e) {
+      throw new FileUploadException("Error al leer el documento", e);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private record Hashed(String sha256, long size) {
+  }
+}
@@ -0,0 +1,73 @@
+package com.example.demo.service;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Storage backend for company documents.
+ * Documents are addressed by a key following the {@code users/{userId}/file-{uuid}} scheme;
+ * the backend may extend it, e.g. with the file extension, and returns the final key
+ * together with the URL the document is served from.
+ */
+public interface DocumentStorage {
+
+  /**
+   * Location of a stored document.
+   *
+   * @param key key to delete or look up the document with
+   * @param url URL the document is served from
+   */
+  record StoredDocument(String key, String url) {
+  }
+
+  /**
+   * Stores a file from local disk under the given key. The file is streamed, never loaded
+   * into memory, and left in place.
+   *
+   * @param source file to store
+   * @param key    requested key
+   * @return the stored document
+   * @throws com.example.demo.exception.FileUploadException if the file cannot be stored
+   */
+  StoredDocument store(Path source, String key);
+
+  /**
+   * Removes a stored document; removing a missing document is not an error.
+   *
+   * @param key key returned by {@link #store}
+   * @throws com.example.demo.exception.FileUploadException if the backend cannot be reached
+   */
+  void delete(String key);
+
+  /**
+   * Removes several stored documents, in as few backend calls as the backend allows.
+   * Removing missing documents is not an error.
+   *
+   * @param keys keys returned by {@link #store}
+   * @throws com.example.demo.exception.FileUploadException if the backend cannot be reached
+   */
+  default void deleteAll(List<String> keys) {
+    keys.forEach(this::delete);
+  }
+
+  /**
+   * Lists the stored documents created before the given instant, page by page, so the
+   * reconciliation sweep can find objects no profile references. Backends that cannot map
+   * their objects back to keys list nothing.
+   *
+   * @param createdBefore only documents older than this are listed
+   * @param page          receives each page of documents
+   * @throws com.example.demo.exception.FileUploadException if the backend cannot be reached
+   */
+  default void scan(Instant createdBefore, Consumer<List<StoredDocument>> page) {
+  }
+
+  /**
+   * Returns whether clients can upload straight to the backend with signed parameters.
+   *
+   * @return true when direct uploads are supported
+   */
+  boolean supportsDirectUpload();
+}
@@ -0,0 +1,253 @@
+package com.example.demo.service;
+
+import com.example.demo.constant.EmailOutboxStatus;
+import com.example.demo.entity.EmailOutboxMessage;
+import com.example.demo.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Background worker that drains the email outbox.
+ * Due messages are claimed with {@code SKIP LOCKED} and marked {@code SENDING} in a short
+ * transaction, sent after it commits, and their outcome is recorded in a second short
+ * transaction, so no connection or row lock is held while the SMTP server responds.
+ * Messages left in {@code SENDING} longer than the stale timeout are claimed again, which
+ * covers restarts during a send.
+ * Each batch is sent with a single {@link JavaMailSender#send(MimeMessage...)} call, which
+ * opens one SMTP connection for the whole batch instead of one per message.
+ * Failed messages are retried with exponential backoff and marked {@code FAILED} after
+ * the last attempt. Delivered messages are deleted and failed ones keep only their metadata,
+ * so verification codes do not outlive the delivery; failed messages are purged after the
+ * retention period. Queue size and the age of the oldest pending message are published
+ * as {@code email.outbox.pending} and {@code email.outbox.lag}.
+ */
+@Component
+public class EmailOutboxDispatcher {
+
+  private static final int MAX_ERROR_LENGTH = 1000;
+  private static final String REDACTED_BODY = "[contenido eliminado]";
+  private static final List<EmailOutboxStatus> CLAIMABLE =
+          List.of(EmailOutboxStatus.PENDING, EmailOutboxStatus.SENDING);
+
+  private final EmailOutboxRepository emailOutboxRepository;
+  private final JavaMailSender mailSender;
+  private final TransactionTemplate transactionTemplate;
+  private final int batchSize;
+  private final int maxAttempts;
+  private final Duration initialBackoff;
+  private final Duration maxBackoff;
+  private final Duration staleAfter;
+  private final Duration retention;
+  private final Counter sentCounter;
+  private final Counter retryCounter;
+  private final Counter failedCounter;
+  private final Timer deliveryTimer;
+  private final AtomicLong pending = new AtomicLong();
+  private final AtomicLong oldestPendingAgeMillis = new AtomicLong();
+
+  /**
+   * Creates the dispatcher and registers its metrics.
+   *
+   * @param emailOutboxRepository repository holding the queued messages
+   * @param mailSender            SMTP sender
+   * @param transactionTemplate   template wrapping each claim and outcome in a transaction
+   * @param batchSize             maximum number of messages sent per SMTP connection
+   * @param maxAttempts           delivery attempts before a message is marked as failed
+   * @param initialBackoff        delay before the first retry, doubled on every further retry
+   * @param maxBackoff            upper bound for the retry delay
+   * @param staleAfter            time after which a message being sent is claimed again
+   * @param retention             time failed messages are kept for inspection
+   * @param meterRegistry         registry for outbox metrics
+   */
+  public EmailOutboxDispatcher(
+          EmailOutboxRepository emailOutboxRepository,
+          JavaMailSender mailSender,
+          TransactionTemplate transactionTemplate,
+          @Value("${email-outbox.batch-size:50}") int batchSize,
+          @Value("${email-outbox.max-attempts:8}") int maxAttempts,
+          @Value("${email-outbox.initial-backoff:10s}") Duration initialBackoff,
+          @Value("${email-outbox.max-backoff:30m}") Duration maxBackoff,
+          @Value("${email-outbox.stale-after:5m}") Duration staleAfter,
+          @Value("${email-outbox.retention:7d}") Duration retention,
+          MeterRegistry meterRegistry) {
+    this.emailOutboxRepository = emailOutboxRepository;
+    this.mailSender = mailSender;
+    this.transactionTemplate = transactionTemplate;
+    this.batchSize = batchSize;
+    this.maxAttempts = maxAttempts;
+    this.initialBackoff = initialBackoff;
+    this.maxBackoff = maxBackoff;
+    this.staleAfter = staleAfter;
+    this.retention = retention;
+    this.sentCounter = meterRegistry.counter("email.outbox.messages", "result", "sent");
+    this.retryCounter = meterRegistry.counter("email.outbox.messages", "result", "retry");
+    this.failedCounter = meterRegistry.counter("email.outbox.messages", "result", "failed");
+    this.deliveryTimer = meterRegistry.timer("email.outbox.delivery");
+    meterRegistry.gauge("email.outbox.pending", pending);
+    TimeGauge.builder("email.outbox.lag", oldestPendingAgeMillis, TimeUnit.MILLISECONDS,
+            AtomicLong::get).register(meterRegistry);
+  }
+
+  /**
+   * Sends every due message, batch after batch, until a batch comes back short.
+   */
+  @Scheduled(fixedDelayString = "${email-outbox.poll-interval-ms:1000}")
+  public void dispatch() {
+    List<EmailOutboxMessage> batch;
+    do {
+      batch = transactionTemplate.execute(status -> claimBatch());
+      if (batch == null || batch.isEmpty()) {
+        break;
+      }
+      sendBatch(batch);
+    } while (batch.size() == batchSize);
+    refreshQueueMetrics();
+  }
+
+  /**
+   * Removes failed messages older than the retention period.
+   */
+  @Scheduled(fixedDelayString = "${email-outbox.purge-interval-ms:3600000}")
+  public void purge() {
+    transactionTemplate.executeWithoutResult(status -> emailOutboxRepository
+            .deleteByStatusCreatedBefore(
+                    EmailOutboxStatus.FAILED, LocalDateTime.now().minus(retention)));
+  }
+
+  private List<EmailOutboxMessage> claimBatch() {
+    LocalDateTime now = LocalDateTime.now();
+    List<EmailOutboxMessage> batch = emailOutboxRepository.lockDue(
+            CLAIMABLE, now, PageRequest.of(0, batchSize));
+    for (EmailOutboxMessage outboxMessage : batch) {
+      outboxMessage.setStatus(EmailOutboxStatus.SENDING);
+      outboxMessage.setNextAttemptAt(now.plus(staleAfter));
+    }
+    return batch;
+  }
+
+  private void sendBatch(List<EmailOutboxMessage> batch) {
+    Map<UUID, Exception> invalid = new HashMap<>();
+    Map<MimeMessage, EmailOutboxMessage> messages = new LinkedHashMap<>();
+    for (EmailOutboxMessage outboxMessage : batch) {
+      try {
+        messages.put(toMimeMessage(outboxMessage), outboxMessage);
+      } catch (MessagingException e) {
+        invalid.put(outboxMessage.getId(), e);
+      }
+    }
+
+    Map<Object, Exception> failures = Map.of();
+    MailException batchError = null;
+    try {
+      mailSender.send(messages.keySet().toArray(MimeMessage[]::new));
+    } catch (MailSendException e) {
+      failures = e.getFailedMessages();
+      batchError = e;
+    } catch (MailException e) {
+      batchError = e;
+    }
+
+    List<UUID> sent = new ArrayList<>();
+    Map<UUID, Exception> retries = new HashMap<>();
+    LocalDateTime now = LocalDateTime.now();
+    for (Map.Entry<MimeMessage, EmailOutboxMessage> entry : messages.entrySet()) {
+      EmailOutboxMessage outboxMessage = entry.getValue();
+      Exception error = failures.isEmpty() ? batchError : failures.get(entry.getKey());
+      if (error != null) {
+        retries.put(outboxMessage.getId(), error);
+      } else {
+        sent.add(outboxMessage.getId());
+        deliveryTimer.record(Duration.between(outboxMessage.getCreatedAt(), now));
+      }
+    }
+    recordOutcome(sent, retries, invalid);
+  }
+
+  private void recordOutcome(
+          List<UUID> sent, Map<UUID, Exception> retries, Map<UUID, Exception> invalid) {
+    transactionTemplate.executeWithoutResult(status -> {
+      emailOutboxRepository.deleteAllByIdInBatch(sent);
+      for (EmailOutboxMessage outboxMessage : emailOutboxRepository.findAllById(retries.keySet())) {
+        scheduleRetry(outboxMessage, retries.get(outboxMessage.getId()));
+      }
+      for (EmailOutboxMessage outboxMessage : emailOutboxRepository.findAllById(invalid.keySet())) {
+        markFailed(outboxMessage, invalid.get(outboxMessage.getId()));
+      }
+    });
+    sentCounter.increment(sent.size());
+  }
+
+  private MimeMessage toMimeMessage(EmailOutboxMessage outboxMessage) throws MessagingException {
+    MimeMessage message = mailSender.createMimeMessage();
+    MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+    helper.setTo(outboxMessage.getRecipient());
+    helper.setSubject(outboxMessage.getSubject());
+    helper.setText(outboxMessage.getBody());
+    return message;
+  }
+
+  private void scheduleRetry(EmailOutboxMessage outboxMessage, Exception error) {
+    int attempts = outboxMessage.getAttempts() + 1;
+    if (attempts >= maxAttempts) {
+      markFailed(outboxMessage, error);
+      return;
+    }
+    Duration delay = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 30));
+    if (delay.compareTo(maxBackoff) > 0) {
+      delay = maxBackoff;
+    }
+    outboxMessage.setStatus(EmailOutboxStatus.PENDING);
+    outboxMessage.setAttempts(attempts);
+    outboxMessage.setNextAttemptAt(LocalDateTime.now().plus(delay));
+    outboxMessage.setLastError(truncate(error.getMessage()));
+    retryCounter.increment();
+  }
+
+  private void markFailed(EmailOutboxMessage outboxMessage, Exception error) {
+    outboxMessage.setAttempts(outboxMessage.getAttempts() + 1);
+    outboxMessage.setStatus(EmailOutboxStatus.FAILED);
+    outboxMessage.setBody(REDACTED_BODY);
+    outboxMessage.setLastError(truncate(error.getMessage()));
+    failedCounter.increment();
+    System.out.println("No se pudo enviar el correo a " + outboxMessage.getRecipient()
+            + ": " + error.getMessage());
+  }
+
+  private void refreshQueueMetrics() {
+    pending.set(emailOutboxRepository.countByStatus(EmailOutboxStatus.PENDING));
+    oldestPendingAgeMillis.set(emailOutboxRepository
+            .findFirstByStatusOrderByCreatedAtAsc(EmailOutboxStatus.PENDING)
+            .map(m -> Duration.between(m.getCreatedAt(), LocalDateTime.now()).toMillis())
+            .orElse(0L));
+  }
+
+  private static String truncate(String message) {
+    if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+      return message;
+    }
+    return message.substring(0, MAX_ERROR_LENGTH);
+  }
+}
@@ -1,17 +1,23 @@
 package com.example.demo.service;
 
+import com.example.demo.constant.EmailOutboxStatus;
+import com.example.demo.entity.EmailOutboxMessage;
+import com.example.demo.repository.EmailOutboxRepository;
+import java.time.LocalDateTime;
 import lombok.RequiredArgsConstructor;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Service for sending email messages.
+ * Messages are written to the email outbox, joining the caller's transaction when there is one,
+ * and delivered in the background by {@link EmailOutboxDispatcher}, so requests never wait
+ * on the SMTP server.
  */
 @Service
 @RequiredArgsConstructor
 public class EmailService {
-  private final JavaMailSender mailSender;
+  private final EmailOutboxRepository emailOutboxRepository;
 
   /**
    * Sends a 2FA (Two-Factor Authentication) verification code via email.
@@ -20,11 +26,27 @@ public class EmailService {
    * @param code The verification code to be sent.
    */
   public void send2FaCode(String to, String code) {
-    SimpleMailMessage message = new SimpleMailMessage();
-    message.setTo(to);
-    message.setSubject("Tu código de verificación 2FA");
-    message.setText("Tu código de verificación es: "
+    enqueue(to, "Tu código de verificación 2FA", "Tu código de verificación es: "
             + code + ". No compartas este código con nadie.");
-    mailSender.send(message);
+  }
+
+  /**
+   * Queues a plain-text email for delivery.
+   *
+   * @param to      The recipient's email address.
+   * @param subject The email subject.
+   * @param text    The email body.
+   */
+  @Transactional
+  public void enqueue(String to, String subject, String text) {
+    LocalDateTime now = LocalDateTime.now();
+    emailOutboxRepository.save(EmailOutboxMessage.builder()
+            .recipient(to)
+            .subject(subject)
+            .body(text)
+            .status(EmailOutboxStatus.PENDING)
+            .createdAt(now)
+            .nextAttemptAt(now)
+            .build());
   }
 }
@@ -0,0 +1,109 @@
+package com.example.demo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.dao.DataAccessException;
+
+/**
+ * {@link VerificationCodeStore} that uses Redis and degrades to the in-process store when
+ * Redis fails. After a failure Redis is skipped for a retry interval instead of timing out on
+ * every request. Routing is sticky per user: a code stored in memory is also validated in
+ * memory, and a code later stored in Redis again clears the in-memory copy. Codes stored in
+ * memory are only valid on this instance. Fallback writes are counted in
+ * {@code verification.codes.fallback}.
+ */
+public class FailoverVerificationCodeStore implements VerificationCodeStore {
+
+  private final VerificationCodeStore primary;
+  private final InMemoryVerificationCodeStore fallback;
+  private final long retryAfterNanos;
+  private final AtomicLong degradedUntil = new AtomicLong(System.nanoTime());
+  private final Counter fallbackCounter;
+
+  /**
+   * Creates the store.
+   *
+   * @param primary       shared store, normally Redis
+   * @param fallback      in-process store used while the primary is failing
+   * @param retryAfter    time the primary is skipped after a failure
+   * @param meterRegistry registry for fallback metrics
+   */
+  public FailoverVerificationCodeStore(
+          VerificationCodeStore primary,
+          InMemoryVerificationCodeStore fallback,
+          Duration retryAfter,
+          MeterRegistry meterRegistry) {
+    this.primary = primary;
+    this.fallback = fallback;
+    this.retryAfterNanos = retryAfter.toNanos();
+    this.fallbackCounter = meterRegistry.counter("verification.codes.fallback");
+  }
+
+  @Override
+  public void save(UUID userId, String codeHash, Duration ttl) {
+    if (!isDegraded()) {
+      try {
+        primary.save(userId, codeHash, ttl);
+        fallback.delete(userId);
+        return;
+      } catch (DataAccessException e) {
+        markDegraded(e);
+      }
+    }
+    fallbackCounter.increment();
+    fallback.save(userId, codeHash, ttl);
+  }
+
+  @Override
+  public Result validate(UUID userId, String codeHash, int maxAttempts) {
+    if (fallback.contains(userId)) {
+      return fallback.validate(userId, codeHash, maxAttempts);
+    }
+    if (!isDegraded()) {
+      try {
+        return primary.validate(userId, codeHash, maxAttempts);
+      } catch (DataAccessException e) {
+        markDegraded(e);
+      }
+    }
+    return Result.MISSING;
+  }
+
+  @Override
+  public boolean markStepUsed(UUID userId, long step, Duration ttl) {
+    if (!isDegraded()) {
+      try {
+        return primary.markStepUsed(userId, step, ttl);
+      } catch (DataAccessException e) {
+        markDegraded(e);
+      }
+    }
+    fallbackCounter.increment();
+    return fallback.markStepUsed(userId, step, ttl);
+  }
+
+  @Override
+  public void delete(UUID userId) {
+    fallback.delete(userId);
+    if (!isDegraded()) {
+      try {
+        primary.delete(userId);
+      } catch (DataAccessException e) {
+        markDegraded(e);
+      }
+    }
+  }
+
+  private boolean isDegraded() {
+    return System.nanoTime() - degradedUntil.get() < 0;
+  }
+
+  private void markDegraded(DataAccessException e) {
+    degradedUntil.set(System.nanoTime() + retryAfterNanos);
+    System.out.println("Redis no disponible para códigos 2FA, usando memoria local: "
+            + e.getMessage());
+  }
+}
@@ -0,0 +1,181 @@
+package com.example.demo.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link VerificationCodeStore} kept in this process, for local development and as a
+ * fallback while Redis is unavailable. Codes are only visible to the instance that stored them.
+ *
+ * <p>The map is split into lock-protected stripes so concurrent users rarely contend.
+ * Each stripe keeps entries in insertion order and is bounded; expired entries are swept
+ * lazily from the oldest end on every write, and the oldest entry is evicted when a stripe
+ * is full.</p>
+ */
+public class InMemoryVerificationCodeStore implements VerificationCodeStore {
+
+  private static final int STRIPES = 64;
+
+  private final Stripe[] stripes = new Stripe[STRIPES];
+  private final int stripeCapacity;
+
+  /**
+   * Creates the store.
+   *
+   * @param maxEntries maximum number of codes kept, spread across the stripes
+   */
+  public InMemoryVerificationCodeStore(int maxEntries) {
+    this.stripeCapacity = Math.max(1, (maxEntries + STRIPES - 1) / STRIPES);
+    for (int i = 0; i < STRIPES; i++) {
+      stripes[i] = new Stripe();
+    }
+  }
+
+  @Override
+  public void save(UUID userId, String codeHash, Duration ttl) {
+    Stripe stripe = stripeFor(userId);
+    long now = System.nanoTime();
+    stripe.lock.lock();
+    try {
+      stripe.sweep(now);
+      stripe.entries.remove(userId);
+      stripe.entries.put(userId, new Entry(codeHash, now + ttl.toNanos()));
+      if (stripe.entries.size() > stripeCapacity) {
+        Iterator<Map.Entry<UUID, Entry>> eldest = stripe.entries.entrySet().iterator();
+        eldest.next();
+        eldest.remove();
+      }
+    } finally {
+      stripe.lock.unlock();
+    }
+  }
+
+  @Override
+  public Result validate(UUID userId, String codeHash, int maxAttempts) {
+    Stripe stripe = stripeFor(userId);
+    stripe.lock.lock();
+    try {
+      Entry entry = stripe.entries.get(userId);
+      if (entry == null) {
+        return Result.MISSING;
+      }
+      if (entry.isExpired(System.nanoTime())) {
+        stripe.entries.remove(userId);
+        return Result.MISSING;
+      }
+      if (MessageDigest.isEqual(entry.codeHash, codeHash.getBytes(StandardCharsets.UTF_8))) {
+        stripe.entries.remove(userId);
+        return Result.VALID;
+      }
+      if (++entry.attempts >= maxAttempts) {
+        stripe.entries.remove(userId);
+        return Result.LOCKED;
+      }
+      return Result.INVALID;
+    } finally {
+      stripe.lock.unlock();
+    }
+  }
+
+  @Override
+  public boolean markStepUsed(UUID userId, long step, Duration ttl) {
+    Stripe stripe = stripeFor(userId);
+    long now = System.nanoTime();
+    stripe.lock.lock();
+    try {
+      stripe.sweep(now);
+      UsedStep last = stripe.steps.get(userId);
+      if (last != null && !last.isExpired(now) && last.step >= step) {
+        return false;
+      }
+      stripe.steps.remove(userId);
+      stripe.steps.put(userId, new UsedStep(step, now + ttl.toNanos()));
+      if (stripe.steps.size() > stripeCapacity) {
+        Iterator<UUID> eldest = stripe.steps.keySet().iterator();
+        eldest.next();
+        eldest.remove();
+      }
+      return true;
+    } finally {
+      stripe.lock.unlock();
+    }
+  }
+
+  @Override
+  public void delete(UUID userId) {
+    Stripe stripe = stripeFor(userId);
+    stripe.lock.lock();
+    try {
+      stripe.entries.remove(userId);
+    } finally {
+      stripe.lock.unlock();
+    }
+  }
+
+  /**
+   * Returns whether an unexpired code is stored for the user.
+   *
+   * @param userId owner of the code
+   * @return true if a code is present
+   */
+  public boolean contains(UUID userId) {
+    Stripe stripe = stripeFor(userId);
+    stripe.lock.lock();
+    try {
+      Entry entry = stripe.entries.get(userId);
+      return entry != null && !entry.isExpired(System.nanoTime());
+    } finally {
+      stripe.lock.unlock();
+    }
+  }
+
+  private Stripe stripeFor(UUID userId) {
+    int hash = userId.hashCode();
+    return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+  }
+
+  private static final class Stripe {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<UUID, Entry> entries = new LinkedHashMap<>();
+    private final LinkedHashMap<UUID, UsedStep> steps = new LinkedHashMap<>();
+
+    private void sweep(long now) {
+      Iterator<Entry> oldest = entries.values().iterator();
+      while (oldest.hasNext() && oldest.next().isExpired(now)) {
+        oldest.remove();
+      }
+      Iterator<UsedStep> oldestStep = steps.values().iterator();
+      while (oldestStep.hasNext() && oldestStep.next().isExpired(now)) {
+        oldestStep.remove();
+      }
+    }
+  }
+
+  private record UsedStep(long step, long expiresAt) {
+
+    private boolean isExpired(long now) {
+      return now - expiresAt >= 0;
+    }
+  }
+
+  private static final class Entry {
+    private final byte[] codeHash;
+    private final long expiresAt;
+    private int attempts;
+
+    private Entry(String codeHash, long expiresAt) {
+      this.codeHash = codeHash.getBytes(StandardCharsets.UTF_8);
+      this.expiresAt = expiresAt;
+    }
+
+    private boolean isExpired(long now) {
+      return now - expiresAt >= 0;
+    }
+  }
+}
@@ -0,0 +1,127 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.FileUploadException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import org.springframework.util.StringUtils;
+
+/**
+ * {@link DocumentStorage} on the local filesystem, for on-prem tenants and load tests.
+ * Files are copied with {@link FileChannel#transferTo}, forced to disk and moved into place
+ * atomically, so a reader never sees a partial document. The on-disk name is the SHA-256 of
+ * the key, sharded into two directory levels ({@code ab/cd/abcd...}) to keep directories
+ * small; since keys are hashed they can never escape the root directory.
+ * Documents are served by {@link com.example.demo.controller.DocumentController}.
+ */
+public class LocalDocumentStorage implements DocumentStorage {
+
+  private static final Pattern EXTENSION = Pattern.compile("[a-z0-9]{1,10}");
+
+  private final Path root;
+  private final String baseUrl;
+
+  /**
+   * Creates the storage.
+   *
+   * @param root    directory holding the documents
+   * @param baseUrl URL prefix documents are served under
+   */
+  public LocalDocumentStorage(Path root, String baseUrl) {
+    this.root = root.toAbsolutePath().normalize();
+    this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+  }
+
+  @Override
+  public StoredDocument store(Path source, String key) {
+    String extension = extension(source.getFileName().toString());
+    String storedKey = extension != null ? key + "." + extension : key;
+    Path target = resolve(storedKey);
+    Path temp = null;
+    try {
+      Files.createDirectories(target.getParent());
+      temp = Files.createTempFile(target.getParent(), ".upload-", ".tmp");
+      try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+           FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+        long size = in.size();
+        long position = 0;
+        while (position < size) {
+          position += in.transferTo(position, size - position, out);
+        }
+        out.force(true);
+      }
+      Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      return new StoredDocument(storedKey, baseUrl + "/" + storedKey);
+    } catch (IOException e) {
+      deleteQuietly(temp);
+      throw new FileUploadException("Error al guardar el documento en disco", e);
+    }
+  }
+
+  @Override
+  public void delete(String key) {
+    try {
+      Files.deleteIfExists(resolve(key));
+    } catch (IOException e) {
+      throw new FileUploadException("Error al eliminar el documento en disco", e);
+    }
+  }
+
+  @Override
+  public boolean supportsDirectUpload() {
+    return false;
+  }
+
+  /**
+   * Returns the path a document is stored at, whether or not it exists.
+   *
+   * @param key document key
+   * @return path of the document under the root directory
+   */
+  public Path resolve(String key) {
+    String hash = sha256(key);
+    String extension = extension(key);
+    return root.resolve(hash.substring(0, 2))
+            .resolve(hash.substring(2, 4))
+            .resolve(extension != null ? hash + "." + extension : hash);
+  }
+
+  private static String extension(String name) {
+    String lastSegment = name.substring(name.lastIndexOf('/') + 1);
+    String extension = StringUtils.getFilenameExtension(lastSegment);
+    if (extension == null) {
+      return null;
+    }
+    extension = extension.toLowerCase(Locale.ROOT);
+    return EXTENSION.matcher(extension).matches() ? extension : null;
+  }
+
+  private static String sha256(String key) {
+    try {
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+              .digest(key.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static void deleteQuietly(Path path) {
+    if (path == null) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      System.out.println("No se pudo eliminar el archivo temporal " + path + ": " + e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,40 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.User;
+import com.example.demo.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.stereotype.Service;
+
+/**
+ * Persists password hashes upgraded by the authentication provider after a successful login,
+ * e.g. legacy BCrypt hashes without an encoder id or with a lower work factor than the
+ * calibrated one. The write happens on the application task executor, so the login
+ * response is not delayed by it. The update only applies if the stored hash has not
+ * changed meanwhile, so it can never undo a concurrent password reset.
+ */
+@Service
+@RequiredArgsConstructor
+public class PasswordUpgradeService implements UserDetailsPasswordService {
+
+  private final UserRepository userRepository;
+  private final UserCacheService userCacheService;
+  private final AsyncTaskExecutor applicationTaskExecutor;
+
+  @Override
+  public UserDetails updatePassword(UserDetails user, String newPassword) {
+    String email = user.getUsername();
+    String previousPassword = user.getPassword();
+    applicationTaskExecutor.execute(() -> {
+      if (userRepository.updatePasswordIfUnchanged(email, previousPassword, newPassword) > 0) {
+        userCacheService.invalidate(email);
+      }
+    });
+    if (user instanceof User loaded) {
+      loaded.setPassword(newPassword);
+    }
+    return user;
+  }
+}
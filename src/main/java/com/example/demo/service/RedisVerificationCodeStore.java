@@ -0,0 +1,101 @@
+package com.example.demo.service;
+
+import com.example.demo.utils.RedisGateway;
+import com.example.demo.utils.RedisKeys;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.redis.core.script.RedisScript;
+
+/**
+ * {@link VerificationCodeStore} shared by every replica, backed by a Redis hash per user
+ * holding the code hash and a failed-attempt counter, and a key per user holding the last
+ * redeemed time step. Saving, validating and marking a step each run as one Lua script,
+ * so a code or a step is consumed at most once in a single round trip.
+ */
+public class RedisVerificationCodeStore implements VerificationCodeStore {
+
+  /**
+   * KEYS[1] code key, ARGV[1] code hash, ARGV[2] TTL in milliseconds.
+   * Replaces any previous code and resets the attempt counter.
+   */
+  private static final RedisScript<Long> SAVE_SCRIPT = RedisScript.of("""
+          redis.call('DEL', KEYS[1])
+          redis.call('HSET', KEYS[1], 'hash', ARGV[1], 'attempts', 0)
+          redis.call('PEXPIRE', KEYS[1], ARGV[2])
+          return 1
+          """, Long.class);
+
+  /**
+   * KEYS[1] code key, ARGV[1] submitted code hash, ARGV[2] maximum failed attempts.
+   * Returns 1 and deletes the key on a match, -1 if there is no code, 0 on a mismatch,
+   * and -2 (deleting the key) once the attempts are exhausted.
+   */
+  private static final RedisScript<Long> VALIDATE_SCRIPT = RedisScript.of("""
+          local stored = redis.call('HGET', KEYS[1], 'hash')
+          if not stored then
+            return -1
+          end
+          if stored == ARGV[1] then
+            redis.call('DEL', KEYS[1])
+            return 1
+          end
+          if redis.call('HINCRBY', KEYS[1], 'attempts', 1) >= tonumber(ARGV[2]) then
+            redis.call('DEL', KEYS[1])
+            return -2
+          end
+          return 0
+          """, Long.class);
+
+  /**
+   * KEYS[1] step key, ARGV[1] time step, ARGV[2] TTL in milliseconds.
+   * Returns 1 and stores the step unless the same or a later step is already stored.
+   */
+  private static final RedisScript<Long> MARK_STEP_SCRIPT = RedisScript.of("""
+          local last = redis.call('GET', KEYS[1])
+          if last and tonumber(last) >= tonumber(ARGV[1]) then
+            return 0
+          end
+          redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+          return 1
+          """, Long.class);
+
+  private final RedisGateway redisGateway;
+
+  public RedisVerificationCodeStore(RedisGateway redisGateway) {
+    this.redisGateway = redisGateway;
+  }
+
+  @Override
+  public void save(UUID userId, String codeHash, Duration ttl) {
+    redisGateway.eval(SAVE_SCRIPT, List.of(RedisKeys.twoFactorCode(userId)),
+            codeHash, String.valueOf(ttl.toMillis()));
+  }
+
+  @Override
+  public Result validate(UUID userId, String codeHash, int maxAttempts) {
+    Long result = redisGateway.eval(VALIDATE_SCRIPT, List.of(RedisKeys.twoFactorCode(userId)),
+            codeHash, String.valueOf(maxAttempts));
+    if (result == null) {
+      return Result.MISSING;
+    }
+    return switch (result.intValue()) {
+      case 1 -> Result.VALID;
+      case 0 -> Result.INVALID;
+      case -2 -> Result.LOCKED;
+      default -> Result.MISSING;
+    };
+  }
+
+  @Override
+  public boolean markStepUsed(UUID userId, long step, Duration ttl) {
+    Long result = redisGateway.eval(MARK_STEP_SCRIPT, List.of(RedisKeys.totpStep(userId)),
+            String.valueOf(step), String.valueOf(ttl.toMillis()));
+    return result != null && result == 1;
+  }
+
+  @Override
+  public void delete(UUID userId) {
+    redisGateway.delete(RedisKeys.twoFactorCode(userId));
+  }
+}
@@ -0,0 +1,163 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.User;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.utils.RedisGateway;
+import com.example.demo.utils.RedisKeys;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Tracks the per-user token version used to revoke previously issued JWTs.
+ * The current version is kept in Redis so the stateless authentication path
+ * only needs a single key lookup; the database is consulted only when the
+ * key is missing. The lookup runs as a script so it is always served by the master:
+ * a lagging replica could still return the version from before a revocation.
+ * Versions only move forward in Redis, so a cache fill that read the version
+ * just before a revocation cannot bring revoked tokens back.
+ * While Redis is unavailable versions are read from the database, counted in
+ * {@code token.version.fallback}, so revocation keeps working during an outage.
+ */
+@Service
+public class TokenVersionService {
+
+  private static final Duration KEY_TTL = Duration.ofDays(1);
+
+  /**
+   * KEYS[1] token version key. Returns the stored version, or -1 if there is none.
+   */
+  private static final RedisScript<Long> READ_SCRIPT = RedisScript.of("""
+          local version = redis.call('GET', KEYS[1])
+          if not version then
+            return -1
+          end
+          return tonumber(version)
+          """, Long.class);
+
+  /**
+   * KEYS[1] token version key, ARGV[1] version, ARGV[2] TTL in milliseconds.
+   * Stores the version unless the same or a higher one is already stored.
+   */
+  private static final RedisScript<Long> STORE_SCRIPT = RedisScript.of("""
+          local current = redis.call('GET', KEYS[1])
+          if current and tonumber(current) >= tonumber(ARGV[1]) then
+            return 0
+          end
+          redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+          return 1
+          """, Long.class);
+
+  private final RedisGateway redisGateway;
+  private final UserRepository userRepository;
+  private final Counter fallbackCounter;
+
+  /**
+   * Creates the service and registers its metrics.
+   *
+   * @param redisGateway   Redis access for the cached versions
+   * @param userRepository repository holding the authoritative versions
+   * @param meterRegistry  registry for fallback metrics
+   */
+  public TokenVersionService(
+          RedisGateway redisGateway,
+          UserRepository userRepository,
+          MeterRegistry meterRegistry) {
+    this.redisGateway = redisGateway;
+    this.userRepository = userRepository;
+    this.fallbackCounter = meterRegistry.counter("token.version.fallback");
+  }
+
+  /**
+   * Returns whether a token issued with the given version is still current.
+   *
+   * @param userId       user identifier from the token
+   * @param tokenVersion version carried by the token
+   * @return true if the version matches the user's current version
+   */
+  public boolean isCurrent(UUID userId, int tokenVersion) {
+    if (userId == null) {
+      return false;
+    }
+    String key = RedisKeys.tokenVersion(userId);
+    Long cached;
+    try {
+      cached = redisGateway.eval(READ_SCRIPT, List.of(key));
+    } catch (DataAccessException e) {
+      fallbackCounter.increment();
+      Integer current = loadVersion(userId);
+      return current != null && current == tokenVersion;
+    }
+    if (cached == null || cached < 0) {
+      Integer current = loadVersion(userId);
+      if (current == null) {
+        return false;
+      }
+      try {
+        store(key, current);
+      } catch (DataAccessException e) {
+        fallbackCounter.increment();
+      }
+      return current == tokenVersion;
+    }
+    return cached == tokenVersion;
+  }
+
+  /**
+   * Increments and persists the user's token version so every token issued
+   * before now is rejected. Any other pending change on the user is saved too.
+   * Inside a transaction the new version is only published to Redis once the transaction
+   * commits. If Redis cannot be updated the cached version is deleted instead, so the next
+   * check reads the new version from the database; a Redis failure never fails the caller.
+   *
+   * @param user user whose tokens must be revoked
+   * @return the saved user
+   */
+  public User revokeTokens(User user) {
+    user.setTokenVersion(user.getTokenVersion() + 1);
+    User saved = userRepository.save(user);
+    String key = RedisKeys.tokenVersion(user.getId());
+    int version = saved.getTokenVersion();
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          publish(key, version);
+        }
+      });
+    } else {
+      publish(key, version);
+    }
+    return saved;
+  }
+
+  private void publish(String key, int version) {
+    try {
+      store(key, version);
+    } catch (DataAccessException e) {
+      fallbackCounter.increment();
+      try {
+        redisGateway.delete(key);
+      } catch (DataAccessException deleteError) {
+        System.out.println("No se pudo actualizar la versión de token en Redis: "
+                + deleteError.getMessage());
+      }
+    }
+  }
+
+  private Integer loadVersion(UUID userId) {
+    return userRepository.findById(userId).map(User::getTokenVersion).orElse(null);
+  }
+
+  private void store(String key, int version) {
+    redisGateway.eval(STORE_SCRIPT, List.of(key),
+            String.valueOf(version), String.valueOf(KEY_TTL.toMillis()));
+  }
+}
@@ -1,20 +1,38 @@
 package com.example.demo.service;
 
+import com.example.demo.constant.TwoFactorMethod;
 import com.example.demo.entity.User;
+import com.example.demo.exception.BadRequestException;
 import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.exception.UnauthorizedException;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.utils.JwtService;
+import com.example.demo.utils.TotpAuthenticator;
+import com.example.demo.utils.TotpSecretCipher;
 import com.example.demo.utils.TwoFactorAuthUtil;
-import java.util.concurrent.TimeUnit;
+import com.example.demo.utils.VerifiedToken;
+import io.jsonwebtoken.JwtException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.UUID;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.ValueOperations;
 import org.springframework.stereotype.Service;
 
 /**
  * Service responsible for handling Two-Factor Authentication (2FA)
  * operations such as enabling/disabling 2FA, sending verification codes,
  * and validating user-submitted codes.
+ * A successful password step opens a challenge and returns a short-lived login ticket;
+ * the second factor is only checked for the user named in that ticket, never for an email
+ * taken from the request.
+ * Codes are stored as SHA-256 hashes bound to the ticket in the {@link VerificationCodeStore},
+ * which consumes a code at most once and caps failed attempts.
+ * Users enrolled with an authenticator app are verified in-process with TOTP instead and
+ * nothing is emailed to them; their challenge is still stored, so failed attempts are capped
+ * per ticket in the same shared store, which also rejects a time step that was already used.
  */
 @Service
 @RequiredArgsConstructor
@@ -23,8 +41,14 @@ public class TwoFactorAuthService {
   public final UserService userService;
   public final UserRepository userRepository;
   public final EmailService emailService;
-  private final RedisTemplate<String, String> redisTemplate;
-  private static final long CODE_EXPIRATION_MINUTES = 3;
+  private final UserCacheService userCacheService;
+  private final VerificationCodeStore verificationCodeStore;
+  private final TotpAuthenticator totpAuthenticator;
+  private final TotpSecretCipher totpSecretCipher;
+  private final JwtService jwtService;
+  private static final Duration CODE_EXPIRATION = Duration.ofMinutes(3);
+  private static final int MAX_ATTEMPTS = 5;
+  private static final String TOTP_CHALLENGE = "totp";
 
   /**
    * Updates the 2FA setting for a user based on their email.
@@ -38,34 +62,128 @@ public class TwoFactorAuthService {
                     "User not found with email: " + email));
     user.setTwoFactorEnabled(enabled);
     userRepository.save(user);
+    userCacheService.invalidate(email);
   }
 
   /**
-   * Sends a 2FA verification code to the user's email and stores
-   * it temporarily in Redis with an expiration time.
+   * Opens a 2FA challenge after a successful password step and returns its login ticket.
+   * A verification code bound to the ticket is emailed to the user, unless they verify with
+   * an authenticator app, in which case only the challenge is stored.
    *
-   * @param user The user to whom the verification code is sent.
+   * @param user The user who passed the password step.
+   * @return the ticket to present, together with the code, to {@link #validateCode}.
    */
-  public void sendVerificationCode(User user) {
-    String code = TwoFactorAuthUtil.generateVerificationCode();
-    ValueOperations<String, String> ops = redisTemplate.opsForValue();
-    ops.set(user.getEmail(), code, CODE_EXPIRATION_MINUTES, TimeUnit.MINUTES);
-    emailService.send2FaCode(user.getEmail(), code);
+  public String startChallenge(User user) {
+    String ticketId = UUID.randomUUID().toString();
+    if (user.usesTotp()) {
+      verificationCodeStore.save(user.getId(), hash(ticketId, TOTP_CHALLENGE), CODE_EXPIRATION);
+    } else {
+      String code = TwoFactorAuthUtil.generateVerificationCode();
+      verificationCodeStore.save(user.getId(), hash(ticketId, code), CODE_EXPIRATION);
+      emailService.send2FaCode(user.getEmail(), code);
+    }
+    return jwtService.generateTwoFactorTicket(user.getId(), user.getEmail(),
+            user.getTokenVersion(), ticketId, CODE_EXPIRATION.toMillis());
   }
 
   /**
-   * Validates the 2FA code submitted by the user.
+   * Validates the 2FA code submitted with a login ticket. The ticket is redeemed at most once.
    *
-   * @param email The email of the user.
-   * @param code  The code submitted for verification.
-   * @throws UnauthorizedException if the code is invalid or expired.
+   * @param ticket The login ticket returned by {@link #startChallenge(User)}.
+   * @param code   The code submitted for verification.
+   * @return the user named in the ticket.
+   * @throws UnauthorizedException if the ticket or the code is invalid or expired,
+   *                               or too many invalid codes were submitted.
    */
-  public void validateCode(String email, String code) {
-    ValueOperations<String, String> ops = redisTemplate.opsForValue();
-    String storedCode = ops.get(email);
-    if (storedCode == null || !storedCode.equals(code)) {
+  public User validateCode(String ticket, String code) {
+    VerifiedToken verified;
+    try {
+      verified = jwtService.verify(ticket);
+    } catch (JwtException | IllegalArgumentException e) {
+      throw new UnauthorizedException("Invalid or expired 2FA ticket.");
+    }
+    String ticketId = verified.claims().getId();
+    if (!verified.twoFaPending() || ticketId == null || verified.userId() == null) {
+      throw new UnauthorizedException("Invalid or expired 2FA ticket.");
+    }
+    User user = userRepository.findById(verified.userId())
+            .filter(found -> found.getTokenVersion() == verified.tokenVersion())
+            .orElseThrow(() -> new UnauthorizedException("Invalid or expired 2FA ticket."));
+    String submitted = code == null ? "" : code;
+    if (user.usesTotp()) {
+      String secret = totpSecretCipher.decrypt(user.getTotpSecret());
+      submitted = isUnusedTotp(user, secret, code) ? TOTP_CHALLENGE : "";
+    }
+    switch (verificationCodeStore.validate(
+            user.getId(), hash(ticketId, submitted), MAX_ATTEMPTS)) {
+      case VALID -> {
+        return user;
+      }
+      case LOCKED -> throw new UnauthorizedException(
+              "Too many invalid 2FA attempts. Request a new code.");
+      default -> throw new UnauthorizedException("Invalid or expired 2FA code.");
+    }
+  }
+
+  /**
+   * Starts authenticator-app enrolment by generating a new TOTP secret for the user.
+   * The secret is kept apart as pending and only replaces the one in use, if any, once
+   * confirmed with {@link #confirmTotp(String, String)}; until then the user keeps signing
+   * in with their current second factor.
+   *
+   * @param email User's email address.
+   * @return the {@code otpauth://} provisioning URI to render as a QR code.
+   */
+  public String enrollTotp(String email) {
+    User user = userRepository.findByEmail(email)
+            .orElseThrow(() -> new ResourceNotFoundException(
+                    "User not found with email: " + email));
+    String secret = totpAuthenticator.generateSecret();
+    user.setPendingTotpSecret(totpSecretCipher.encrypt(secret));
+    userRepository.save(user);
+    return totpAuthenticator.provisioningUri(email, secret);
+  }
+
+  /**
+   * Completes authenticator-app enrolment: the pending secret replaces the one in use,
+   * and 2FA is enabled with TOTP.
+   *
+   * @param email User's email address.
+   * @param code  Current code shown by the authenticator app.
+   * @throws BadRequestException   if enrolment was not started.
+   * @throws UnauthorizedException if the code is invalid.
+   */
+  public void confirmTotp(String email, String code) {
+    User user = userRepository.findByEmail(email)
+            .orElseThrow(() -> new ResourceNotFoundException(
+                    "User not found with email: " + email));
+    if (user.getPendingTotpSecret() == null) {
+      throw new BadRequestException("TOTP enrolment has not been started.");
+    }
+    if (!isUnusedTotp(user, totpSecretCipher.decrypt(user.getPendingTotpSecret()), code)) {
       throw new UnauthorizedException("Invalid or expired 2FA code.");
     }
-    redisTemplate.delete(email);
+    user.setTotpSecret(user.getPendingTotpSecret());
+    user.setPendingTotpSecret(null);
+    user.setTwoFactorMethod(TwoFactorMethod.TOTP);
+    user.setTwoFactorEnabled(true);
+    userRepository.save(user);
+    userCacheService.invalidate(email);
+  }
+
+  private boolean isUnusedTotp(User user, String secret, String code) {
+    long step = totpAuthenticator.matchStep(secret, code);
+    return step >= 0 && verificationCodeStore.markStepUsed(
+            user.getId(), step, totpAuthenticator.replayWindow());
+  }
+
+  private static String hash(String ticketId, String code) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(
+              digest.digest((ticketId + ":" + code).getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
   }
 }
\ No newline at end of file
@@ -0,0 +1,325 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.UploadSessionDto;
+import com.example.demo.dto.UploadSessionRequestDto;
+import com.example.demo.entity.UploadSession;
+import com.example.demo.entity.User;
+import com.example.demo.exception.BadRequestException;
+import com.example.demo.exception.ConflictException;
+import com.example.demo.exception.FileUploadException;
+import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.repository.UploadSessionRepository;
+import com.example.demo.utils.DocumentValidator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Service for resumable document uploads.
+ * A client opens a session declaring the document size, sends the bytes in chunks that
+ * each start at the current offset, and resumes from the reported offset after a dropped
+ * connection. Chunks are written straight from the request stream into the spool file with
+ * {@link FileChannel#transferFrom}, forced to disk and only then counted in the offset, so
+ * the offset never covers bytes that could be lost. A file lock on the spool file keeps
+ * chunks of the same session from being written concurrently.
+ * The document type is checked from the first chunk and the whole document once complete,
+ * so a file that is not the declared PDF or Word document is rejected before it is sent in
+ * full or uploaded anywhere. Once complete, the spool file is handed to a company profile
+ * submission. Each user can keep a limited number of sessions open and sessions expire
+ * after a period without chunks.
+ * Spool files live on local disk, so a session must keep hitting the same instance or the
+ * spool directory must be shared.
+ */
+@Service
+public class UploadSessionService {
+
+  private static final Set<String> DOCUMENT_EXTENSIONS = Set.of("pdf", "doc", "docx");
+  private static final int EXPIRE_BATCH_SIZE = 100;
+
+  private final UploadSessionRepository uploadSessionRepository;
+  private final UserCacheService userCacheService;
+  private final DocumentValidator documentValidator;
+  private final Path spoolDir;
+  private final DataSize maxSize;
+  private final int maxSessionsPerUser;
+  private final Duration expireAfter;
+
+  /**
+   * Creates the service.
+   *
+   * @param uploadSessionRepository repository holding the sessions
+   * @param userCacheService        cached user lookups
+   * @param documentValidator       content check of the uploaded documents
+   * @param spoolDir                directory receiving the chunks, shared with the submissions
+   * @param maxSize                 maximum size of an uploaded document
+   * @param maxSessionsPerUser      sessions a user can keep open at once
+   * @param expireAfter             time without chunks after which a session is discarded
+   */
+  public UploadSessionService(
+          UploadSessionRepository uploadSessionRepository,
+          UserCacheService userCacheService,
+          DocumentValidator documentValidator,
+          @Value("${company-profile.jobs.spool-dir:${java.io.tmpdir}/company-profile-spool}")
+          Path spoolDir,
+          @Value("${company-profile.document.max-size:10MB}") DataSize maxSize,
+          @Value("${company-profile.uploads.max-sessions-per-user:3}") int maxSessionsPerUser,
+          @Value("${company-profile.uploads.expire-after:24h}") Duration expireAfter) {
+    this.uploadSessionRepository = uploadSessionRepository;
+    this.userCacheService = userCacheService;
+    this.documentValidator = documentValidator;
+    this.spoolDir = spoolDir;
+    this.maxSize = maxSize;
+    this.maxSessionsPerUser = maxSessionsPerUser;
+    this.expireAfter = expireAfter;
+  }
+
+  /**
+   * Opens a resumable upload for the authenticated user.
+   *
+   * @param email   email of the authenticated user
+   * @param request document name and size
+   * @return the new session, at offset 0
+   * @throws BadRequestException       if the document type or size is not allowed
+   * @throws ConflictException         if the user already has too many open sessions
+   * @throws ResourceNotFoundException if user is not found
+   */
+  public UploadSessionDto create(String email, UploadSessionRequestDto request) {
+    String extension = StringUtils.getFilenameExtension(request.getFileName());
+    if (extension == null || !DOCUMENT_EXTENSIONS.contains(extension.toLowerCase(Locale.ROOT))) {
+      throw new BadRequestException("Solo se permiten archivos PDF o Word (.doc, .docx)");
+    }
+    if (request.getLength() > maxSize.toBytes()) {
+      throw new BadRequestException("El archivo supera el tamaño permitido");
+    }
+    User user = findUser(email);
+    LocalDateTime now = LocalDateTime.now();
+    if (uploadSessionRepository.countByUserIdAndExpiresAtAfter(user.getId(), now)
+            >= maxSessionsPerUser) {
+      throw new ConflictException("Demasiadas subidas en curso para este usuario");
+    }
+
+    Path spooled;
+    try {
+      Files.createDirectories(spoolDir);
+      spooled = Files.createTempFile(
+              spoolDir, "upload-", "." + extension.toLowerCase(Locale.ROOT));
+    } catch (IOException e) {
+      throw new FileUploadException("Error al preparar la subida del archivo", e);
+    }
+    try {
+      UploadSession session = uploadSessionRepository.save(UploadSession.builder()
+              .userId(user.getId())
+              .fileName(request.getFileName())
+              .length(request.getLength())
+              .spoolPath(spooled.toString())
+              .createdAt(now)
+              .expiresAt(now.plus(expireAfter))
+              .build());
+      return toDto(session);
+    } catch (RuntimeException e) {
+      deleteSpool(spooled);
+      throw e;
+    }
+  }
+
+  /**
+   * Returns the state of a session owned by the authenticated user.
+   *
+   * @param id    session identifier
+   * @param email email of the authenticated user
+   * @return the session state
+   * @throws ResourceNotFoundException if the session does not exist or belongs to another user
+   */
+  public UploadSessionDto get(UUID id, String email) {
+    return toDto(findSession(id, findUser(email).getId()));
+  }
+
+  /**
+   * Appends a chunk read from the request body at the given offset. Bytes received before
+   * the connection drops are kept, so the client resumes from the reported offset.
+   *
+   * @param id     session identifier
+   * @param email  email of the authenticated user
+   * @param offset offset the chunk starts at, which must match the session offset
+   * @param body   chunk content
+   * @return the session state after the chunk
+   * @throws ConflictException         if the offset does not match or another chunk is in flight
+   * @throws BadRequestException       if the chunk goes past the declared size or the first
+   *                                   bytes do not match the document type, which discards
+   *                                   the session
+   * @throws ResourceNotFoundException if the session does not exist or belongs to another user
+   * @throws FileUploadException       if the chunk cannot be written
+   */
+  public UploadSessionDto append(UUID id, String email, long offset, InputStream body) {
+    UploadSession session = findSession(id, findUser(email).getId());
+    requireOffset(session, offset);
+    Path spooled = Path.of(session.getSpoolPath());
+
+    try (FileChannel channel = FileChannel.open(
+            spooled, StandardOpenOption.READ, StandardOpenOption.WRITE);
+         FileLock lock = lock(channel)) {
+      // another chunk may have completed between the first check and taking the lock
+      session = findSession(id, session.getUserId());
+      requireOffset(session, offset);
+      long remaining = session.getLength() - offset;
+      ReadableByteChannel in = Channels.newChannel(body);
+      long written = 0;
+      boolean oversized = false;
+      try {
+        while (written < remaining) {
+          long transferred = channel.transferFrom(in, offset + written, remaining - written);
+          if (transferred == 0) {
+            break;
+          }
+          written += transferred;
+        }
+        // checked before the offset moves, so an oversized chunk never completes the session
+        oversized = written == remaining && body.read() != -1;
+      } finally {
+        if (written > 0 && !oversized) {
+          channel.force(false);
+          uploadSessionRepository.advanceOffset(
+                  id, offset, offset + written, LocalDateTime.now().plus(expireAfter));
+        }
+      }
+      if (oversized) {
+        discard(session);
+        throw new BadRequestException("El fragmento supera el tamaño declarado del archivo");
+      }
+      long signatureEnd = Math.min(DocumentValidator.SIGNATURE_LENGTH, session.getLength());
+      if (offset < signatureEnd && offset + written >= signatureEnd) {
+        checkSignature(session, DocumentValidator.readHead(channel));
+      }
+    } catch (IOException e) {
+      throw new FileUploadException("Error al recibir el fragmento del archivo", e);
+    }
+    return toDto(findSession(id, session.getUserId()));
+  }
+
+  /**
+   * Hands over the spool file of a completed session and closes the session. The caller
+   * owns the file from then on.
+   *
+   * @param id     session identifier
+   * @param userId owner of the session
+   * @return path of the assembled document
+   * @throws BadRequestException       if not all bytes were received yet, or the document
+   *                                   content does not match its type, which discards the
+   *                                   session
+   * @throws ResourceNotFoundException if the session does not exist or belongs to another user
+   */
+  public Path complete(UUID id, UUID userId) {
+    UploadSession session = findSession(id, userId);
+    if (session.getUploadOffset() != session.getLength()) {
+      throw new BadRequestException("La subida del archivo no está completa");
+    }
+    try {
+      documentValidator.validate(session.getFileName(), Path.of(session.getSpoolPath()));
+    } catch (BadRequestException e) {
+      discard(session);
+      throw e;
+    }
+    if (uploadSessionRepository.deleteCompleted(id, userId) == 0) {
+      throw new ResourceNotFoundException("Subida no encontrada");
+    }
+    return Path.of(session.getSpoolPath());
+  }
+
+  /**
+   * Discards sessions that received no chunk within the expiry period, with their files.
+   */
+  @Scheduled(fixedDelayString = "${company-profile.uploads.expire-interval-ms:600000}")
+  public void expire() {
+    List<UploadSession> expired;
+    do {
+      expired = uploadSessionRepository.findByExpiresAtBefore(
+              LocalDateTime.now(), PageRequest.of(0, EXPIRE_BATCH_SIZE));
+      expired.forEach(this::discard);
+    } while (expired.size() == EXPIRE_BATCH_SIZE);
+  }
+
+  /**
+   * Rejects the upload as soon as its first bytes show it is not the declared document
+   * type, so the client does not send the rest.
+   */
+  private void checkSignature(UploadSession session, byte[] head) {
+    try {
+      documentValidator.checkSignature(session.getFileName(), head);
+    } catch (BadRequestException e) {
+      discard(session);
+      throw e;
+    }
+  }
+
+  private void discard(UploadSession session) {
+    uploadSessionRepository.deleteById(session.getId());
+    deleteSpool(Path.of(session.getSpoolPath()));
+  }
+
+  private static FileLock lock(FileChannel channel) throws IOException {
+    FileLock lock;
+    try {
+      lock = channel.tryLock();
+    } catch (OverlappingFileLockException e) {
+      lock = null;
+    }
+    if (lock == null) {
+      throw new ConflictException("Ya se está recibiendo un fragmento de este archivo");
+    }
+    return lock;
+  }
+
+  private static void requireOffset(UploadSession session, long offset) {
+    if (session.getUploadOffset() != offset) {
+      throw new ConflictException(
+              "El fragmento debe comenzar en el byte " + session.getUploadOffset());
+    }
+  }
+
+  private UploadSession findSession(UUID id, UUID userId) {
+    return uploadSessionRepository.findByIdAndUserId(id, userId)
+            .filter(session -> session.getExpiresAt().isAfter(LocalDateTime.now()))
+            .orElseThrow(() -> new ResourceNotFoundException("Subida no encontrada"));
+  }
+
+  private User findUser(String email) {
+    return userCacheService.findByEmail(email)
+            .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
+  }
+
+  private static void deleteSpool(Path spooled) {
+    try {
+      Files.deleteIfExists(spooled);
+    } catch (IOException e) {
+      System.out.println("No se pudo eliminar el archivo " + spooled + ": " + e.getMessage());
+    }
+  }
+
+  private static UploadSessionDto toDto(UploadSession session) {
+    return new UploadSessionDto(
+            session.getId(),
+            session.getFileName(),
+            session.getLength(),
+            session.getUploadOffset(),
+            session.getExpiresAt());
+  }
+}
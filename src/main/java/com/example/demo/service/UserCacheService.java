@@ -0,0 +1,234 @@
+package com.example.demo.service;
+
+import com.example.demo.constant.Role;
+import com.example.demo.constant.TwoFactorMethod;
+import com.example.demo.entity.User;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.utils.RedisGateway;
+import com.example.demo.utils.RedisKeys;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Two-tier read cache for users looked up by email.
+ * The first tier is a bounded in-process cache with TTL; the second tier is Redis,
+ * shared by every replica. Writers call {@link #invalidate(String)}, which removes
+ * the Redis entry and publishes the email on {@link #INVALIDATION_CHANNEL} so every
+ * replica drops its local copy.
+ *
+ * <p>An invalidation replaces the Redis entry with a short-lived tombstone, and a snapshot
+ * is only written to Redis when the key is empty. A reader that loaded the row before a
+ * commit therefore cannot put the old snapshot back after the invalidation; while the
+ * tombstone lives, lookups read the database.</p>
+ *
+ * <p>Cached entries are immutable snapshots; each lookup returns a fresh detached
+ * {@link User} without its company profile loaded. Credentials are never cached: the
+ * snapshot leaves out the password hash and the TOTP secret, so reading Redis does not
+ * expose them. Write paths and the authentication path must keep loading the user from
+ * {@link UserRepository}.</p>
+ */
+@Service
+public class UserCacheService implements MessageListener {
+
+  public static final String INVALIDATION_CHANNEL = "user-cache:invalidate";
+
+  private static final byte[] TOMBSTONE = "tombstone".getBytes(StandardCharsets.UTF_8);
+
+  /**
+   * KEYS[1] user snapshot key. Returns the stored snapshot. Scripts run on the master, so
+   * a replica that has not applied the latest invalidation cannot serve the old snapshot.
+   */
+  private static final RedisScript<byte[]> READ_SCRIPT = RedisScript.of(
+          "return redis.call('GET', KEYS[1])", byte[].class);
+
+  private final UserRepository userRepository;
+  private final RedisGateway redisGateway;
+  private final ObjectMapper objectMapper;
+  private final Cache<String, CachedUser> localCache;
+  private final Duration redisTtl;
+  private final Duration tombstoneTtl;
+  private final Counter redisHits;
+  private final Counter redisMisses;
+
+  /**
+   * Creates the cache and registers its metrics.
+   *
+   * @param userRepository repository used on a miss in both tiers
+   * @param redisGateway   Redis access for the shared tier and invalidations
+   * @param objectMapper   mapper used to store snapshots in Redis
+   * @param meterRegistry  registry for hit, miss and eviction metrics
+   * @param localMaxSize   maximum number of users kept in process
+   * @param localTtl       time a user stays in the in-process tier
+   * @param redisTtl       time a user stays in the Redis tier
+   * @param tombstoneTtl   time an invalidated user cannot be written back to Redis
+   */
+  public UserCacheService(
+          UserRepository userRepository,
+          RedisGateway redisGateway,
+          ObjectMapper objectMapper,
+          MeterRegistry meterRegistry,
+          @Value("${user-cache.local.max-size:10000}") long localMaxSize,
+          @Value("${user-cache.local.ttl:60s}") Duration localTtl,
+          @Value("${user-cache.redis.ttl:10m}") Duration redisTtl,
+          @Value("${user-cache.redis.tombstone-ttl:10s}") Duration tombstoneTtl) {
+    this.userRepository = userRepository;
+    this.redisGateway = redisGateway;
+    this.objectMapper = objectMapper;
+    this.redisTtl = redisTtl;
+    this.tombstoneTtl = tombstoneTtl;
+    this.localCache = Caffeine.newBuilder()
+            .maximumSize(localMaxSize)
+            .expireAfterWrite(localTtl)
+            .recordStats()
+            .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, localCache, "users.local");
+    this.redisHits = meterRegistry.counter("users.redis.requests", "result", "hit");
+    this.redisMisses = meterRegistry.counter("users.redis.requests", "result", "miss");
+  }
+
+  /**
+   * Finds a user by email, checking the local tier, then Redis, then the database.
+   *
+   * @param email user email
+   * @return detached copy of the user, or empty if it does not exist
+   */
+  public Optional<User> findByEmail(String email) {
+    CachedUser cached = localCache.getIfPresent(email);
+    if (cached == null) {
+      cached = readRedis(email);
+      if (cached == null) {
+        Optional<User> loaded = userRepository.findByEmail(email);
+        if (loaded.isEmpty()) {
+          return Optional.empty();
+        }
+        cached = CachedUser.from(loaded.get());
+        writeRedis(email, cached);
+      }
+      localCache.put(email, cached);
+    }
+    return Optional.of(cached.toUser());
+  }
+
+  /**
+   * Drops the user from every tier on every replica.
+   * Inside a transaction the eviction is deferred until the transaction commits, so a
+   * concurrent reader cannot cache the old row again in between; outside a transaction
+   * it happens right away.
+   *
+   * @param email email of the modified user
+   */
+  public void invalidate(String email) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          evict(email);
+        }
+      });
+      return;
+    }
+    evict(email);
+  }
+
+  private void evict(String email) {
+    localCache.invalidate(email);
+    try {
+      redisGateway.setBytes(RedisKeys.userByEmail(email), TOMBSTONE, tombstoneTtl);
+      redisGateway.publish(INVALIDATION_CHANNEL, email);
+    } catch (DataAccessException e) {
+      System.out.println("No se pudo propagar la invalidación de caché: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Receives invalidations published by any replica and evicts the local entry.
+   */
+  @Override
+  public void onMessage(Message message, byte[] pattern) {
+    localCache.invalidate(new String(message.getBody(), StandardCharsets.UTF_8));
+  }
+
+  private CachedUser readRedis(String email) {
+    try {
+      byte[] json = redisGateway.evalBytes(READ_SCRIPT, List.of(RedisKeys.userByEmail(email)));
+      if (json == null || Arrays.equals(json, TOMBSTONE)) {
+        redisMisses.increment();
+        return null;
+      }
+      redisHits.increment();
+      return objectMapper.readValue(json, CachedUser.class);
+    } catch (DataAccessException | IOException e) {
+      redisMisses.increment();
+      return null;
+    }
+  }
+
+  private void writeRedis(String email, CachedUser user) {
+    try {
+      redisGateway.setBytesIfAbsent(
+              RedisKeys.userByEmail(email), objectMapper.writeValueAsBytes(user), redisTtl);
+    } catch (DataAccessException | IOException e) {
+      System.out.println("No se pudo escribir el usuario en Redis: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Immutable snapshot of the user columns needed by the JWT filter and token minting,
+   * without credentials.
+   */
+  record CachedUser(
+          UUID id,
+          String email,
+          Role role,
+          Date createdAt,
+          String fullname,
+          Boolean twoFactorEnabled,
+          TwoFactorMethod twoFactorMethod,
+          int tokenVersion) {
+
+    static CachedUser from(User user) {
+      return new CachedUser(
+              user.getId(),
+              user.getEmail(),
+              user.getRole(),
+              user.getCreatedAt(),
+              user.getFullname(),
+              user.getTwoFactorEnabled(),
+              user.getTwoFactorMethod(),
+              user.getTokenVersion());
+    }
+
+    User toUser() {
+      return User.builder()
+              .id(id)
+              .email(email)
+              .role(role)
+              .createdAt(createdAt)
+              .fullname(fullname)
+              .twoFactorEnabled(twoFactorEnabled)
+              .twoFactorMethod(twoFactorMethod)
+              .tokenVersion(tokenVersion)
+              .build();
+    }
+  }
+}
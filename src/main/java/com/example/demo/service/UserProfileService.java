@@ -1,7 +1,6 @@
 package com.example.demo.service;
 
 import com.example.demo.dto.UserProfileResponseDto;
-import com.example.demo.entity.User;
 import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.repository.UserProfileRepository;
 import lombok.RequiredArgsConstructor;
@@ -24,9 +23,7 @@ public class UserProfileService {
      * @throws ResourceNotFoundException si el usuario no es encontrado.
      */
     public UserProfileResponseDto getUserProfile(String email) {
-        User user = userProfileRepository.findByEmail(email)
+        return userProfileRepository.findProfileByEmail(email)
                 .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado"));
-
-        return new UserProfileResponseDto(user);
     }
 }
@@ -21,16 +21,17 @@ public class UserService implements UserDetailsService {
 
   private final UserRepository userRepository;
   private final PasswordEncoder passwordEncoder;
+  private final UserCacheService userCacheService;
 
   @Override
   public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-    return userRepository.findByEmail(username)
+    return userCacheService.findByEmail(username)
             .orElseThrow(() ->
                     new UsernameNotFoundException("Usuario no encontrado con email: " + username));
   }
 
   public Optional<User> userByEmailGoogle(String email) {
-    return this.userRepository.findByEmail(email);
+    return userCacheService.findByEmail(email);
   }
 
   /**
@@ -51,7 +52,14 @@ public class UserService implements UserDetailsService {
     return Optional.of(this.userRepository.save(newUser));
   }
 
+  /**
+   * Finds a user by email through the two-tier user cache.
+   * The returned user is a detached snapshot and must not be used for writes.
+   *
+   * @param email user email
+   * @return the user, if it exists
+   */
   public Optional<User> findByEmail(String email) {
-    return userRepository.findByEmail(email);
+    return userCacheService.findByEmail(email);
   }
 }
@@ -0,0 +1,61 @@
+package com.example.demo.service;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Short-lived storage for hashed one-time verification codes, one per user, and for the last
+ * authenticator-app time step each user redeemed.
+ * Implementations must make {@link #validate} and {@link #markStepUsed} atomic: a code is
+ * consumed at most once, the failed attempts counted against it are capped, and a time step
+ * is accepted at most once.
+ */
+public interface VerificationCodeStore {
+
+  /**
+   * Outcome of a validation.
+   */
+  enum Result {
+    VALID,
+    INVALID,
+    LOCKED,
+    MISSING
+  }
+
+  /**
+   * Stores a code, replacing any previous one and resetting its attempt counter.
+   *
+   * @param userId   owner of the code
+   * @param codeHash hash of the code
+   * @param ttl      time the code stays valid
+   */
+  void save(UUID userId, String codeHash, Duration ttl);
+
+  /**
+   * Checks a submitted code. A matching code is removed; so is a code whose attempts
+   * are exhausted.
+   *
+   * @param userId      owner of the code
+   * @param codeHash    hash of the submitted code
+   * @param maxAttempts failed attempts allowed before the code is discarded
+   * @return the validation outcome
+   */
+  Result validate(UUID userId, String codeHash, int maxAttempts);
+
+  /**
+   * Records that the user redeemed an authenticator-app time step.
+   *
+   * @param userId owner of the step
+   * @param step   time step matched by the submitted code
+   * @param ttl    time the step must be remembered
+   * @return false if this step or a later one was already redeemed
+   */
+  boolean markStepUsed(UUID userId, long step, Duration ttl);
+
+  /**
+   * Removes the user's code, if any.
+   *
+   * @param userId owner of the code
+   */
+  void delete(UUID userId);
+}
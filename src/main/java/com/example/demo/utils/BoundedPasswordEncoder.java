@@ -0,0 +1,51 @@
+package com.example.demo.utils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * {@link PasswordEncoder} decorator that runs every hash and verification on the
+ * {@link PasswordHashingExecutor}, so hashing cost is bounded by the pool size no matter
+ * which thread asks for it. Hash latency is published as {@code password.hashing.latency}.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+  private final PasswordEncoder delegate;
+  private final PasswordHashingExecutor executor;
+  private final Timer encodeTimer;
+  private final Timer matchesTimer;
+
+  /**
+   * Creates the decorator.
+   *
+   * @param delegate      encoder doing the actual hashing
+   * @param executor      pool the hashing runs on
+   * @param meterRegistry registry for hash-latency metrics
+   */
+  public BoundedPasswordEncoder(
+          PasswordEncoder delegate,
+          PasswordHashingExecutor executor,
+          MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    this.executor = executor;
+    this.encodeTimer = meterRegistry.timer("password.hashing.latency", "operation", "encode");
+    this.matchesTimer = meterRegistry.timer("password.hashing.latency", "operation", "matches");
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return executor.call(() -> encodeTimer.record(() -> delegate.encode(rawPassword)));
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return executor.call(() -> matchesTimer.record(
+            () -> delegate.matches(rawPassword, encodedPassword)));
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    return delegate.upgradeEncoding(encodedPassword);
+  }
+}
@@ -51,6 +51,7 @@ public class CustomOauth2UserService extends DefaultOAuth2UserService {
       customAttributes.put("userId", user.getId());
       customAttributes.put("role", user.getRole().name());
       customAttributes.put("twoFactorEnabled", user.isTwoFactorEnabled());
+      customAttributes.put("tokenVersion", user.getTokenVersion());
     });
 
     return new DefaultOAuth2User(oauth2User.getAuthorities(), customAttributes, "email");
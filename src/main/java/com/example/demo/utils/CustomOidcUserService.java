@@ -53,6 +53,7 @@ public class CustomOidcUserService extends OidcUserService {
       attributes.put("userId", user.getId());
       attributes.put("role", user.getRole().name());
       attributes.put("twoFactorEnabled", user.isTwoFactorEnabled());
+      attributes.put("tokenVersion", user.getTokenVersion());
       System.out.println(user.isTwoFactorEnabled());
     });
 
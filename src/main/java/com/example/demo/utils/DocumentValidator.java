@@ -0,0 +1,169 @@
+package com.example.demo.utils;
+
+import com.example.demo.exception.BadRequestException;
+import com.example.demo.exception.FileUploadException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Locale;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * Checks that a company document really is the PDF or Word file its name claims, by its
+ * content rather than the client-supplied type. The signature is read from the first bytes
+ * of the file: {@code %PDF-} for PDF, the OLE2 compound file header for DOC and a ZIP local
+ * file header for DOCX. For DOCX the ZIP central directory is read from the end of the
+ * file and must list {@code [Content_Types].xml} and {@code word/document.xml}.
+ * Only the header and the central directory are read, never the whole document, so the
+ * check runs before any remote upload at the cost of a couple of small reads.
+ */
+@Component
+public class DocumentValidator {
+
+  /**
+   * Number of leading bytes needed to recognize a document.
+   */
+  public static final int SIGNATURE_LENGTH = 8;
+
+  private static final byte[] PDF = "%PDF-".getBytes(StandardCharsets.US_ASCII);
+  private static final byte[] OLE2 = {
+    (byte) 0xD0, (byte) 0xCF, 0x11, (byte) 0xE0, (byte) 0xA1, (byte) 0xB1, 0x1A, (byte) 0xE1
+  };
+  private static final byte[] ZIP = {'P', 'K', 3, 4};
+
+  private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+  private static final int CENTRAL_DIRECTORY_ENTRY = 0x02014b50;
+  private static final int END_OF_CENTRAL_DIRECTORY_LENGTH = 22;
+  private static final int MAX_ZIP_COMMENT_LENGTH = 0xFFFF;
+  private static final int MAX_CENTRAL_DIRECTORY_SIZE = 1024 * 1024;
+
+  private static final String INVALID_DOCUMENT =
+          "El contenido del archivo no corresponde a un PDF o Word (.doc, .docx)";
+
+  /**
+   * Checks the leading bytes of a document against the signature its extension calls for.
+   * Enough for PDF and DOC; DOCX also needs {@link #validate} once the file is complete.
+   *
+   * @param fileName name of the document, whose extension sets the expected type
+   * @param head     first bytes of the document, at least {@link #SIGNATURE_LENGTH} unless
+   *                 the document is shorter
+   * @throws BadRequestException if the content does not match the extension
+   */
+  public void checkSignature(String fileName, byte[] head) {
+    byte[] expected = switch (extension(fileName)) {
+      case "pdf" -> PDF;
+      case "doc" -> OLE2;
+      case "docx" -> ZIP;
+      default -> throw new BadRequestException(
+              "Solo se permiten archivos PDF o Word (.doc, .docx)");
+    };
+    if (head.length < expected.length
+            || !Arrays.equals(head, 0, expected.length, expected, 0, expected.length)) {
+      throw new BadRequestException(INVALID_DOCUMENT);
+    }
+  }
+
+  /**
+   * Checks a complete document on disk: its signature and, for DOCX, the ZIP structure.
+   *
+   * @param fileName name of the document, whose extension sets the expected type
+   * @param file     document to check
+   * @throws BadRequestException if the content does not match the extension
+   * @throws FileUploadException if the file cannot be read
+   */
+  public void validate(String fileName, Path file) {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      checkSignature(fileName, readHead(channel));
+      if ("docx".equals(extension(fileName)) && !isWordPackage(channel)) {
+        throw new BadRequestException(INVALID_DOCUMENT);
+      }
+    } catch (IOException e) {
+      throw new FileUploadException("Error al leer el archivo", e);
+    }
+  }
+
+  /**
+   * Reads the leading bytes of a document on disk.
+   *
+   * @param channel open document
+   * @return up to {@link #SIGNATURE_LENGTH} leading bytes
+   * @throws IOException if the file cannot be read
+   */
+  public static byte[] readHead(FileChannel channel) throws IOException {
+    ByteBuffer head = ByteBuffer.allocate(SIGNATURE_LENGTH);
+    int read = 0;
+    while (head.hasRemaining() && read >= 0) {
+      read = channel.read(head, head.position());
+    }
+    return Arrays.copyOf(head.array(), head.position());
+  }
+
+  /**
+   * Looks up the end of central directory record in the file tail and walks the entry
+   * names, so only the directory is read and nothing is inflated.
+   */
+  private static boolean isWordPackage(FileChannel channel) throws IOException {
+    long size = channel.size();
+    int tailLength =
+            (int) Math.min(size, END_OF_CENTRAL_DIRECTORY_LENGTH + MAX_ZIP_COMMENT_LENGTH);
+    ByteBuffer tail = read(channel, size - tailLength, tailLength);
+    int end = -1;
+    for (int i = tailLength - END_OF_CENTRAL_DIRECTORY_LENGTH; i >= 0; i--) {
+      if (tail.getInt(i) == END_OF_CENTRAL_DIRECTORY) {
+        end = i;
+        break;
+      }
+    }
+    if (end < 0) {
+      return false;
+    }
+    long directorySize = Integer.toUnsignedLong(tail.getInt(end + 12));
+    long directoryOffset = Integer.toUnsignedLong(tail.getInt(end + 16));
+    if (directorySize > MAX_CENTRAL_DIRECTORY_SIZE || directoryOffset + directorySize > size) {
+      return false;
+    }
+
+    ByteBuffer directory = read(channel, directoryOffset, (int) directorySize);
+    boolean contentTypes = false;
+    boolean document = false;
+    int position = 0;
+    while (position + 46 <= directory.limit()
+            && directory.getInt(position) == CENTRAL_DIRECTORY_ENTRY) {
+      int nameLength = Short.toUnsignedInt(directory.getShort(position + 28));
+      int extraLength = Short.toUnsignedInt(directory.getShort(position + 30));
+      int commentLength = Short.toUnsignedInt(directory.getShort(position + 32));
+      if (position + 46 + nameLength > directory.limit()) {
+        return false;
+      }
+      String name = new String(directory.array(), position + 46, nameLength,
+              StandardCharsets.UTF_8);
+      contentTypes |= name.equals("[Content_Types].xml");
+      document |= name.equals("word/document.xml");
+      position += 46 + nameLength + extraLength + commentLength;
+    }
+    return contentTypes && document;
+  }
+
+  private static ByteBuffer read(FileChannel channel, long position, int length)
+          throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        break;
+      }
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  private static String extension(String fileName) {
+    String extension = StringUtils.getFilenameExtension(fileName);
+    return extension != null ? extension.toLowerCase(Locale.ROOT) : "";
+  }
+}
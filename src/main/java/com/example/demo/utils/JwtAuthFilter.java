@@ -1,7 +1,9 @@
 package com.example.demo.utils;
 
+import com.example.demo.entity.User;
 import com.example.demo.exception.InvalidTokenException;
 import com.example.demo.exception.UnauthorizedException;
+import com.example.demo.service.TokenVersionService;
 import com.example.demo.service.UserService;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
@@ -14,6 +16,7 @@ import java.util.List;
 
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -27,6 +30,9 @@ import org.springframework.web.filter.OncePerRequestFilter;
  * authentication is set in Spring Security's context.
  * This filter is executed once per request and ensures that only users with
  * a valid token can access protected resources.
+ * When {@code jwt.stateless-principal.enabled} is true the principal is built
+ * from the token claims instead of loading the user from the database, and
+ * revoked tokens are detected through {@link TokenVersionService}.
  */
 @Component
 @RequiredArgsConstructor
@@ -34,6 +40,11 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
   private final JwtService jwtService;
   private final UserService userDetailsService;
+  private final TokenVersionService tokenVersionService;
+
+  @Value("${jwt.stateless-principal.enabled:false}")
+  private boolean statelessPrincipal;
+
   private static final List<String> PUBLIC_URLS = List.of(
           "/auth/login",
           "/auth/register",
@@ -72,22 +83,32 @@ public class JwtAuthFilter extends OncePerRequestFilter {
     final String token = authHeader.substring(7);
 
     try {
-      final String username = jwtService.extractUsername(token);
+      final VerifiedToken verifiedToken = jwtService.verify(token);
+      final String username = verifiedToken.subject();
 
       if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
-        if (!jwtService.isTokenValid(token, userDetails)) {
-          System.out.println("TOKEN MALO >;C");
-          throw new InvalidTokenException("Token inválido");
-        }
-        Boolean twoFaPending = jwtService.extractTwoFaPending(token);
-
         boolean is2FaVerificationEndpoint = path.equals("/api/auth/2fa/validate");
-        if (Boolean.TRUE.equals(twoFaPending) && !is2FaVerificationEndpoint) {
+        if (verifiedToken.twoFaPending() && !is2FaVerificationEndpoint) {
           throw new UnauthorizedException("2FA verification required");
         }
 
+        UserDetails userDetails;
+        if (statelessPrincipal) {
+          if (!tokenVersionService.isCurrent(verifiedToken.userId(), verifiedToken.tokenVersion())) {
+            throw new InvalidTokenException("Token revocado");
+          }
+          userDetails = JwtPrincipal.from(verifiedToken);
+        } else {
+          userDetails = userDetailsService.loadUserByUsername(username);
+          if (!jwtService.isTokenValid(verifiedToken, userDetails)) {
+            System.out.println("TOKEN MALO >;C");
+            throw new InvalidTokenException("Token inválido");
+          }
+          if (userDetails instanceof User user
+                  && user.getTokenVersion() != verifiedToken.tokenVersion()) {
+            throw new InvalidTokenException("Token revocado");
+          }
+        }
 
         UsernamePasswordAuthenticationToken authToken =
                 new UsernamePasswordAuthenticationToken(
@@ -0,0 +1,54 @@
+package com.example.demo.utils;
+
+import com.example.demo.constant.Role;
+import java.util.Collection;
+import java.util.UUID;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * Lightweight immutable principal built straight from verified JWT claims.
+ * Used by {@link JwtAuthFilter} in stateless mode so authenticated requests
+ * do not need to load the {@code User} entity from the database.
+ *
+ * @param id               user identifier
+ * @param email            user email, also used as username
+ * @param role             user role at token issue time
+ * @param twoFactorEnabled whether 2FA was enabled at token issue time
+ */
+public record JwtPrincipal(
+        UUID id,
+        String email,
+        Role role,
+        boolean twoFactorEnabled) implements UserDetails {
+
+  /**
+   * Builds the principal from a verified token.
+   *
+   * @param token verified token
+   * @return principal carrying the token identity
+   * @throws IllegalArgumentException if the role claim is missing or unknown
+   */
+  public static JwtPrincipal from(VerifiedToken token) {
+    return new JwtPrincipal(
+            token.userId(),
+            token.subject(),
+            Role.fromClaim(token.role()),
+            token.twoFaEnabled());
+  }
+
+  @Override
+  public Collection<? extends GrantedAuthority> getAuthorities() {
+    return role.getAuthorities();
+  }
+
+  @Override
+  public String getPassword() {
+    return null;
+  }
+
+  @Override
+  public String getUsername() {
+    return email;
+  }
+}
@@ -3,6 +3,7 @@ package com.example.demo.utils;
 import com.example.demo.dto.auth.JwtDataDto;
 import com.example.demo.exception.ResourceNotFoundException;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -11,6 +12,7 @@ import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
@@ -32,9 +34,12 @@ public class JwtService {
 
   private Key signingKey;
 
+  private JwtParser jwtParser;
+
   /**
-   * Initializes the JWT signing key after injecting the properties.
+   * Initializes the JWT signing key and the shared parser after injecting the properties.
    * Ensures that the secret has at least 32 characters for the HS256 algorithm.
+   * The parser is immutable and thread-safe, so a single instance serves every request.
    */
   @PostConstruct
   public void init() {
@@ -43,6 +48,22 @@ public class JwtService {
               "El secret JWT debe tener al menos 32 caracteres para HS256.");
     }
     this.signingKey = Keys.hmacShaKeyFor(secretKey.getBytes());
+    this.jwtParser = Jwts.parserBuilder()
+            .setSigningKey(signingKey)
+            .build();
+  }
+
+  /**
+   * Parses the token and verifies its signature and expiration exactly once.
+   *
+   * @param token JWT token string
+   * @return typed view of the verified claims
+   * @throws io.jsonwebtoken.ExpiredJwtException if the token is expired
+   * @throws io.jsonwebtoken.JwtException        if the token is malformed or the signature
+   *                                             does not match
+   */
+  public VerifiedToken verify(String token) {
+    return VerifiedToken.from(extractAllClaims(token));
   }
 
   /**
@@ -58,9 +79,32 @@ public class JwtService {
     claims.put("email", d.getEmail());
     claims.put("role", "ROLE_" + d.getRole());
     claims.put("twoFaEnabled", d.isTwoFactorEnabled());
+    claims.put("tokenVersion", d.getTokenVersion());
     return buildToken(claims, d.getEmail(), jwtExpiration);
   }
 
+  /**
+   * Generates the short-lived ticket that proves the password step of a login succeeded.
+   * It only grants access to the 2FA validation endpoint, which redeems it once.
+   *
+   * @param userId       user who passed the password step
+   * @param email        user email, used as subject
+   * @param tokenVersion user token version, so revoking tokens also revokes open tickets
+   * @param ticketId     unique ticket identifier, stored as {@code jti}
+   * @param expiration   ticket lifetime in ms
+   * @return JWT ticket string
+   */
+  public String generateTwoFactorTicket(
+          UUID userId, String email, int tokenVersion, String ticketId, long expiration) {
+    Map<String, Object> claims = new HashMap<>();
+    claims.put("userId", userId);
+    claims.put("email", email);
+    claims.put("twoFaPending", true);
+    claims.put("tokenVersion", tokenVersion);
+    claims.put(Claims.ID, ticketId);
+    return buildToken(claims, email, expiration);
+  }
+
   /**
    * Builds a JWT token with custom claims and expiration.
    *
@@ -114,6 +158,17 @@ public class JwtService {
     return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
   }
 
+  /**
+   * Validates an already verified token against the loaded user without parsing it again.
+   *
+   * @param token       verified token
+   * @param userDetails user details object
+   * @return true if valid
+   */
+  public boolean isTokenValid(VerifiedToken token, UserDetails userDetails) {
+    return token.subject().equals(userDetails.getUsername()) && !token.isExpired();
+  }
+
   /**
    * Checks if the token is expired.
    *
@@ -141,11 +196,7 @@ public class JwtService {
    * @return claims object
    */
   private Claims extractAllClaims(String token) {
-    return Jwts.parserBuilder()
-            .setSigningKey(signingKey)
-            .build()
-            .parseClaimsJws(token)
-            .getBody();
+    return jwtParser.parseClaimsJws(token).getBody();
   }
 
   /**
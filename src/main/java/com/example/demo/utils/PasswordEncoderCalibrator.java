@@ -0,0 +1,46 @@
+package com.example.demo.utils;
+
+import java.time.Duration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * Picks the BCrypt work factor that fits a target per-hash latency on the current host.
+ *
+ * <p>This class cannot be instantiated.</p>
+ */
+public final class PasswordEncoderCalibrator {
+
+  private static final int SAMPLES = 3;
+  private static final String SAMPLE_PASSWORD = "calibration-Password-123!";
+
+  private PasswordEncoderCalibrator() {
+    throw new UnsupportedOperationException("Utility class");
+  }
+
+  /**
+   * Measures BCrypt at the minimum strength and returns the highest strength whose
+   * estimated hash time stays within the target. Each extra cost step doubles the work.
+   *
+   * @param target      target latency per hash
+   * @param minStrength lowest strength allowed, also used for the measurement
+   * @param maxStrength highest strength allowed
+   * @return calibrated strength between {@code minStrength} and {@code maxStrength}
+   */
+  public static int calibrateBcryptStrength(Duration target, int minStrength, int maxStrength) {
+    BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(minStrength);
+    encoder.encode(SAMPLE_PASSWORD);
+    long start = System.nanoTime();
+    for (int i = 0; i < SAMPLES; i++) {
+      encoder.encode(SAMPLE_PASSWORD);
+    }
+    long measured = Math.max(1, (System.nanoTime() - start) / SAMPLES);
+
+    int strength = minStrength;
+    long estimated = measured;
+    while (strength < maxStrength && estimated * 2 <= target.toNanos()) {
+      strength++;
+      estimated *= 2;
+    }
+    return strength;
+  }
+}
@@ -0,0 +1,112 @@
+package com.example.demo.utils;
+
+import com.example.demo.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fixed-size, CPU-bound pool dedicated to password hashing.
+ * Sized to the available cores with a bounded queue; when the queue is full new work
+ * is rejected immediately with a {@link ServiceUnavailableException} (HTTP 503)
+ * instead of piling up on servlet threads during login storms.
+ * Queue depth and pool usage are published as {@code password.hashing.executor.*} metrics.
+ */
+@Component
+public class PasswordHashingExecutor {
+
+  private static final ThreadLocal<Boolean> HASHING_THREAD = ThreadLocal.withInitial(() -> false);
+
+  private final ThreadPoolExecutor executor;
+
+  /**
+   * Creates the pool and registers its metrics.
+   *
+   * @param threads       number of hashing threads, defaults to the available cores
+   * @param queueCapacity maximum number of hashing tasks waiting for a thread
+   * @param meterRegistry registry for queue-depth metrics
+   */
+  public PasswordHashingExecutor(
+          @Value("${password-hashing.threads:0}") int threads,
+          @Value("${password-hashing.queue-capacity:100}") int queueCapacity,
+          MeterRegistry meterRegistry) {
+    int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    AtomicInteger counter = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(
+            poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            task -> {
+              Thread thread = new Thread(() -> {
+                HASHING_THREAD.set(true);
+                task.run();
+              }, "password-hash-" + counter.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+    ExecutorServiceMetrics.monitor(meterRegistry, executor, "password.hashing.executor");
+  }
+
+  /**
+   * Runs the task on the hashing pool without blocking the caller.
+   *
+   * @param <T>  result type
+   * @param task work that hashes or verifies passwords
+   * @return future completed with the task result
+   * @throws ServiceUnavailableException if the hashing queue is full
+   */
+  public <T> CompletableFuture<T> supplyAsync(Supplier<T> task) {
+    try {
+      return CompletableFuture.supplyAsync(task, executor);
+    } catch (RejectedExecutionException e) {
+      throw new ServiceUnavailableException("Servicio saturado, intente nuevamente más tarde");
+    }
+  }
+
+  /**
+   * Runs the task on the hashing pool and waits for it. When already on a hashing
+   * thread the task runs inline so nested calls cannot deadlock the pool.
+   *
+   * @param <T>  result type
+   * @param task work that hashes or verifies passwords
+   * @return task result
+   * @throws ServiceUnavailableException if the hashing queue is full
+   */
+  public <T> T call(Supplier<T> task) {
+    if (isHashingThread()) {
+      return task.get();
+    }
+    try {
+      return supplyAsync(task).join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Returns whether the current thread belongs to the hashing pool.
+   *
+   * @return true on a hashing thread
+   */
+  public boolean isHashingThread() {
+    return HASHING_THREAD.get();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdown();
+  }
+}
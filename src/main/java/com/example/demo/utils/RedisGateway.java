@@ -0,0 +1,222 @@
+package com.example.demo.utils;
+
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.RedisException;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Application-level access to Redis.
+ * Keys and text values are UTF-8 strings and binary values are stored as raw bytes, so
+ * entries stay compact and readable with {@code redis-cli}. Batch helpers send all their
+ * commands in one pipeline. Every operation is timed in {@code redis.client.latency},
+ * tagged by operation, and exceptions are propagated as Spring
+ * {@link org.springframework.dao.DataAccessException}s.
+ */
+@Component
+public class RedisGateway {
+
+  private static final RedisSerializer<Long> LONG_SERIALIZER =
+          new GenericToStringSerializer<>(Long.class);
+
+  private final RedisTemplate<String, String> redisTemplate;
+  private final RedisTemplate<String, byte[]> binaryRedisTemplate;
+  private final MeterRegistry meterRegistry;
+  private final Duration commandTimeout;
+  private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+  /**
+   * Creates the gateway.
+   *
+   * @param redisTemplate       template with UTF-8 string keys and values
+   * @param binaryRedisTemplate template with UTF-8 string keys and byte array values
+   * @param meterRegistry       registry for client-side latency metrics
+   * @param commandTimeout      maximum time to wait for the replies of a pipeline
+   */
+  public RedisGateway(
+          RedisTemplate<String, String> redisTemplate,
+          RedisTemplate<String, byte[]> binaryRedisTemplate,
+          MeterRegistry meterRegistry,
+          @Value("${redis.command-timeout:2s}") Duration commandTimeout) {
+    this.redisTemplate = redisTemplate;
+    this.binaryRedisTemplate = binaryRedisTemplate;
+    this.meterRegistry = meterRegistry;
+    this.commandTimeout = commandTimeout;
+  }
+
+  public String get(String key) {
+    return timed("get", () -> redisTemplate.opsForValue().get(key));
+  }
+
+  public void set(String key, String value, Duration ttl) {
+    timed("set", () -> {
+      redisTemplate.opsForValue().set(key, value, ttl);
+      return null;
+    });
+  }
+
+  public byte[] getBytes(String key) {
+    return timed("get", () -> binaryRedisTemplate.opsForValue().get(key));
+  }
+
+  public void setBytes(String key, byte[] value, Duration ttl) {
+    timed("set", () -> {
+      binaryRedisTemplate.opsForValue().set(key, value, ttl);
+      return null;
+    });
+  }
+
+  /**
+   * Stores a binary value only if the key does not exist yet.
+   *
+   * @param key   key to write
+   * @param value value to store
+   * @param ttl   time to live of the key
+   * @return true if the value was stored
+   */
+  public boolean setBytesIfAbsent(String key, byte[] value, Duration ttl) {
+    return Boolean.TRUE.equals(timed("set_nx",
+            () -> binaryRedisTemplate.opsForValue().setIfAbsent(key, value, ttl)));
+  }
+
+  public void delete(String key) {
+    timed("delete", () -> redisTemplate.delete(key));
+  }
+
+  public void publish(String channel, String message) {
+    timed("publish", () -> {
+      redisTemplate.convertAndSend(channel, message);
+      return null;
+    });
+  }
+
+  /**
+   * Runs a Lua script returning an integer. Keys and arguments are sent as UTF-8 strings.
+   *
+   * @param script script to run, cached server-side by its SHA-1
+   * @param keys   keys the script touches
+   * @param args   script arguments
+   * @return the integer returned by the script
+   */
+  public Long eval(RedisScript<Long> script, List<String> keys, Object... args) {
+    return timed("eval", () -> redisTemplate.execute(
+            script, RedisSerializer.string(), LONG_SERIALIZER, keys, args));
+  }
+
+  /**
+   * Runs a Lua script returning a binary value. Keys and arguments are sent as UTF-8 strings.
+   *
+   * @param script script to run, cached server-side by its SHA-1
+   * @param keys   keys the script touches
+   * @param args   script arguments
+   * @return the raw bytes returned by the script, or null for a nil reply
+   */
+  public byte[] evalBytes(RedisScript<byte[]> script, List<String> keys, Object... args) {
+    return timed("eval", () -> binaryRedisTemplate.execute(
+            script, RedisSerializer.string(), RedisSerializer.byteArray(), keys, args));
+  }
+
+  /**
+   * Reads several keys in one pipeline. Unlike {@code MGET} this also works when the keys
+   * live on different cluster slots.
+   *
+   * @param keys keys to read
+   * @return values in key order, {@code null} for missing keys
+   */
+  public List<String> getAll(List<String> keys) {
+    if (keys.isEmpty()) {
+      return List.of();
+    }
+    return timed("get_all", () -> pipelined(commands -> {
+      List<RedisFuture<byte[]>> futures = new ArrayList<>(keys.size());
+      for (String key : keys) {
+        futures.add(commands.get(encode(key)));
+      }
+      return futures;
+    }).stream().map(RedisGateway::decode).toList());
+  }
+
+  /**
+   * Writes several keys with the same TTL in one pipeline.
+   *
+   * @param values key to value mapping
+   * @param ttl    time to live of every key
+   */
+  public void setAll(Map<String, String> values, Duration ttl) {
+    if (values.isEmpty()) {
+      return;
+    }
+    SetArgs expiration = SetArgs.Builder.px(ttl.toMillis());
+    timed("set_all", () -> pipelined(commands -> {
+      List<RedisFuture<String>> futures = new ArrayList<>(values.size());
+      values.forEach((key, value) ->
+              futures.add(commands.set(encode(key), encode(value), expiration)));
+      return futures;
+    }));
+  }
+
+  /**
+   * Issues the commands on the shared native connection without waiting between them,
+   * then waits for all replies. Spring's {@code executePipelined} would open a dedicated
+   * connection per call instead.
+   */
+  @SuppressWarnings("unchecked")
+  private <T> List<T> pipelined(
+          Function<RedisClusterAsyncCommands<byte[], byte[]>, List<RedisFuture<T>>> commands) {
+    return redisTemplate.execute((RedisCallback<List<T>>) connection -> {
+      List<RedisFuture<T>> futures = commands.apply(
+              (RedisClusterAsyncCommands<byte[], byte[]>) connection.getNativeConnection());
+      try {
+        if (!LettuceFutures.awaitAll(commandTimeout, futures.toArray(RedisFuture[]::new))) {
+          throw new QueryTimeoutException("Redis pipeline timed out");
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        for (RedisFuture<T> future : futures) {
+          results.add(future.get());
+        }
+        return results;
+      } catch (RedisException | ExecutionException e) {
+        throw new RedisSystemException("Redis pipeline failed", e);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RedisSystemException("Redis pipeline interrupted", e);
+      }
+    });
+  }
+
+  private <T> T timed(String operation, Supplier<T> command) {
+    return timers.computeIfAbsent(operation, name -> Timer.builder("redis.client.latency")
+                    .tag("operation", name)
+                    .register(meterRegistry))
+            .record(command);
+  }
+
+  private static byte[] encode(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static String decode(byte[] value) {
+    return value == null ? null : new String(value, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,45 @@
+package com.example.demo.utils;
+
+import java.util.UUID;
+
+/**
+ * Naming scheme for every Redis key used by the application.
+ * The part of a key inside braces is its Redis Cluster hash tag: all keys of the same user
+ * share it, so they live on the same slot and scripts may touch several of them at once.
+ *
+ * <p>This class cannot be instantiated.</p>
+ */
+public final class RedisKeys {
+
+  private RedisKeys() {
+    throw new UnsupportedOperationException("Utility class");
+  }
+
+  /**
+   * Hash holding the hashed email 2FA code and its failed-attempt counter.
+   */
+  public static String twoFactorCode(UUID userId) {
+    return "2fa:{" + userId + "}:code";
+  }
+
+  /**
+   * Last authenticator-app time step redeemed by the user.
+   */
+  public static String totpStep(UUID userId) {
+    return "2fa:{" + userId + "}:totp-step";
+  }
+
+  /**
+   * Current token version of the user.
+   */
+  public static String tokenVersion(UUID userId) {
+    return "token-version:{" + userId + "}";
+  }
+
+  /**
+   * Cached user snapshot, looked up by email before the user id is known.
+   */
+  public static String userByEmail(String email) {
+    return "user:email:{" + email + "}";
+  }
+}
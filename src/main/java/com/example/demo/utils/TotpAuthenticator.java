@@ -0,0 +1,191 @@
+package com.example.demo.utils;
+
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * RFC 6238 time-based one-time passwords (HMAC-SHA1, 6 digits, 30 second steps),
+ * computed in-process so authenticator-app users need no external I/O for the second factor.
+ * Each thread reuses its own {@link Mac} instance. Codes are accepted within a configurable
+ * number of steps of clock skew. This class is stateless: replay protection and attempt limits
+ * are enforced by the caller through the shared
+ * {@link com.example.demo.service.VerificationCodeStore}, so they hold across replicas.
+ */
+@Component
+public class TotpAuthenticator {
+
+  private static final String ALGORITHM = "HmacSHA1";
+  private static final int DIGITS = 6;
+  private static final int MODULUS = 1_000_000;
+  private static final long PERIOD_SECONDS = 30;
+  private static final int SECRET_BYTES = 20;
+  private static final char[] BASE32 = "ABCDEFGHIJKLMNOPQRSTUVWXYZ234567".toCharArray();
+
+  private static final ThreadLocal<Mac> MAC = ThreadLocal.withInitial(() -> {
+    try {
+      return Mac.getInstance(ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(ALGORITHM + " not available", e);
+    }
+  });
+
+  private final SecureRandom random = new SecureRandom();
+  private final Clock clock;
+  private final int skewSteps;
+  private final String issuer;
+
+  /**
+   * Creates the authenticator.
+   *
+   * @param skewSteps number of 30 second steps accepted before and after the current one
+   * @param issuer    issuer name shown by authenticator apps
+   */
+  @Autowired
+  public TotpAuthenticator(
+          @Value("${two-factor.totp.skew-steps:1}") int skewSteps,
+          @Value("${two-factor.totp.issuer:Demo}") String issuer) {
+    this(Clock.systemUTC(), skewSteps, issuer);
+  }
+
+  TotpAuthenticator(Clock clock, int skewSteps, String issuer) {
+    this.clock = clock;
+    this.skewSteps = skewSteps;
+    this.issuer = issuer;
+  }
+
+  /**
+   * Generates a new random shared secret.
+   *
+   * @return Base32-encoded secret
+   */
+  public String generateSecret() {
+    byte[] secret = new byte[SECRET_BYTES];
+    random.nextBytes(secret);
+    return encodeBase32(secret);
+  }
+
+  /**
+   * Builds the {@code otpauth://} URI that authenticator apps read from a QR code.
+   *
+   * @param account account label, usually the user's email
+   * @param secret  Base32-encoded secret
+   * @return provisioning URI
+   */
+  public String provisioningUri(String account, String secret) {
+    String label = encode(issuer) + ":" + encode(account);
+    return "otpauth://totp/" + label
+            + "?secret=" + secret
+            + "&issuer=" + encode(issuer)
+            + "&algorithm=SHA1&digits=" + DIGITS
+            + "&period=" + PERIOD_SECONDS;
+  }
+
+  /**
+   * Finds the time step a code was generated for, within the accepted clock skew.
+   *
+   * @param secret Base32-encoded secret
+   * @param code   code submitted by the user
+   * @return the matching time step, or -1 if the code does not match
+   */
+  public long matchStep(String secret, String code) {
+    long currentStep = clock.millis() / 1000 / PERIOD_SECONDS;
+    byte[] key = decodeBase32(secret);
+    byte[] submitted = normalize(code);
+    long matchedStep = -1;
+    for (long step = currentStep - skewSteps; step <= currentStep + skewSteps; step++) {
+      byte[] expected = String.format("%0" + DIGITS + "d", generate(key, step))
+              .getBytes(StandardCharsets.US_ASCII);
+      if (MessageDigest.isEqual(expected, submitted)) {
+        matchedStep = step;
+      }
+    }
+    return matchedStep;
+  }
+
+  /**
+   * Time a used step must be remembered to reject its replay within the accepted skew.
+   *
+   * @return replay window
+   */
+  public Duration replayWindow() {
+    return Duration.ofSeconds(PERIOD_SECONDS * (2L * skewSteps + 2));
+  }
+
+  /**
+   * Computes the code for a given time step (RFC 4226 dynamic truncation).
+   */
+  int generate(byte[] key, long step) {
+    Mac mac = MAC.get();
+    try {
+      mac.init(new SecretKeySpec(key, ALGORITHM));
+    } catch (InvalidKeyException e) {
+      throw new IllegalStateException("Invalid TOTP secret", e);
+    }
+    byte[] hash = mac.doFinal(ByteBuffer.allocate(Long.BYTES).putLong(step).array());
+    int offset = hash[hash.length - 1] & 0x0f;
+    int binary = ((hash[offset] & 0x7f) << 24)
+            | ((hash[offset + 1] & 0xff) << 16)
+            | ((hash[offset + 2] & 0xff) << 8)
+            | (hash[offset + 3] & 0xff);
+    return binary % MODULUS;
+  }
+
+  private static byte[] normalize(String code) {
+    return code == null ? new byte[0] : code.trim().getBytes(StandardCharsets.US_ASCII);
+  }
+
+  private static String encode(String value) {
+    return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+  }
+
+  static String encodeBase32(byte[] data) {
+    StringBuilder result = new StringBuilder((data.length * 8 + 4) / 5);
+    int buffer = 0;
+    int bits = 0;
+    for (byte b : data) {
+      buffer = (buffer << 8) | (b & 0xff);
+      bits += 8;
+      while (bits >= 5) {
+        result.append(BASE32[(buffer >> (bits - 5)) & 0x1f]);
+        bits -= 5;
+      }
+    }
+    if (bits > 0) {
+      result.append(BASE32[(buffer << (5 - bits)) & 0x1f]);
+    }
+    return result.toString();
+  }
+
+  static byte[] decodeBase32(String value) {
+    String normalized = value.replace("=", "").replace(" ", "").toUpperCase();
+    byte[] result = new byte[normalized.length() * 5 / 8];
+    int buffer = 0;
+    int bits = 0;
+    int index = 0;
+    for (char c : normalized.toCharArray()) {
+      int digit = c >= 'A' && c <= 'Z' ? c - 'A' : c >= '2' && c <= '7' ? c - '2' + 26 : -1;
+      if (digit < 0) {
+        throw new IllegalArgumentException("Invalid Base32 character: " + c);
+      }
+      buffer = (buffer << 5) | digit;
+      bits += 5;
+      if (bits >= 8) {
+        result[index++] = (byte) (buffer >> (bits - 8));
+        bits -= 8;
+      }
+    }
+    return result;
+  }
+}
@@ -0,0 +1,102 @@
+package com.example.demo.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Encrypts TOTP shared secrets before they are stored, with AES-256-GCM and a random IV
+ * per value. The key is derived from {@code two-factor.totp.encryption-key}, or from the JWT
+ * secret when no dedicated key is configured. Stored values carry a version prefix, and a
+ * value without it is rejected rather than used as a plaintext secret.
+ */
+@Component
+public class TotpSecretCipher {
+
+  private static final String PREFIX = "v1:";
+  private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+  private static final int IV_BYTES = 12;
+  private static final int TAG_BITS = 128;
+
+  private final SecureRandom random = new SecureRandom();
+  private final SecretKey key;
+
+  /**
+   * Creates the cipher.
+   *
+   * @param encryptionKey dedicated key material, may be blank
+   * @param jwtSecret     JWT secret, used to derive the key when no dedicated key is set
+   */
+  public TotpSecretCipher(
+          @Value("${two-factor.totp.encryption-key:}") String encryptionKey,
+          @Value("${jwt.secret}") String jwtSecret) {
+    String material = encryptionKey.isBlank() ? "totp-secret:" + jwtSecret : encryptionKey;
+    this.key = new SecretKeySpec(sha256(material), "AES");
+  }
+
+  /**
+   * Encrypts a secret for storage.
+   *
+   * @param secret Base32-encoded secret
+   * @return versioned ciphertext, or null if the secret is null
+   */
+  public String encrypt(String secret) {
+    if (secret == null) {
+      return null;
+    }
+    byte[] iv = new byte[IV_BYTES];
+    random.nextBytes(iv);
+    try {
+      Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+      cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+      byte[] encrypted = cipher.doFinal(secret.getBytes(StandardCharsets.US_ASCII));
+      return PREFIX + Base64.getEncoder().encodeToString(
+              ByteBuffer.allocate(iv.length + encrypted.length).put(iv).put(encrypted).array());
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("No se pudo cifrar el secreto TOTP", e);
+    }
+  }
+
+  /**
+   * Decrypts a stored secret.
+   *
+   * @param stored value read from the database
+   * @return Base32-encoded secret, or null if nothing is stored
+   * @throws IllegalStateException if the value is not a ciphertext from this class
+   */
+  public String decrypt(String stored) {
+    if (stored == null) {
+      return null;
+    }
+    if (!stored.startsWith(PREFIX)) {
+      throw new IllegalStateException("El secreto TOTP almacenado no está cifrado");
+    }
+    byte[] data = Base64.getDecoder().decode(stored.substring(PREFIX.length()));
+    try {
+      Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+      cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, data, 0, IV_BYTES));
+      return new String(cipher.doFinal(data, IV_BYTES, data.length - IV_BYTES),
+              StandardCharsets.US_ASCII);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("No se pudo descifrar el secreto TOTP", e);
+    }
+  }
+
+  private static byte[] sha256(String value) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package com.example.demo.utils;
+
+import com.example.demo.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded pool dedicated to moving file bytes to the storage provider, so slow uploads
+ * never hold servlet threads. When the queue is full new uploads are rejected immediately
+ * with a {@link ServiceUnavailableException} (HTTP 503).
+ * Pool usage is published as {@code upload.executor.*} metrics and rejections as
+ * {@code upload.executor.rejected}.
+ *
+ * <p>It is deliberately not exposed as an {@code Executor} bean: that would make Spring Boot
+ * back off from the {@code applicationTaskExecutor} other components rely on.</p>
+ */
+@Component
+public class UploadExecutor {
+
+  private final ThreadPoolExecutor executor;
+  private final Counter rejected;
+
+  /**
+   * Creates the pool and registers its metrics.
+   *
+   * @param threads       number of upload threads
+   * @param queueCapacity maximum number of uploads waiting for a thread
+   * @param meterRegistry registry for pool and rejection metrics
+   */
+  public UploadExecutor(
+          @Value("${upload.executor.threads:16}") int threads,
+          @Value("${upload.executor.queue-capacity:100}") int queueCapacity,
+          MeterRegistry meterRegistry) {
+    AtomicInteger counter = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(
+            threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            task -> {
+              Thread thread = new Thread(task, "upload-" + counter.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+    this.rejected = meterRegistry.counter("upload.executor.rejected");
+    ExecutorServiceMetrics.monitor(meterRegistry, executor, "upload.executor");
+  }
+
+  /**
+   * Runs the upload on the pool without blocking the caller.
+   *
+   * @param <T>  result type
+   * @param task upload work
+   * @return future completed with the task result
+   * @throws ServiceUnavailableException if the upload queue is full
+   */
+  public <T> CompletableFuture<T> supplyAsync(Supplier<T> task) {
+    try {
+      return CompletableFuture.supplyAsync(task, executor);
+    } catch (RejectedExecutionException e) {
+      rejected.increment();
+      throw new ServiceUnavailableException(
+              "Demasiadas subidas en curso, intente nuevamente más tarde");
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdown();
+  }
+}
@@ -0,0 +1,59 @@
+package com.example.demo.utils;
+
+import io.jsonwebtoken.Claims;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Immutable view of a JWT whose signature and expiration have already been verified.
+ * Built once per request by {@link JwtService#verify(String)} so callers can read
+ * every claim they need without parsing the token again.
+ *
+ * @param subject      token subject (user email)
+ * @param expiration   expiration date
+ * @param role         role claim as issued (e.g. {@code ROLE_USER}), may be null
+ * @param userId       user identifier claim, may be null
+ * @param twoFaPending whether the token was issued before completing 2FA
+ * @param twoFaEnabled whether the user had 2FA enabled when the token was issued
+ * @param tokenVersion user token version at issue time, 0 for tokens issued without it
+ * @param claims       raw claims, for any claim not exposed as a typed field
+ */
+public record VerifiedToken(
+        String subject,
+        Date expiration,
+        String role,
+        UUID userId,
+        boolean twoFaPending,
+        boolean twoFaEnabled,
+        int tokenVersion,
+        Claims claims) {
+
+  /**
+   * Builds a verified token view from already verified claims.
+   *
+   * @param claims claims returned by the signature-checking parser
+   * @return typed view of the claims
+   */
+  static VerifiedToken from(Claims claims) {
+    String userId = claims.get("userId", String.class);
+    Integer tokenVersion = claims.get("tokenVersion", Integer.class);
+    return new VerifiedToken(
+            claims.getSubject(),
+            claims.getExpiration(),
+            claims.get("role", String.class),
+            userId != null ? UUID.fromString(userId) : null,
+            Boolean.TRUE.equals(claims.get("twoFaPending", Boolean.class)),
+            Boolean.TRUE.equals(claims.get("twoFaEnabled", Boolean.class)),
+            tokenVersion != null ? tokenVersion : 0,
+            claims);
+  }
+
+  /**
+   * Checks if the token is expired at the current time.
+   *
+   * @return true if expired
+   */
+  public boolean isExpired() {
+    return expiration != null && expiration.before(new Date());
+  }
+}
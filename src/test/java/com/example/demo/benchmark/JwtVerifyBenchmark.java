@@ -0,0 +1,104 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.dto.auth.JwtDataDto;
+import com.example.demo.utils.JwtService;
+import com.example.demo.utils.VerifiedToken;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import java.security.Key;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Compares the per-request token work done by {@code JwtAuthFilter} before and after
+ * the single-parse {@link VerifiedToken} API.
+ * Run through {@link #main(String[])} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerifyBenchmark {
+
+  private static final String SECRET = "benchmark-secret-benchmark-secret-0123456789";
+
+  private JwtService jwtService;
+  private Key signingKey;
+  private String token;
+
+  /**
+   * Builds a service and a token shaped like the ones issued at login.
+   */
+  @Setup
+  public void setUp() {
+    jwtService = new JwtService();
+    ReflectionTestUtils.setField(jwtService, "secretKey", SECRET);
+    ReflectionTestUtils.setField(jwtService, "jwtExpiration", 3_600_000L);
+    jwtService.init();
+    signingKey = Keys.hmacShaKeyFor(SECRET.getBytes());
+
+    JwtDataDto data = new JwtDataDto();
+    data.setUuid(UUID.randomUUID());
+    data.setFullname("Benchmark User");
+    data.setEmail("bench@example.com");
+    data.setRole("USER");
+    data.setTwoFactorEnabled(false);
+    token = jwtService.generateToken(data);
+  }
+
+  /**
+   * Previous filter path: subject, subject again, expiration and 2FA claim,
+   * each one through a freshly built parser.
+   */
+  @Benchmark
+  public void legacyFourParses(Blackhole bh) {
+    bh.consume(legacyParse().getSubject());
+    bh.consume(legacyParse().getSubject());
+    bh.consume(legacyParse().getExpiration().before(new Date()));
+    bh.consume(legacyParse().get("twoFaPending", Boolean.class));
+  }
+
+  /**
+   * Current filter path: one verification through the shared parser.
+   */
+  @Benchmark
+  public void verifiedTokenSingleParse(Blackhole bh) {
+    VerifiedToken verified = jwtService.verify(token);
+    bh.consume(verified.subject());
+    bh.consume(verified.isExpired());
+    bh.consume(verified.twoFaPending());
+  }
+
+  private Claims legacyParse() {
+    return Jwts.parserBuilder()
+            .setSigningKey(signingKey)
+            .build()
+            .parseClaimsJws(token)
+            .getBody();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+            .include(JwtVerifyBenchmark.class.getSimpleName())
+            .build()).run();
+  }
+}
@@ -0,0 +1,132 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.config.RedisConfig;
+import com.example.demo.utils.RedisGateway;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import redis.embedded.RedisServer;
+
+/**
+ * Compares a Redis template using the default JDK serialization with the UTF-8 string
+ * template behind {@link RedisGateway}, and sequential reads with the pipelined batch read.
+ * Runs against an embedded Redis server; run through {@link #main(String[])} from the
+ * test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedisSerializationBenchmark {
+
+  private static final int BATCH = 20;
+  private static final Duration TTL = Duration.ofMinutes(5);
+
+  private RedisServer redisServer;
+  private LettuceConnectionFactory connectionFactory;
+  private RedisTemplate<String, String> jdkTemplate;
+  private RedisGateway redisGateway;
+  private List<String> keys;
+
+  /**
+   * Starts Redis and writes the keys read by the benchmarks.
+   */
+  @Setup
+  public void setUp() throws IOException {
+    int port;
+    try (ServerSocket socket = new ServerSocket(0)) {
+      port = socket.getLocalPort();
+    }
+    redisServer = new RedisServer(port);
+    redisServer.start();
+    connectionFactory = new LettuceConnectionFactory(
+            new RedisStandaloneConfiguration("localhost", port));
+    connectionFactory.afterPropertiesSet();
+    connectionFactory.start();
+
+    jdkTemplate = new RedisTemplate<>();
+    jdkTemplate.setConnectionFactory(connectionFactory);
+    jdkTemplate.afterPropertiesSet();
+
+    RedisConfig redisConfig = new RedisConfig();
+    RedisTemplate<String, String> stringTemplate = redisConfig.redisTemplate(connectionFactory);
+    stringTemplate.afterPropertiesSet();
+    RedisTemplate<String, byte[]> binaryTemplate =
+            redisConfig.binaryRedisTemplate(connectionFactory);
+    binaryTemplate.afterPropertiesSet();
+    redisGateway = new RedisGateway(stringTemplate, binaryTemplate, new SimpleMeterRegistry(),
+            Duration.ofSeconds(2));
+
+    keys = new ArrayList<>();
+    Map<String, String> values = new LinkedHashMap<>();
+    for (int i = 0; i < BATCH; i++) {
+      String key = "token-version:" + i;
+      keys.add(key);
+      values.put(key, String.valueOf(i));
+      jdkTemplate.opsForValue().set("jdk:" + key, String.valueOf(i), TTL);
+    }
+    redisGateway.setAll(values, TTL);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    connectionFactory.destroy();
+    redisServer.stop();
+  }
+
+  @Benchmark
+  public void setGetJdkSerialized(Blackhole blackhole) {
+    jdkTemplate.opsForValue().set("jdk:bench", "42", TTL);
+    blackhole.consume(jdkTemplate.opsForValue().get("jdk:bench"));
+  }
+
+  @Benchmark
+  public void setGetUtf8String(Blackhole blackhole) {
+    redisGateway.set("bench", "42", TTL);
+    blackhole.consume(redisGateway.get("bench"));
+  }
+
+  @Benchmark
+  public void readBatchSequentially(Blackhole blackhole) {
+    for (String key : keys) {
+      blackhole.consume(redisGateway.get(key));
+    }
+  }
+
+  @Benchmark
+  public List<String> readBatchPipelined() {
+    return redisGateway.getAll(keys);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+            .include(RedisSerializationBenchmark.class.getSimpleName())
+            .build()).run();
+  }
+}
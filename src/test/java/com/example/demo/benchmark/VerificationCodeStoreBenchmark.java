@@ -0,0 +1,114 @@
+package com.example.demo.benchmark;
+
+import com.example.demo.config.RedisConfig;
+import com.example.demo.service.InMemoryVerificationCodeStore;
+import com.example.demo.service.RedisVerificationCodeStore;
+import com.example.demo.service.VerificationCodeStore;
+import com.example.demo.utils.RedisGateway;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import redis.embedded.RedisServer;
+
+/**
+ * Measures save-then-validate throughput of a 2FA code for the Redis store (against an
+ * embedded Redis server) and the in-process store, with several concurrent users.
+ * Run through {@link #main(String[])} from the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class VerificationCodeStoreBenchmark {
+
+  private static final Duration TTL = Duration.ofMinutes(3);
+
+  @Param({"memory", "redis"})
+  public String store;
+
+  private RedisServer redisServer;
+  private LettuceConnectionFactory connectionFactory;
+  private VerificationCodeStore verificationCodeStore;
+
+  /**
+   * Creates the store under test, starting Redis when needed.
+   */
+  @Setup
+  public void setUp() throws IOException {
+    if ("memory".equals(store)) {
+      verificationCodeStore = new InMemoryVerificationCodeStore(100_000);
+      return;
+    }
+    int port;
+    try (ServerSocket socket = new ServerSocket(0)) {
+      port = socket.getLocalPort();
+    }
+    redisServer = new RedisServer(port);
+    redisServer.start();
+    connectionFactory = new LettuceConnectionFactory(
+            new RedisStandaloneConfiguration("localhost", port));
+    connectionFactory.afterPropertiesSet();
+    connectionFactory.start();
+    RedisConfig redisConfig = new RedisConfig();
+    RedisTemplate<String, String> stringTemplate = redisConfig.redisTemplate(connectionFactory);
+    stringTemplate.afterPropertiesSet();
+    RedisTemplate<String, byte[]> binaryTemplate =
+            redisConfig.binaryRedisTemplate(connectionFactory);
+    binaryTemplate.afterPropertiesSet();
+    verificationCodeStore = new RedisVerificationCodeStore(new RedisGateway(
+            stringTemplate, binaryTemplate, new SimpleMeterRegistry(), Duration.ofSeconds(2)));
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    if (connectionFactory != null) {
+      connectionFactory.destroy();
+      redisServer.stop();
+    }
+  }
+
+  /**
+   * Per-thread user, as each login owns its own code.
+   */
+  @State(Scope.Thread)
+  public static class User {
+    final UUID userId = UUID.randomUUID();
+  }
+
+  @Benchmark
+  public VerificationCodeStore.Result saveAndValidate(User user) {
+    verificationCodeStore.save(user.userId, "hash", TTL);
+    return verificationCodeStore.validate(user.userId, "hash", 5);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder()
+            .include(VerificationCodeStoreBenchmark.class.getSimpleName())
+            .build()).run();
+  }
+}
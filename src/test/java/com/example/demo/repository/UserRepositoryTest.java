@@ -0,0 +1,218 @@
+package com.example.demo.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.demo.config.ApplicationConfig;
+import com.example.demo.constant.CompanyProfileStatus;
+import com.example.demo.constant.Role;
+import com.example.demo.dto.UserProfileResponseDto;
+import com.example.demo.dto.auth.LoginRequestDto;
+import com.example.demo.entity.CompanyProfile;
+import com.example.demo.entity.User;
+import com.example.demo.service.AuthService;
+import com.example.demo.service.CaptchaService;
+import com.example.demo.service.EmailService;
+import com.example.demo.service.PasswordResetService;
+import com.example.demo.service.TokenVersionService;
+import com.example.demo.service.TwoFactorAuthService;
+import com.example.demo.service.UserCacheService;
+import com.example.demo.service.UserService;
+import com.example.demo.utils.JwtService;
+import com.example.demo.utils.PasswordHashingExecutor;
+import com.example.demo.utils.RedisGateway;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+/**
+ * Statement-count regression tests for the user lookups on the authentication and profile paths.
+ */
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN",
+    "jwt.secret=test-secret-test-secret-0123456789abcdef",
+    "jwt.expiration=60000"
+})
+@Import({AuthService.class, UserService.class, UserCacheService.class, JwtService.class,
+    UserRepositoryTest.LoginConfig.class})
+class UserRepositoryTest {
+
+  private static final String PASSWORD = "Secret123!";
+
+  @MockitoBean
+  private RedisGateway redisGateway;
+
+  @MockitoBean
+  private PasswordResetService passwordResetService;
+
+  @MockitoBean
+  private EmailService emailService;
+
+  @MockitoBean
+  private TwoFactorAuthService twoFactorAuthService;
+
+  @MockitoBean
+  private TokenVersionService tokenVersionService;
+
+  @MockitoBean
+  private PasswordHashingExecutor passwordHashingExecutor;
+
+  @MockitoBean
+  private AsyncTaskExecutor applicationTaskExecutor;
+
+  @MockitoBean
+  private CaptchaService captchaService;
+
+  @Autowired
+  private AuthService authService;
+
+  @Autowired
+  private UserService userService;
+
+  @Autowired
+  private JwtService jwtService;
+
+  @Autowired
+  private PasswordEncoder passwordEncoder;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private UserProfileRepository userProfileRepository;
+
+  @Autowired
+  private EntityManager entityManager;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  private Statistics statistics;
+
+  @BeforeEach
+  void setUp() {
+    User user = User.builder()
+            .email("company@example.com")
+            .fullname("Company Owner")
+            .password(passwordEncoder.encode(PASSWORD))
+            .role(Role.USER)
+            .twoFactorEnabled(false)
+            .build();
+    entityManager.persist(user);
+    CompanyProfile profile = CompanyProfile.builder()
+            .tradeName("Trade")
+            .legalName("Legal")
+            .cuit("20123456789")
+            .country("AR")
+            .companyLocation("Buenos Aires")
+            .legalRepresentative("Owner")
+            .fileUrl("https://example.com/file.pdf")
+            .phone("123")
+            .status(CompanyProfileStatus.PENDING)
+            .user(user)
+            .build();
+    entityManager.persist(profile);
+    entityManager.flush();
+    entityManager.clear();
+
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  @Test
+  void findByEmailDoesNotLoadCompanyProfile() {
+    User user = userRepository.findByEmail("company@example.com").orElseThrow();
+
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertFalse(Hibernate.isPropertyInitialized(user, "companyProfile"));
+
+    assertEquals("Trade", user.getCompanyProfile().getTradeName());
+    assertTrue(statistics.getPrepareStatementCount() > 1);
+  }
+
+  @Test
+  void filterLookupDoesNotLoadCompanyProfile() {
+    UserDetails user = userService.loadUserByUsername("company@example.com");
+
+    assertEquals("company@example.com", user.getUsername());
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals(0, statistics.getEntityStatistics(CompanyProfile.class.getName()).getLoadCount());
+  }
+
+  @Test
+  void loginLoadsTheUserWithASingleQuery() {
+    LoginRequestDto request = new LoginRequestDto();
+    request.setEmail("company@example.com");
+    request.setPassword(PASSWORD);
+
+    User user = authService.validateUserCredentials(request);
+    String token = authService.generateJwtToken(user);
+
+    assertEquals("company@example.com", jwtService.verify(token).subject());
+    assertEquals(1, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  void findProfileByEmailUsesSingleQuery() {
+    UserProfileResponseDto profile =
+            userProfileRepository.findProfileByEmail("company@example.com").orElseThrow();
+
+    assertEquals("Trade", profile.getTradeName());
+    assertEquals("123", profile.getPhoneNumber());
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals(0, statistics.getEntityLoadCount());
+  }
+
+  /**
+   * Authentication wiring of the application, with a cheap BCrypt cost for the test.
+   */
+  @TestConfiguration
+  static class LoginConfig {
+
+    @Bean
+    PasswordEncoder passwordEncoder() {
+      return new BCryptPasswordEncoder(4);
+    }
+
+    @Bean
+    AuthenticationManager authenticationManager(
+            UserRepository userRepository, PasswordEncoder passwordEncoder) {
+      DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+      provider.setUserDetailsService(new ApplicationConfig(userRepository).userDetailService());
+      provider.setPasswordEncoder(passwordEncoder);
+      return new ProviderManager(provider);
+    }
+
+    @Bean
+    MeterRegistry meterRegistry() {
+      return new SimpleMeterRegistry();
+    }
+
+    @Bean
+    ObjectMapper objectMapper() {
+      return new ObjectMapper();
+    }
+  }
+}
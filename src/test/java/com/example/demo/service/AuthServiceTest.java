@@ -0,0 +1,140 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+import com.example.demo.constant.Role;
+import com.example.demo.dto.auth.LoginRequestDto;
+import com.example.demo.entity.User;
+import com.example.demo.exception.ForbiddenException;
+import com.example.demo.exception.ServiceUnavailableException;
+import com.example.demo.utils.BoundedPasswordEncoder;
+import com.example.demo.utils.PasswordHashingExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+@ExtendWith(MockitoExtension.class)
+class AuthServiceTest {
+
+  private static final PasswordEncoder ENCODER = new BCryptPasswordEncoder(4);
+  private static final AtomicInteger LOOKUPS = new AtomicInteger();
+  private static final User USER = User.builder()
+          .id(UUID.randomUUID())
+          .email("login@example.com")
+          .fullname("Login User")
+          .password(ENCODER.encode("Secret123!"))
+          .role(Role.USER)
+          .twoFactorEnabled(false)
+          .build();
+
+  @Mock
+  private CaptchaService captchaService;
+
+  @Spy
+  private AsyncTaskExecutor applicationTaskExecutor = new SimpleAsyncTaskExecutor();
+
+  @Spy
+  private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Spy
+  private AuthenticationManager authenticationManager = new ProviderManager(loginProvider());
+
+  @InjectMocks
+  private AuthService authService;
+
+  private static DaoAuthenticationProvider loginProvider() {
+    DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+    provider.setUserDetailsService(email -> {
+      LOOKUPS.incrementAndGet();
+      return USER;
+    });
+    provider.setPasswordEncoder(ENCODER);
+    return provider;
+  }
+
+  @BeforeEach
+  void setUp() {
+    LOOKUPS.set(0);
+  }
+
+  @Test
+  void invalidCaptchaWinsOverCredentialResult() {
+    when(captchaService.verifyAsync(any())).thenReturn(CompletableFuture.completedFuture(false));
+
+    for (String password : new String[] {"Secret123!", "wrong-password"}) {
+      LoginRequestDto request = new LoginRequestDto();
+      request.setEmail(USER.getEmail());
+      request.setPassword(password);
+      request.setRecaptchaToken("token");
+
+      CompletionException error = assertThrows(CompletionException.class,
+              () -> authService.loginAsync(request).join());
+      assertInstanceOf(ForbiddenException.class, error.getCause());
+    }
+    assertEquals(2, LOOKUPS.get());
+    assertEquals(2, meterRegistry.timer("auth.login.stage", "stage", "total").count());
+  }
+
+  @Test
+  void saturatedHashingPoolFailsTheLoginInsteadOfQueueing() throws Exception {
+    when(captchaService.verifyAsync(any())).thenReturn(CompletableFuture.completedFuture(true));
+    PasswordHashingExecutor hashing = new PasswordHashingExecutor(1, 1, meterRegistry);
+    DaoAuthenticationProvider provider = loginProvider();
+    provider.setPasswordEncoder(new BoundedPasswordEncoder(ENCODER, hashing, meterRegistry));
+    AuthenticationManager saturated = new ProviderManager(provider);
+    doAnswer(invocation -> saturated.authenticate(invocation.getArgument(0)))
+            .when(authenticationManager).authenticate(any());
+
+    CountDownLatch release = new CountDownLatch(1);
+    try {
+      // one task holds the only hashing thread and another fills the queue
+      hashing.supplyAsync(() -> awaitQuietly(release));
+      hashing.supplyAsync(() -> awaitQuietly(release));
+
+      LoginRequestDto request = new LoginRequestDto();
+      request.setEmail(USER.getEmail());
+      request.setPassword("Secret123!");
+      request.setRecaptchaToken("token");
+
+      CompletionException error = assertThrows(CompletionException.class,
+              () -> authService.loginAsync(request).join());
+      assertInstanceOf(ServiceUnavailableException.class, error.getCause());
+    } finally {
+      release.countDown();
+      hashing.shutdown();
+    }
+  }
+
+  private static boolean awaitQuietly(CountDownLatch latch) {
+    try {
+      return latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+}
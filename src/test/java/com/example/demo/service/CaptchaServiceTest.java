@@ -0,0 +1,78 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.demo.config.CaptchaConfig;
+import com.example.demo.exception.ServiceUnavailableException;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs the verifier against a local stub of the reCAPTCHA endpoint.
+ */
+class CaptchaServiceTest {
+
+  private HttpServer server;
+  private CaptchaService captchaService;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/ok", exchange -> respond(exchange,
+            "{\"challenge_ts\":\"2024-01-01T00:00:00Z\",\"hostname\":\"x\",\"success\":true}"));
+    server.createContext("/fail", exchange -> respond(exchange,
+            "{\"success\":false,\"error-codes\":[\"invalid-input-response\"]}"));
+    server.createContext("/slow", exchange -> {
+      try {
+        Thread.sleep(1_000);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      respond(exchange, "{\"success\":true}");
+    });
+    server.start();
+  }
+
+  @AfterEach
+  void tearDown() {
+    server.stop(0);
+  }
+
+  @Test
+  void readsSuccessFlag() {
+    assertTrue(service("/ok").verify("token"));
+    assertFalse(service("/fail").verify("token"));
+  }
+
+  @Test
+  void slowEndpointFailsWithServiceUnavailable() {
+    captchaService = service("/slow");
+    assertThrows(ServiceUnavailableException.class, () -> captchaService.verify("token"));
+  }
+
+  private CaptchaService service(String path) {
+    CaptchaConfig config = new CaptchaConfig();
+    config.setSecret("secret");
+    return new CaptchaService(config,
+            "http://127.0.0.1:" + server.getAddress().getPort() + path,
+            Duration.ofMillis(500), Duration.ofMillis(200));
+  }
+
+  private static void respond(com.sun.net.httpserver.HttpExchange exchange, String body)
+          throws IOException {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.sendResponseHeaders(200, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+}
@@ -0,0 +1,213 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.utils.ObjectUtils;
+import com.example.demo.dto.SignedUploadDto;
+import com.example.demo.utils.UploadExecutor;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Uploads large files against a local stub of the Cloudinary upload API and checks that
+ * the memory allocated per upload stays bounded by the chunk size, not the file size.
+ */
+class CloudinaryServiceTest {
+
+  private static final int CHUNK_SIZE = 5 * 1024 * 1024;
+
+  @TempDir
+  Path tempDir;
+
+  private HttpServer server;
+  private final AtomicLong receivedBytes = new AtomicLong();
+  private final AtomicInteger requests = new AtomicInteger();
+  private UploadExecutor uploadExecutor;
+  private CloudinaryService cloudinaryService;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/", this::drain);
+    server.start();
+    Cloudinary cloudinary = new Cloudinary(ObjectUtils.asMap(
+            "cloud_name", "demo",
+            "api_key", "key",
+            "api_secret", "secret",
+            "upload_prefix", "http://127.0.0.1:" + server.getAddress().getPort()));
+    uploadExecutor = new UploadExecutor(1, 10, new SimpleMeterRegistry());
+    cloudinaryService = new CloudinaryService(
+            cloudinary, uploadExecutor, DataSize.ofBytes(CHUNK_SIZE));
+
+    // warm up the HTTP client so one-off class loading is not counted as upload allocation
+    cloudinaryService.uploadAsync(new DiskMultipartFile(sparseFile("warmup.pdf", 1024)), "warmup")
+            .join();
+    requests.set(0);
+    receivedBytes.set(0);
+  }
+
+  @AfterEach
+  void tearDown() {
+    uploadExecutor.shutdown();
+    server.stop(0);
+  }
+
+  @Test
+  void largeUploadsAllocateAtMostAFewChunks() throws IOException {
+    long fileSize = 64L * 1024 * 1024;
+    Path source = sparseFile("large.pdf", fileSize);
+
+    for (int i = 0; i < 4; i++) {
+      String publicId = "users/1/file-" + i;
+      long allocated = allocatedDuring(() -> cloudinaryService
+              .uploadAsync(new DiskMultipartFile(source), "users/1", publicId)
+              .join());
+      assertTrue(allocated < 3L * CHUNK_SIZE,
+              "upload allocated " + allocated + " bytes for a " + fileSize + " byte file");
+    }
+    assertTrue(receivedBytes.get() >= 4 * fileSize);
+    assertEquals(4 * (int) Math.ceilDiv(fileSize, CHUNK_SIZE), requests.get());
+  }
+
+  @Test
+  void smallUploadStreamsFromDiskInOneRequest() throws IOException {
+    long fileSize = 4L * 1024 * 1024;
+    Path source = sparseFile("small.pdf", fileSize);
+
+    long allocated = allocatedDuring(() -> cloudinaryService
+            .uploadAsync(new DiskMultipartFile(source), "users/1")
+            .join());
+
+    assertTrue(allocated < fileSize / 4, "upload allocated " + allocated + " bytes");
+    assertEquals(1, requests.get());
+    assertTrue(receivedBytes.get() >= fileSize);
+  }
+
+  @Test
+  void signsDirectUploadParameters() throws Exception {
+    SignedUploadDto signed = cloudinaryService.signUpload(
+            "users/1/file-abc", "pdf,doc,docx", Duration.ofMinutes(15));
+
+    String toSign = "allowed_formats=pdf,doc,docx&public_id=users/1/file-abc&timestamp="
+            + signed.getTimestamp() + "secret";
+    String expected = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-1")
+            .digest(toSign.getBytes(StandardCharsets.UTF_8)));
+    assertEquals(expected, signed.getSignature());
+    assertEquals("key", signed.getApiKey());
+    assertTrue(signed.getUploadUrl().endsWith("/v1_1/demo/raw/upload"));
+  }
+
+  private Path sparseFile(String name, long size) throws IOException {
+    Path path = tempDir.resolve(name);
+    try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+      file.setLength(size);
+    }
+    return path;
+  }
+
+  /**
+   * Measures the bytes allocated by the upload thread, which the warm-up upload started.
+   */
+  private static long allocatedDuring(Runnable upload) {
+    com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long uploadThread = Thread.getAllStackTraces().keySet().stream()
+            .filter(thread -> thread.getName().startsWith("upload-"))
+            .findFirst()
+            .orElseThrow()
+            .threadId();
+    long before = threads.getThreadAllocatedBytes(uploadThread);
+    upload.run();
+    return threads.getThreadAllocatedBytes(uploadThread) - before;
+  }
+
+  private void drain(HttpExchange exchange) throws IOException {
+    requests.incrementAndGet();
+    byte[] buffer = new byte[64 * 1024];
+    try (InputStream in = exchange.getRequestBody()) {
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        receivedBytes.addAndGet(read);
+      }
+    }
+    byte[] body = "{\"public_id\":\"users/1/file\",\"secure_url\":\"https://res.cloudinary.com/x\"}"
+            .getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().add("Content-Type", "application/json");
+    exchange.sendResponseHeaders(200, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  /**
+   * Multipart backed by a file on disk, like the container's spooled part; reading the
+   * whole content into memory fails the test.
+   */
+  private record DiskMultipartFile(Path path) implements MultipartFile {
+
+    @Override
+    public String getName() {
+      return "file";
+    }
+
+    @Override
+    public String getOriginalFilename() {
+      return path.getFileName().toString();
+    }
+
+    @Override
+    public String getContentType() {
+      return "application/pdf";
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return getSize() == 0;
+    }
+
+    @Override
+    public long getSize() {
+      return path.toFile().length();
+    }
+
+    @Override
+    public byte[] getBytes() {
+      throw new AssertionError("the upload must not load the file into memory");
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+      return Files.newInputStream(path);
+    }
+
+    @Override
+    public void transferTo(File dest) throws IOException {
+      Files.copy(path, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+}
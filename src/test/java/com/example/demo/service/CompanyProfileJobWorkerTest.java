@@ -0,0 +1,339 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.demo.constant.CompanyProfileJobStatus;
+import com.example.demo.constant.Role;
+import com.example.demo.dto.CompanyProfileJobDto;
+import com.example.demo.dto.CompanyProfileRequestDto;
+import com.example.demo.entity.CompanyProfileJob;
+import com.example.demo.entity.DocumentBlob;
+import com.example.demo.entity.DocumentDeletion;
+import com.example.demo.entity.User;
+import com.example.demo.exception.BadRequestException;
+import com.example.demo.exception.ConflictException;
+import com.example.demo.exception.FileUploadException;
+import com.example.demo.repository.CompanyProfileJobRepository;
+import com.example.demo.repository.CompanyProfileRepository;
+import com.example.demo.repository.DocumentBlobRepository;
+import com.example.demo.repository.DocumentDeletionRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.utils.ConversionUtil;
+import com.example.demo.utils.DocumentValidator;
+import com.example.demo.utils.UploadExecutor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Runs company profile submissions through the background worker against H2, with the
+ * document storage stubbed, to check the job lifecycle and the spool cleanup.
+ */
+@DataJpaTest
+@Import({CompanyProfileService.class, CompanyProfileJobWorker.class, DocumentIndexService.class,
+    UploadSessionService.class, DocumentValidator.class, UploadExecutor.class,
+    CompanyProfileJobWorkerTest.JobConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CompanyProfileJobWorkerTest {
+
+  private static final Path SPOOL_DIR = createSpoolDir();
+
+  @DynamicPropertySource
+  static void properties(DynamicPropertyRegistry registry) {
+    registry.add("company-profile.jobs.spool-dir", SPOOL_DIR::toString);
+    registry.add("company-profile.jobs.max-attempts", () -> "2");
+  }
+
+  @MockitoBean
+  private CloudinaryService cloudinaryService;
+
+  @MockitoBean
+  private DocumentStorage documentStorage;
+
+  @MockitoBean
+  private TokenVersionService tokenVersionService;
+
+  @MockitoBean
+  private UserCacheService userCacheService;
+
+  @MockitoBean
+  private ConversionUtil conversionUtil;
+
+  @Autowired
+  private CompanyProfileService companyProfileService;
+
+  @Autowired
+  private CompanyProfileJobWorker worker;
+
+  @Autowired
+  private CompanyProfileJobRepository companyProfileJobRepository;
+
+  @Autowired
+  private CompanyProfileRepository companyProfileRepository;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private DocumentBlobRepository documentBlobRepository;
+
+  @Autowired
+  private DocumentDeletionRepository documentDeletionRepository;
+
+  private User user;
+
+  @BeforeEach
+  void setUp() {
+    user = userRepository.save(User.builder()
+            .email("owner@example.com")
+            .fullname("Company Owner")
+            .password("hash")
+            .role(Role.USER)
+            .twoFactorEnabled(false)
+            .build());
+  }
+
+  @AfterEach
+  void tearDown() {
+    companyProfileJobRepository.deleteAll();
+    documentBlobRepository.deleteAll();
+    documentDeletionRepository.deleteAll();
+    companyProfileRepository.deleteAll();
+    userRepository.deleteAll();
+  }
+
+  @Test
+  void concurrentSubmissionsQueueASingleJob() throws Exception {
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService clients = Executors.newFixedThreadPool(2);
+    try {
+      List<Future<CompanyProfileJobDto>> submissions = new ArrayList<>();
+      for (int i = 0; i < 2; i++) {
+        submissions.add(clients.submit(() -> {
+          start.await();
+          return companyProfileService.create(document(), request());
+        }));
+      }
+      start.countDown();
+
+      int conflicts = 0;
+      for (Future<CompanyProfileJobDto> submission : submissions) {
+        try {
+          submission.get(10, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+          assertInstanceOf(ConflictException.class, e.getCause());
+          conflicts++;
+        }
+      }
+      assertEquals(1, conflicts);
+      assertEquals(1, companyProfileJobRepository.count());
+    } finally {
+      clients.shutdownNow();
+    }
+  }
+
+  @Test
+  void directUploadsBelongToTheAuthenticatedUser() {
+    when(documentStorage.supportsDirectUpload()).thenReturn(true);
+    User other = userRepository.save(User.builder()
+            .email("other@example.com")
+            .fullname("Other User")
+            .password("hash")
+            .role(Role.USER)
+            .twoFactorEnabled(false)
+            .build());
+
+    // the body names the owner, but the caller is authenticated as another user
+    assertThrows(BadRequestException.class, () -> companyProfileService.createFromUpload(
+            "users/" + user.getId() + "/file-" + UUID.randomUUID(), request(),
+            other.getEmail()));
+    verify(cloudinaryService, never()).findResource(anyString());
+    assertEquals(0, companyProfileRepository.count());
+  }
+
+  @Test
+  void submissionIsUploadedAndSavedInTheBackground() throws Exception {
+    when(documentStorage.store(any(Path.class), anyString()))
+            .thenReturn(new DocumentStorage.StoredDocument(
+                    "users/1/file", "https://res.cloudinary.com/demo/file.pdf"));
+
+    CompanyProfileJobDto submitted = companyProfileService.create(document(), request());
+    CompanyProfileJob pending = companyProfileJobRepository.findById(submitted.getId())
+            .orElseThrow();
+    assertEquals("PENDING", submitted.getStatus());
+    assertTrue(Files.exists(Path.of(pending.getSpoolPath())));
+
+    worker.poll();
+    CompanyProfileJob job = awaitFinished(submitted.getId());
+
+    assertEquals(CompanyProfileJobStatus.COMPLETED, job.getStatus());
+    assertEquals("https://res.cloudinary.com/demo/file.pdf",
+            companyProfileRepository.findById(job.getProfileId()).orElseThrow().getFileUrl());
+    assertNull(job.getSpoolPath());
+    assertFalse(Files.exists(Path.of(pending.getSpoolPath())));
+  }
+
+  @Test
+  void failedUploadIsRetriedThenMarkedAsFailed() throws Exception {
+    when(documentStorage.store(any(Path.class), anyString()))
+            .thenThrow(new FileUploadException("Cloudinary caído", new IOException("timeout")));
+
+    CompanyProfileJobDto submitted = companyProfileService.create(document(), request());
+    String spoolPath = companyProfileJobRepository.findById(submitted.getId())
+            .orElseThrow().getSpoolPath();
+
+    worker.poll();
+    CompanyProfileJob retry = awaitAttempt(submitted.getId(), CompanyProfileJobStatus.PENDING);
+    assertEquals(1, retry.getAttempts());
+    assertTrue(retry.getNextAttemptAt().isAfter(LocalDateTime.now()));
+    assertTrue(Files.exists(Path.of(spoolPath)));
+
+    retry.setNextAttemptAt(LocalDateTime.now());
+    companyProfileJobRepository.save(retry);
+    worker.poll();
+    CompanyProfileJob failed = awaitFinished(submitted.getId());
+
+    assertEquals(CompanyProfileJobStatus.FAILED, failed.getStatus());
+    assertEquals(2, failed.getAttempts());
+    assertEquals(0, companyProfileRepository.count());
+    assertFalse(Files.exists(Path.of(spoolPath)));
+  }
+
+  @Test
+  void resubmittedDocumentReusesTheStoredObject() throws Exception {
+    when(documentStorage.store(any(Path.class), anyString())).thenAnswer(invocation ->
+            new DocumentStorage.StoredDocument(invocation.getArgument(1),
+                    "https://res.cloudinary.com/demo/" + invocation.getArgument(1)));
+
+    CompanyProfileJob created = process(companyProfileService.create(document(), request()));
+    String url = companyProfileRepository.findById(created.getProfileId()).orElseThrow()
+            .getFileUrl();
+    CompanyProfileJob resubmitted = process(
+            companyProfileService.updateRejectedProfile(document(), request()));
+
+    assertEquals(CompanyProfileJobStatus.COMPLETED, resubmitted.getStatus());
+    assertEquals(url, companyProfileRepository.findById(resubmitted.getProfileId())
+            .orElseThrow().getFileUrl());
+    verify(documentStorage, times(1)).store(any(Path.class), anyString());
+    DocumentBlob blob = documentBlobRepository.findFirstByUrl(url).orElseThrow();
+    assertEquals(1, blob.getReferenceCount());
+
+    MockMultipartFile changed = new MockMultipartFile(
+            "file", "estatuto.pdf", "application/pdf", "%PDF-1.7 corregido".getBytes());
+    process(companyProfileService.updateRejectedProfile(changed, request()));
+
+    verify(documentStorage, times(2)).store(any(Path.class), anyString());
+    assertEquals(List.of(blob.getStorageKey()), documentDeletionRepository.findAll().stream()
+            .map(DocumentDeletion::getStorageKey)
+            .toList());
+    assertTrue(documentBlobRepository.findFirstByUrl(url).isEmpty());
+    assertEquals(1, documentBlobRepository.count());
+  }
+
+  private CompanyProfileJob process(CompanyProfileJobDto submitted) throws InterruptedException {
+    worker.poll();
+    return awaitFinished(submitted.getId());
+  }
+
+  private CompanyProfileJob awaitFinished(UUID jobId) throws InterruptedException {
+    for (int i = 0; i < 100; i++) {
+      CompanyProfileJob job = companyProfileJobRepository.findById(jobId).orElseThrow();
+      if (job.getStatus() == CompanyProfileJobStatus.COMPLETED
+              || job.getStatus() == CompanyProfileJobStatus.FAILED) {
+        return job;
+      }
+      Thread.sleep(50);
+    }
+    throw new AssertionError("La solicitud no terminó a tiempo");
+  }
+
+  private CompanyProfileJob awaitAttempt(UUID jobId, CompanyProfileJobStatus status)
+          throws InterruptedException {
+    for (int i = 0; i < 100; i++) {
+      CompanyProfileJob job = companyProfileJobRepository.findById(jobId).orElseThrow();
+      if (job.getStatus() == status && job.getLastError() != null) {
+        return job;
+      }
+      Thread.sleep(50);
+    }
+    throw new AssertionError("La solicitud no se reprogramó a tiempo");
+  }
+
+  private CompanyProfileRequestDto request() {
+    return CompanyProfileRequestDto.builder()
+            .tradeName("Trade")
+            .legalName("Legal")
+            .cuit("20123456789")
+            .country("AR")
+            .companyLocation("Buenos Aires")
+            .legalRepresentative("Owner")
+            .phone("123")
+            .userId(user.getId())
+            .build();
+  }
+
+  private static MockMultipartFile document() {
+    return new MockMultipartFile(
+            "file", "estatuto.pdf", "application/pdf", "%PDF-1.7 contenido".getBytes());
+  }
+
+  private static Path createSpoolDir() {
+    try {
+      return Files.createTempDirectory("company-profile-spool");
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @TestConfiguration
+  static class JobConfig {
+
+    @Bean
+    MeterRegistry meterRegistry() {
+      return new SimpleMeterRegistry();
+    }
+
+    @Bean
+    ObjectMapper objectMapper() {
+      return new ObjectMapper().findAndRegisterModules();
+    }
+  }
+}
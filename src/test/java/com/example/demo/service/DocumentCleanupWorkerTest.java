@@ -0,0 +1,168 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+
+import com.example.demo.constant.CompanyProfileStatus;
+import com.example.demo.constant.DocumentDeletionStatus;
+import com.example.demo.constant.Role;
+import com.example.demo.entity.CompanyProfile;
+import com.example.demo.entity.DocumentBlob;
+import com.example.demo.entity.DocumentDeletion;
+import com.example.demo.entity.User;
+import com.example.demo.exception.FileUploadException;
+import com.example.demo.repository.CompanyProfileRepository;
+import com.example.demo.repository.DocumentBlobRepository;
+import com.example.demo.repository.DocumentDeletionRepository;
+import com.example.demo.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Drains the document deletion queue and runs the reconciliation sweep against H2, with
+ * the storage backend stubbed.
+ */
+@DataJpaTest
+@Import({DocumentCleanupWorker.class, DocumentIndexService.class,
+    DocumentCleanupWorkerTest.CleanupConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DocumentCleanupWorkerTest {
+
+  @MockitoBean
+  private DocumentStorage documentStorage;
+
+  @Autowired
+  private DocumentCleanupWorker worker;
+
+  @Autowired
+  private DocumentIndexService documentIndexService;
+
+  @Autowired
+  private DocumentDeletionRepository documentDeletionRepository;
+
+  @Autowired
+  private DocumentBlobRepository documentBlobRepository;
+
+  @Autowired
+  private CompanyProfileRepository companyProfileRepository;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @AfterEach
+  void tearDown() {
+    documentDeletionRepository.deleteAll();
+    documentBlobRepository.deleteAll();
+    companyProfileRepository.deleteAll();
+    userRepository.deleteAll();
+  }
+
+  @Test
+  void queuedDocumentsAreDeletedInOneBulkCall() {
+    documentIndexService.enqueueDeletion("users/1/file-a");
+    documentIndexService.enqueueDeletion("users/1/file-b");
+    documentIndexService.enqueueDeletion("users/2/file-c");
+
+    worker.drain();
+
+    verify(documentStorage).deleteAll(
+            List.of("users/1/file-a", "users/1/file-b", "users/2/file-c"));
+    assertEquals(0, documentDeletionRepository.count());
+  }
+
+  @Test
+  void failedBatchIsRetriedLater() {
+    doThrow(new FileUploadException("Cloudinary caído", new IOException("timeout")))
+            .when(documentStorage).deleteAll(anyList());
+    documentIndexService.enqueueDeletion("users/1/file-a");
+
+    worker.drain();
+
+    DocumentDeletion deletion = documentDeletionRepository.findAll().getFirst();
+    assertEquals(DocumentDeletionStatus.PENDING, deletion.getStatus());
+    assertEquals(1, deletion.getAttempts());
+    assertTrue(deletion.getNextAttemptAt().isAfter(LocalDateTime.now()));
+    assertEquals("Cloudinary caído", deletion.getLastError());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void reconciliationQueuesOnlyUnreferencedDocuments() {
+    User user = userRepository.save(User.builder()
+            .email("owner@example.com")
+            .fullname("Company Owner")
+            .password("hash")
+            .role(Role.USER)
+            .twoFactorEnabled(false)
+            .build());
+    companyProfileRepository.save(CompanyProfile.builder()
+            .tradeName("Trade")
+            .legalName("Legal")
+            .cuit("20123456789")
+            .country("AR")
+            .companyLocation("Buenos Aires")
+            .legalRepresentative("Owner")
+            .phone("123")
+            .fileKey("users/1/current")
+            .fileUrl("https://cdn/users/1/current")
+            .status(CompanyProfileStatus.PENDING)
+            .user(user)
+            .build());
+    documentBlobRepository.save(DocumentBlob.builder()
+            .userId(UUID.randomUUID())
+            .sha256("a".repeat(64))
+            .size(10)
+            .storageKey("users/1/indexed")
+            .url("https://cdn/users/1/indexed")
+            .referenceCount(1)
+            .createdAt(LocalDateTime.now())
+            .build());
+    documentIndexService.enqueueDeletion("users/1/queued");
+    doAnswer(invocation -> {
+      ((Consumer<List<DocumentStorage.StoredDocument>>) invocation.getArgument(1)).accept(List.of(
+              new DocumentStorage.StoredDocument("users/1/current", "https://cdn/users/1/current"),
+              new DocumentStorage.StoredDocument("users/1/indexed", "https://cdn/users/1/indexed"),
+              new DocumentStorage.StoredDocument("users/1/queued", "https://cdn/users/1/queued"),
+              new DocumentStorage.StoredDocument("users/1/orphan", "https://cdn/users/1/orphan")));
+      return null;
+    }).when(documentStorage).scan(any(Instant.class), any());
+
+    worker.reconcile();
+
+    assertEquals(List.of("users/1/orphan", "users/1/queued"), documentDeletionRepository.findAll()
+            .stream()
+            .map(DocumentDeletion::getStorageKey)
+            .sorted()
+            .toList());
+  }
+
+  @TestConfiguration
+  static class CleanupConfig {
+
+    @Bean
+    MeterRegistry meterRegistry() {
+      return new SimpleMeterRegistry();
+    }
+  }
+}
@@ -0,0 +1,152 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.example.demo.constant.EmailOutboxStatus;
+import com.example.demo.entity.EmailOutboxMessage;
+import com.example.demo.repository.EmailOutboxRepository;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Delivers the outbox through a local GreenMail SMTP server, so batching and retries
+ * can be checked without a real mail provider.
+ */
+@DataJpaTest
+@Import({EmailService.class, EmailOutboxDispatcher.class, EmailOutboxDispatcherTest.MailConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EmailOutboxDispatcherTest {
+
+  @RegisterExtension
+  static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+  @Autowired
+  private EmailService emailService;
+
+  @Autowired
+  private EmailOutboxDispatcher dispatcher;
+
+  @Autowired
+  private EmailOutboxRepository emailOutboxRepository;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @AfterEach
+  void tearDown() {
+    emailOutboxRepository.deleteAll();
+  }
+
+  @Test
+  void deliversEveryQueuedMessageInBatches() {
+    int messages = 120;
+    for (int i = 0; i < messages; i++) {
+      emailService.send2FaCode("user" + i + "@example.com", String.valueOf(100000 + i));
+    }
+
+    dispatcher.dispatch();
+
+    assertTrue(greenMail.waitForIncomingEmail(5000, messages));
+    assertEquals(messages, greenMail.getReceivedMessages().length);
+    assertEquals(0, emailOutboxRepository.count());
+    assertFalse(MailConfig.SENT_IN_TRANSACTION.get());
+  }
+
+  @Test
+  void schedulesRetryWhenTheServerIsDown() {
+    greenMail.stop();
+    emailService.send2FaCode("retry@example.com", "123456");
+
+    dispatcher.dispatch();
+
+    EmailOutboxMessage message = emailOutboxRepository.findAll().getFirst();
+    assertEquals(EmailOutboxStatus.PENDING, message.getStatus());
+    assertEquals(1, message.getAttempts());
+    assertTrue(message.getNextAttemptAt().isAfter(LocalDateTime.now()));
+  }
+
+  @Test
+  void redactsFailedMessagesAndPurgesThemAfterRetention() {
+    greenMail.stop();
+    emailService.send2FaCode("failed@example.com", "654321");
+    EmailOutboxMessage message = emailOutboxRepository.findAll().getFirst();
+    message.setAttempts(7);
+    emailOutboxRepository.save(message);
+
+    dispatcher.dispatch();
+
+    EmailOutboxMessage failed = emailOutboxRepository.findById(message.getId()).orElseThrow();
+    assertEquals(EmailOutboxStatus.FAILED, failed.getStatus());
+    assertFalse(failed.getBody().contains("654321"));
+
+    dispatcher.purge();
+    assertEquals(1, emailOutboxRepository.count());
+
+    jdbcTemplate.update("UPDATE email_outbox SET created_at = ? WHERE id = ?",
+            LocalDateTime.now().minusDays(8), failed.getId());
+    dispatcher.purge();
+    assertEquals(0, emailOutboxRepository.count());
+  }
+
+  @Test
+  void reclaimsMessagesLeftSendingByAStoppedDispatcher() {
+    emailService.send2FaCode("stale@example.com", "123456");
+    EmailOutboxMessage message = emailOutboxRepository.findAll().getFirst();
+    message.setStatus(EmailOutboxStatus.SENDING);
+    message.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+    emailOutboxRepository.save(message);
+
+    dispatcher.dispatch();
+
+    assertTrue(greenMail.waitForIncomingEmail(5000, 1));
+    assertEquals(1, greenMail.getReceivedMessages().length);
+    assertEquals(0, emailOutboxRepository.count());
+  }
+
+  @TestConfiguration
+  static class MailConfig {
+
+    static final AtomicBoolean SENT_IN_TRANSACTION = new AtomicBoolean();
+
+    @Bean
+    JavaMailSenderImpl mailSender() {
+      JavaMailSenderImpl sender = new JavaMailSenderImpl() {
+        @Override
+        protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) {
+          if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            SENT_IN_TRANSACTION.set(true);
+          }
+          super.doSend(mimeMessages, originalMessages);
+        }
+      };
+      sender.setHost("localhost");
+      sender.setPort(ServerSetupTest.SMTP.getPort());
+      return sender;
+    }
+
+    @Bean
+    MeterRegistry meterRegistry() {
+      return new SimpleMeterRegistry();
+    }
+  }
+}
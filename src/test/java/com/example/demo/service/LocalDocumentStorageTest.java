@@ -0,0 +1,141 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.example.demo.controller.DocumentController;
+import com.example.demo.entity.User;
+import com.example.demo.exception.ForbiddenException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+/**
+ * Stores documents on a temporary directory and downloads them through the
+ * {@link DocumentController}, checking sharding, conditional requests and byte ranges.
+ */
+class LocalDocumentStorageTest {
+
+  private static final UUID OWNER_ID = UUID.randomUUID();
+
+  private static final byte[] CONTENT = "%PDF-1.7 contenido del estatuto"
+          .getBytes(StandardCharsets.UTF_8);
+
+  @TempDir
+  Path tempDir;
+
+  private LocalDocumentStorage storage;
+  private DocumentController controller;
+  private Authentication owner;
+
+  @BeforeEach
+  void setUp() {
+    storage = new LocalDocumentStorage(tempDir.resolve("documents"), "/documents/");
+    UserCacheService userCacheService = mock(UserCacheService.class);
+    User user = User.builder().id(OWNER_ID).email("owner@example.com").build();
+    when(userCacheService.findByEmail("owner@example.com")).thenReturn(Optional.of(user));
+    when(userCacheService.findByEmail("other@example.com"))
+            .thenReturn(Optional.of(User.builder()
+                    .id(UUID.randomUUID())
+                    .email("other@example.com")
+                    .build()));
+    controller = new DocumentController(storage, userCacheService);
+    owner = authentication("owner@example.com", "ROLE_USER");
+  }
+
+  @Test
+  void storesDocumentsUnderShardedHashedPaths() throws IOException {
+    DocumentStorage.StoredDocument stored =
+            storage.store(source("estatuto.PDF"), "users/" + OWNER_ID + "/file-a");
+
+    assertEquals("users/" + OWNER_ID + "/file-a.pdf", stored.key());
+    assertEquals("/documents/users/" + OWNER_ID + "/file-a.pdf", stored.url());
+    Path path = storage.resolve(stored.key());
+    assertTrue(path.startsWith(tempDir.resolve("documents")));
+    assertEquals(64 + ".pdf".length(), path.getFileName().toString().length());
+    assertTrue(path.getFileName().toString().startsWith(
+            path.getParent().getParent().getFileName().toString()
+                    + path.getParent().getFileName()));
+    assertArrayEquals(CONTENT, Files.readAllBytes(path));
+
+    storage.delete(stored.key());
+    assertFalse(Files.exists(path));
+  }
+
+  @Test
+  void servesRangesAndConditionalRequests() throws IOException {
+    String key = storage.store(source("estatuto.pdf"), "users/" + OWNER_ID + "/file-b").key();
+
+    MockHttpServletResponse full = download(key, owner, null, null);
+    assertEquals(200, full.getStatus());
+    assertEquals("application/pdf", full.getContentType());
+    assertEquals("bytes", full.getHeader("Accept-Ranges"));
+    assertArrayEquals(CONTENT, full.getContentAsByteArray());
+
+    MockHttpServletResponse partial = download(key, owner, "bytes=5-7", null);
+    assertEquals(206, partial.getStatus());
+    assertEquals("bytes 5-7/" + CONTENT.length, partial.getHeader("Content-Range"));
+    assertArrayEquals(Arrays.copyOfRange(CONTENT, 5, 8), partial.getContentAsByteArray());
+
+    MockHttpServletResponse unsatisfiable = download(key, owner, "bytes=1000-", null);
+    assertEquals(416, unsatisfiable.getStatus());
+    assertEquals("bytes */" + CONTENT.length, unsatisfiable.getHeader("Content-Range"));
+
+    MockHttpServletResponse notModified = download(key, owner, null, full.getHeader("ETag"));
+    assertEquals(304, notModified.getStatus());
+    assertEquals(0, notModified.getContentAsByteArray().length);
+  }
+
+  @Test
+  void onlyOwnerAndAdminsCanDownload() throws IOException {
+    String key = storage.store(source("estatuto.pdf"), "users/" + OWNER_ID + "/file-c").key();
+
+    assertThrows(ForbiddenException.class, () ->
+            download(key, authentication("other@example.com", "ROLE_USER"), null, null));
+    assertEquals(200,
+            download(key, authentication("admin@example.com", "ROLE_ADMIN"), null, null)
+                    .getStatus());
+  }
+
+  private MockHttpServletResponse download(
+          String key, Authentication authentication, String range, String ifNoneMatch)
+          throws IOException {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/documents/" + key);
+    if (range != null) {
+      request.addHeader("Range", range);
+    }
+    if (ifNoneMatch != null) {
+      request.addHeader("If-None-Match", ifNoneMatch);
+    }
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    controller.download(request, response, authentication);
+    return response;
+  }
+
+  private Path source(String name) throws IOException {
+    return Files.write(tempDir.resolve(name), CONTENT);
+  }
+
+  private static Authentication authentication(String email, String role) {
+    return new UsernamePasswordAuthenticationToken(
+            email, null, List.of(new SimpleGrantedAuthority(role)));
+  }
+}
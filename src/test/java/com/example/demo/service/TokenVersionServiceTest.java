@@ -0,0 +1,113 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.example.demo.entity.User;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.utils.RedisGateway;
+import com.example.demo.utils.RedisKeys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+/**
+ * Tests for the token version checks of the stateless authentication path.
+ */
+class TokenVersionServiceTest {
+
+  private final RedisGateway redisGateway = mock(RedisGateway.class);
+  private final UserRepository userRepository = mock(UserRepository.class);
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final TokenVersionService tokenVersionService =
+          new TokenVersionService(redisGateway, userRepository, meterRegistry);
+  private final UUID userId = UUID.randomUUID();
+
+  @BeforeEach
+  void setUp() {
+    when(userRepository.findById(userId))
+            .thenReturn(Optional.of(User.builder().id(userId).tokenVersion(2).build()));
+  }
+
+  @Test
+  void fallsBackToTheDatabaseWhileRedisIsDown() {
+    when(redisGateway.eval(any(), anyList(), any(Object[].class)))
+            .thenThrow(new RedisConnectionFailureException("Redis caído"));
+
+    assertTrue(tokenVersionService.isCurrent(userId, 2));
+    assertFalse(tokenVersionService.isCurrent(userId, 1));
+    assertEquals(2, meterRegistry.counter("token.version.fallback").count());
+  }
+
+  @Test
+  void cacheFillNeverOverwritesAHigherVersion() {
+    when(redisGateway.eval(any(), eq(List.of(RedisKeys.tokenVersion(userId)))))
+            .thenReturn(-1L);
+
+    assertTrue(tokenVersionService.isCurrent(userId, 2));
+
+    // the fill goes through the compare-and-set script, never a plain SET
+    verify(redisGateway).eval(any(), eq(List.of(RedisKeys.tokenVersion(userId))),
+            eq("2"), anyString());
+    verify(redisGateway, never()).set(anyString(), anyString(), any());
+  }
+
+  @Test
+  void versionsAreReadFromTheMaster() {
+    when(redisGateway.eval(any(), eq(List.of(RedisKeys.tokenVersion(userId)))))
+            .thenReturn(3L);
+
+    assertFalse(tokenVersionService.isCurrent(userId, 2));
+    assertTrue(tokenVersionService.isCurrent(userId, 3));
+
+    // scripts always run on the master; a plain GET could be served by a lagging replica
+    verify(redisGateway, never()).get(anyString());
+    verify(userRepository, never()).findById(any());
+  }
+
+  @Test
+  void revocationSurvivesARedisFailureByDroppingTheCachedVersion() {
+    User user = User.builder().id(userId).tokenVersion(2).build();
+    when(userRepository.save(user)).thenReturn(user);
+    when(redisGateway.eval(any(), anyList(), any(Object[].class)))
+            .thenThrow(new RedisConnectionFailureException("Redis caído"));
+
+    assertEquals(3, tokenVersionService.revokeTokens(user).getTokenVersion());
+
+    verify(redisGateway).delete(RedisKeys.tokenVersion(userId));
+    assertEquals(1, meterRegistry.counter("token.version.fallback").count());
+  }
+
+  @Test
+  void revocationInsideATransactionIsPublishedAfterTheCommit() {
+    User user = User.builder().id(userId).tokenVersion(2).build();
+    when(userRepository.save(user)).thenReturn(user);
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      tokenVersionService.revokeTokens(user);
+      verifyNoInteractions(redisGateway);
+
+      TransactionSynchronizationUtils.triggerAfterCommit();
+      verify(redisGateway).eval(any(), eq(List.of(RedisKeys.tokenVersion(userId))),
+              eq("3"), anyString());
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+}
@@ -0,0 +1,258 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.demo.config.RedisConfig;
+import com.example.demo.constant.TwoFactorMethod;
+import com.example.demo.entity.User;
+import com.example.demo.exception.UnauthorizedException;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.utils.RedisGateway;
+import com.example.demo.utils.RedisKeys;
+import com.example.demo.utils.JwtService;
+import com.example.demo.utils.TotpAuthenticator;
+import com.example.demo.utils.TotpSecretCipher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.embedded.RedisServer;
+
+/**
+ * Runs the 2FA code scripts against an embedded Redis server.
+ */
+class TwoFactorAuthServiceTest {
+
+  private static RedisServer redisServer;
+  private static LettuceConnectionFactory connectionFactory;
+  private static RedisTemplate<String, String> redisTemplate;
+  private static RedisGateway redisGateway;
+
+  private EmailService emailService;
+  private UserRepository userRepository;
+  private TotpAuthenticator totpAuthenticator;
+  private JwtService jwtService;
+  private final TotpSecretCipher totpSecretCipher =
+          new TotpSecretCipher("", "test-secret-test-secret-0123456789abcdef");
+  private TwoFactorAuthService twoFactorAuthService;
+  private User user;
+  private String ticket;
+
+  @BeforeAll
+  static void startRedis() throws IOException {
+    int port;
+    try (ServerSocket socket = new ServerSocket(0)) {
+      port = socket.getLocalPort();
+    }
+    redisServer = new RedisServer(port);
+    redisServer.start();
+    connectionFactory = new LettuceConnectionFactory(
+            new RedisStandaloneConfiguration("localhost", port));
+    connectionFactory.afterPropertiesSet();
+    connectionFactory.start();
+    RedisConfig redisConfig = new RedisConfig();
+    redisTemplate = redisConfig.redisTemplate(connectionFactory);
+    redisTemplate.afterPropertiesSet();
+    RedisTemplate<String, byte[]> binaryRedisTemplate =
+            redisConfig.binaryRedisTemplate(connectionFactory);
+    binaryRedisTemplate.afterPropertiesSet();
+    redisGateway = new RedisGateway(redisTemplate, binaryRedisTemplate, new SimpleMeterRegistry(),
+            Duration.ofSeconds(2));
+  }
+
+  @AfterAll
+  static void stopRedis() throws IOException {
+    connectionFactory.destroy();
+    redisServer.stop();
+  }
+
+  @BeforeEach
+  void setUp() {
+    emailService = mock(EmailService.class);
+    userRepository = mock(UserRepository.class);
+    totpAuthenticator = mock(TotpAuthenticator.class);
+    when(totpAuthenticator.replayWindow()).thenReturn(Duration.ofSeconds(120));
+    jwtService = new JwtService();
+    ReflectionTestUtils.setField(
+            jwtService, "secretKey", "test-secret-test-secret-0123456789abcdef");
+    ReflectionTestUtils.setField(jwtService, "jwtExpiration", 60_000L);
+    jwtService.init();
+    twoFactorAuthService = newReplica();
+    user = User.builder()
+            .id(UUID.randomUUID())
+            .email("2fa-" + System.nanoTime() + "@example.com")
+            .build();
+    when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+  }
+
+  @Test
+  void codeIsOnlyAcceptedWithTheTicketItWasSentFor() {
+    String code = sendCode();
+    String forged = jwtService.generateTwoFactorTicket(
+            user.getId(), user.getEmail(), 0, UUID.randomUUID().toString(), 60_000L);
+
+    assertThrows(UnauthorizedException.class,
+            () -> twoFactorAuthService.validateCode(forged, code));
+    assertThrows(UnauthorizedException.class,
+            () -> twoFactorAuthService.validateCode("not-a-ticket", code));
+    assertEquals(user, twoFactorAuthService.validateCode(ticket, code));
+    assertThrows(UnauthorizedException.class,
+            () -> twoFactorAuthService.validateCode(ticket, code));
+  }
+
+  @Test
+  void concurrentSubmissionsConsumeTheCodeExactlyOnce() throws Exception {
+    String code = sendCode();
+    int threads = 32;
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Boolean>> results = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        results.add(executor.submit(() -> {
+          start.await();
+          try {
+            twoFactorAuthService.validateCode(ticket, code);
+            return true;
+          } catch (UnauthorizedException e) {
+            return false;
+          }
+        }));
+      }
+      start.countDown();
+
+      int accepted = 0;
+      for (Future<Boolean> result : results) {
+        accepted += result.get() ? 1 : 0;
+      }
+      assertEquals(1, accepted);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void codeIsBurnedAfterTooManyInvalidAttempts() {
+    String code = sendCode();
+    String wrong = code.equals("000000") ? "111111" : "000000";
+    for (int i = 0; i < 4; i++) {
+      assertThrows(UnauthorizedException.class,
+              () -> twoFactorAuthService.validateCode(ticket, wrong));
+    }
+    UnauthorizedException locked = assertThrows(UnauthorizedException.class,
+            () -> twoFactorAuthService.validateCode(ticket, wrong));
+    assertEquals("Too many invalid 2FA attempts. Request a new code.", locked.getMessage());
+    assertThrows(UnauthorizedException.class,
+            () -> twoFactorAuthService.validateCode(ticket, code));
+  }
+
+  @Test
+  void storesOnlyTheHashOfTheCode() {
+    String code = sendCode();
+
+    List<Object> stored = redisTemplate.opsForHash().values(RedisKeys.twoFactorCode(user.getId()));
+    assertEquals(2, stored.size());
+    assertTrue(stored.stream().noneMatch(code::equals));
+    assertDoesNotThrow(() -> twoFactorAuthService.validateCode(ticket, code));
+  }
+
+  @Test
+  void totpAttemptsAreCappedPerTicketAcrossReplicas() {
+    useTotp();
+    TwoFactorAuthService otherReplica = newReplica();
+    String first = twoFactorAuthService.startChallenge(user);
+    when(totpAuthenticator.matchStep("SECRET", "000000")).thenReturn(-1L);
+    for (int i = 0; i < 4; i++) {
+      TwoFactorAuthService replica = i % 2 == 0 ? twoFactorAuthService : otherReplica;
+      assertThrows(UnauthorizedException.class, () -> replica.validateCode(first, "000000"));
+    }
+    UnauthorizedException locked = assertThrows(UnauthorizedException.class,
+            () -> otherReplica.validateCode(first, "000000"));
+    assertEquals("Too many invalid 2FA attempts. Request a new code.", locked.getMessage());
+
+    when(totpAuthenticator.matchStep("SECRET", "123456")).thenReturn(100L);
+    assertThrows(UnauthorizedException.class,
+            () -> twoFactorAuthService.validateCode(first, "123456"));
+    when(totpAuthenticator.matchStep("SECRET", "654321")).thenReturn(101L);
+    String second = twoFactorAuthService.startChallenge(user);
+    assertEquals(user, otherReplica.validateCode(second, "654321"));
+  }
+
+  @Test
+  void totpCodeIsRejectedWhenReplayedOnAnotherReplica() {
+    useTotp();
+    when(totpAuthenticator.matchStep("SECRET", "123456")).thenReturn(200L);
+    String first = twoFactorAuthService.startChallenge(user);
+    String second = twoFactorAuthService.startChallenge(user);
+
+    assertEquals(user, twoFactorAuthService.validateCode(second, "123456"));
+    String third = twoFactorAuthService.startChallenge(user);
+    assertThrows(UnauthorizedException.class,
+            () -> newReplica().validateCode(third, "123456"));
+  }
+
+  @Test
+  void reEnrolmentKeepsTheCurrentSecretUntilConfirmed() {
+    useTotp();
+    when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+    when(totpAuthenticator.generateSecret()).thenReturn("JBSWY3DPEHPK3PXP");
+
+    twoFactorAuthService.enrollTotp(user.getEmail());
+
+    assertTrue(user.usesTotp());
+    assertEquals("SECRET", totpSecretCipher.decrypt(user.getTotpSecret()));
+    assertFalse(user.getPendingTotpSecret().contains("JBSWY3DPEHPK3PXP"));
+
+    when(totpAuthenticator.matchStep("JBSWY3DPEHPK3PXP", "111111")).thenReturn(300L);
+    twoFactorAuthService.confirmTotp(user.getEmail(), "111111");
+
+    assertNull(user.getPendingTotpSecret());
+    assertFalse(user.getTotpSecret().contains("JBSWY3DPEHPK3PXP"));
+    assertEquals("JBSWY3DPEHPK3PXP", totpSecretCipher.decrypt(user.getTotpSecret()));
+  }
+
+  private TwoFactorAuthService newReplica() {
+    return new TwoFactorAuthService(
+            mock(UserService.class), userRepository, emailService,
+            mock(UserCacheService.class), new RedisVerificationCodeStore(redisGateway),
+            totpAuthenticator, totpSecretCipher, jwtService);
+  }
+
+  private void useTotp() {
+    user.setTwoFactorMethod(TwoFactorMethod.TOTP);
+    user.setTotpSecret(totpSecretCipher.encrypt("SECRET"));
+  }
+
+  private String sendCode() {
+    ticket = twoFactorAuthService.startChallenge(user);
+    ArgumentCaptor<String> code = ArgumentCaptor.forClass(String.class);
+    verify(emailService).send2FaCode(eq(user.getEmail()), code.capture());
+    return code.getValue();
+  }
+}
@@ -0,0 +1,214 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+import com.example.demo.dto.UploadSessionDto;
+import com.example.demo.dto.UploadSessionRequestDto;
+import com.example.demo.entity.UploadSession;
+import com.example.demo.entity.User;
+import com.example.demo.exception.BadRequestException;
+import com.example.demo.exception.ConflictException;
+import com.example.demo.exception.FileUploadException;
+import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.repository.UploadSessionRepository;
+import com.example.demo.utils.DocumentValidator;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Sends documents in chunks through resumable upload sessions against H2, including a
+ * connection dropped mid-chunk, and checks the per-user limit and the expiry of sessions.
+ */
+@DataJpaTest
+@Import({UploadSessionService.class, DocumentValidator.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UploadSessionServiceTest {
+
+  private static final String EMAIL = "owner@example.com";
+  private static final Path SPOOL_DIR = createSpoolDir();
+
+  @DynamicPropertySource
+  static void properties(DynamicPropertyRegistry registry) {
+    registry.add("company-profile.jobs.spool-dir", SPOOL_DIR::toString);
+    registry.add("company-profile.document.max-size", () -> "1KB");
+    registry.add("company-profile.uploads.max-sessions-per-user", () -> "2");
+  }
+
+  @MockitoBean
+  private UserCacheService userCacheService;
+
+  @Autowired
+  private UploadSessionService uploadSessionService;
+
+  @Autowired
+  private UploadSessionRepository uploadSessionRepository;
+
+  private final UUID userId = UUID.randomUUID();
+
+  @BeforeEach
+  void setUp() {
+    when(userCacheService.findByEmail(EMAIL))
+            .thenReturn(Optional.of(User.builder().id(userId).email(EMAIL).build()));
+  }
+
+  @AfterEach
+  void tearDown() {
+    uploadSessionRepository.deleteAll();
+  }
+
+  @Test
+  void resumesAfterADroppedConnection() throws IOException {
+    byte[] document = pdf(600);
+    UploadSessionDto session = uploadSessionService.create(EMAIL, request(document.length));
+
+    // the connection drops after 250 of the 400 bytes sent
+    assertThrows(FileUploadException.class, () -> uploadSessionService.append(
+            session.getId(), EMAIL, 0, new DroppingInputStream(document, 250)));
+    assertEquals(250, uploadSessionService.get(session.getId(), EMAIL).getOffset());
+
+    assertThrows(ConflictException.class, () -> uploadSessionService.append(
+            session.getId(), EMAIL, 0, new ByteArrayInputStream(document)));
+    assertThrows(BadRequestException.class, () -> uploadSessionService.complete(
+            session.getId(), userId));
+
+    UploadSessionDto resumed = uploadSessionService.append(session.getId(), EMAIL, 250,
+            new ByteArrayInputStream(document, 250, document.length - 250));
+    assertEquals(document.length, resumed.getOffset());
+
+    Path assembled = uploadSessionService.complete(session.getId(), userId);
+    assertArrayEquals(document, Files.readAllBytes(assembled));
+    assertEquals(0, uploadSessionRepository.count());
+    assertThrows(ResourceNotFoundException.class, () -> uploadSessionService.complete(
+            session.getId(), userId));
+  }
+
+  @Test
+  void discardsTheSessionWhenAChunkGoesPastTheDeclaredLength() {
+    UploadSessionDto session = uploadSessionService.create(EMAIL, request(10));
+    Path spooled = Path.of(uploadSessionRepository.findById(session.getId())
+            .orElseThrow().getSpoolPath());
+
+    assertThrows(BadRequestException.class, () -> uploadSessionService.append(
+            session.getId(), EMAIL, 0, new ByteArrayInputStream(pdf(11))));
+
+    // the truncated body must not be left behind as a complete upload
+    assertThrows(ResourceNotFoundException.class, () -> uploadSessionService.complete(
+            session.getId(), userId));
+    assertEquals(0, uploadSessionRepository.count());
+    assertFalse(Files.exists(spooled));
+  }
+
+  @Test
+  void discardsTheSessionWhenTheFirstBytesAreNotTheDeclaredType() {
+    UploadSessionDto session = uploadSessionService.create(EMAIL, request(600));
+    Path spooled = Path.of(uploadSessionRepository.findById(session.getId())
+            .orElseThrow().getSpoolPath());
+    byte[] garbage = new byte[600];
+    Arrays.fill(garbage, (byte) 'x');
+
+    // only the first chunk is needed to recognize the document
+    assertThrows(BadRequestException.class, () -> uploadSessionService.append(
+            session.getId(), EMAIL, 0, new ByteArrayInputStream(garbage, 0, 16)));
+
+    assertEquals(0, uploadSessionRepository.count());
+    assertFalse(Files.exists(spooled));
+  }
+
+  @Test
+  void limitsSessionsPerUserAndSize() {
+    assertThrows(BadRequestException.class, () ->
+            uploadSessionService.create(EMAIL, request(2048)));
+    assertThrows(BadRequestException.class, () -> uploadSessionService.create(EMAIL,
+            UploadSessionRequestDto.builder().fileName("script.exe").length(10).build()));
+
+    uploadSessionService.create(EMAIL, request(10));
+    uploadSessionService.create(EMAIL, request(10));
+    assertThrows(ConflictException.class, () -> uploadSessionService.create(EMAIL, request(10)));
+  }
+
+  @Test
+  void expiredSessionsAreDiscardedWithTheirFiles() {
+    UploadSessionDto session = uploadSessionService.create(EMAIL, request(10));
+    UploadSession stored = uploadSessionRepository.findById(session.getId()).orElseThrow();
+    stored.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+    uploadSessionRepository.save(stored);
+
+    uploadSessionService.expire();
+
+    assertEquals(0, uploadSessionRepository.count());
+    assertFalse(Files.exists(Path.of(stored.getSpoolPath())));
+  }
+
+  private static byte[] pdf(int length) {
+    byte[] document = new byte[length];
+    Arrays.fill(document, (byte) 'x');
+    byte[] header = "%PDF-1.7".getBytes(StandardCharsets.US_ASCII);
+    System.arraycopy(header, 0, document, 0, header.length);
+    return document;
+  }
+
+  private static UploadSessionRequestDto request(long length) {
+    return UploadSessionRequestDto.builder().fileName("estatuto.pdf").length(length).build();
+  }
+
+  private static Path createSpoolDir() {
+    try {
+      return Files.createTempDirectory("upload-session-spool");
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Body that fails like a dropped connection after a number of bytes.
+   */
+  private static final class DroppingInputStream extends InputStream {
+
+    private final InputStream content;
+    private int remaining;
+
+    DroppingInputStream(byte[] content, int dropAfter) {
+      this.content = new ByteArrayInputStream(content);
+      this.remaining = dropAfter;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] single = new byte[1];
+      return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+      if (remaining == 0) {
+        throw new IOException("Connection reset");
+      }
+      int read = content.read(buffer, offset, Math.min(length, remaining));
+      remaining -= read;
+      return read;
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.example.demo.constant.Role;
+import com.example.demo.entity.User;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.utils.RedisGateway;
+import com.example.demo.utils.RedisKeys;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+/**
+ * Tests for the two-tier user cache.
+ */
+class UserCacheServiceTest {
+
+  private static final String EMAIL = "cache@example.com";
+
+  private final UserRepository userRepository = mock(UserRepository.class);
+  private final RedisGateway redisGateway = mock(RedisGateway.class);
+  private final UserCacheService userCacheService = new UserCacheService(
+          userRepository, redisGateway, new ObjectMapper(), new SimpleMeterRegistry(),
+          100, Duration.ofMinutes(1), Duration.ofMinutes(10), Duration.ofSeconds(10));
+
+  @Test
+  void credentialsNeverReachTheCache() {
+    when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(User.builder()
+            .id(UUID.randomUUID())
+            .email(EMAIL)
+            .password("{bcrypt}$2a$10$hash")
+            .totpSecret("JBSWY3DPEHPK3PXP")
+            .role(Role.USER)
+            .build()));
+
+    User cached = userCacheService.findByEmail(EMAIL).orElseThrow();
+
+    ArgumentCaptor<byte[]> snapshot = ArgumentCaptor.forClass(byte[].class);
+    verify(redisGateway)
+            .setBytesIfAbsent(eq(RedisKeys.userByEmail(EMAIL)), snapshot.capture(), any());
+    String json = new String(snapshot.getValue(), StandardCharsets.UTF_8);
+    assertFalse(json.contains("hash"));
+    assertFalse(json.contains("JBSWY3DPEHPK3PXP"));
+    assertEquals(EMAIL, cached.getEmail());
+    assertNull(cached.getPassword());
+    assertNull(cached.getTotpSecret());
+  }
+
+  @Test
+  void invalidationInsideATransactionWaitsForTheCommit() {
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      userCacheService.invalidate(EMAIL);
+      verifyNoInteractions(redisGateway);
+
+      TransactionSynchronizationUtils.triggerAfterCommit();
+      verify(redisGateway)
+              .setBytes(eq(RedisKeys.userByEmail(EMAIL)), any(), eq(Duration.ofSeconds(10)));
+      verify(redisGateway).publish(UserCacheService.INVALIDATION_CHANNEL, EMAIL);
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  void staleSnapshotCannotReplaceTheTombstone() {
+    userCacheService.invalidate(EMAIL);
+    ArgumentCaptor<byte[]> tombstone = ArgumentCaptor.forClass(byte[].class);
+    verify(redisGateway).setBytes(eq(RedisKeys.userByEmail(EMAIL)), tombstone.capture(), any());
+    when(redisGateway.evalBytes(any(), eq(List.of(RedisKeys.userByEmail(EMAIL)))))
+            .thenReturn(tombstone.getValue());
+    when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(User.builder()
+            .id(UUID.randomUUID())
+            .email(EMAIL)
+            .role(Role.COMPANY)
+            .build()));
+
+    // the tombstone reads as a miss and the refill only succeeds once the key is empty
+    assertEquals(Role.COMPANY, userCacheService.findByEmail(EMAIL).orElseThrow().getRole());
+    verify(userRepository).findByEmail(EMAIL);
+    verify(redisGateway).setBytesIfAbsent(eq(RedisKeys.userByEmail(EMAIL)), any(), any());
+    verify(redisGateway, times(1)).setBytes(any(), any(), any());
+    // scripts run on the master; a plain GET could be served by a lagging replica
+    verify(redisGateway, never()).getBytes(any());
+  }
+}
@@ -0,0 +1,123 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.example.demo.service.VerificationCodeStore.Result;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+
+/**
+ * Tests for the in-process verification code store and the Redis failover wrapper.
+ */
+class VerificationCodeStoreTest {
+
+  private static final Duration TTL = Duration.ofMinutes(3);
+
+  @Test
+  void inMemoryCodeIsConsumedExactlyOnceUnderContention() throws Exception {
+    InMemoryVerificationCodeStore store = new InMemoryVerificationCodeStore(1000);
+    UUID userId = UUID.randomUUID();
+    store.save(userId, "hash", TTL);
+
+    int threads = 32;
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Result>> results = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        results.add(executor.submit(() -> {
+          start.await();
+          return store.validate(userId, "hash", 5);
+        }));
+      }
+      start.countDown();
+
+      int accepted = 0;
+      for (Future<Result> result : results) {
+        accepted += result.get() == Result.VALID ? 1 : 0;
+      }
+      assertEquals(1, accepted);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void inMemoryCodesExpireAndLockAfterMaxAttempts() throws InterruptedException {
+    InMemoryVerificationCodeStore store = new InMemoryVerificationCodeStore(1000);
+    UUID expiring = UUID.randomUUID();
+    store.save(expiring, "hash", Duration.ofMillis(20));
+    Thread.sleep(50);
+    assertEquals(Result.MISSING, store.validate(expiring, "hash", 5));
+
+    UUID guessed = UUID.randomUUID();
+    store.save(guessed, "hash", TTL);
+    assertEquals(Result.INVALID, store.validate(guessed, "wrong", 2));
+    assertEquals(Result.LOCKED, store.validate(guessed, "wrong", 2));
+    assertEquals(Result.MISSING, store.validate(guessed, "hash", 2));
+  }
+
+  @Test
+  void inMemoryStepsAreRedeemedOnlyInOrder() {
+    InMemoryVerificationCodeStore store = new InMemoryVerificationCodeStore(1000);
+    UUID userId = UUID.randomUUID();
+
+    assertTrue(store.markStepUsed(userId, 100, TTL));
+    assertFalse(store.markStepUsed(userId, 100, TTL));
+    assertFalse(store.markStepUsed(userId, 99, TTL));
+    assertTrue(store.markStepUsed(userId, 101, TTL));
+    assertTrue(store.markStepUsed(UUID.randomUUID(), 100, TTL));
+  }
+
+  @Test
+  void inMemoryStoreIsBounded() {
+    InMemoryVerificationCodeStore store = new InMemoryVerificationCodeStore(64);
+    List<UUID> users = new ArrayList<>();
+    for (int i = 0; i < 10_000; i++) {
+      UUID userId = UUID.randomUUID();
+      users.add(userId);
+      store.save(userId, "hash", TTL);
+    }
+
+    long kept = users.stream().filter(store::contains).count();
+    assertTrue(kept <= 64);
+    assertTrue(store.contains(users.getLast()));
+  }
+
+  @Test
+  void failoverKeepsCodesInMemoryWhileRedisIsDown() {
+    VerificationCodeStore redis = mock(VerificationCodeStore.class);
+    RedisConnectionFailureException down = new RedisConnectionFailureException("down");
+    doThrow(down).when(redis).save(any(), any(), any());
+    doThrow(down).when(redis).validate(any(), any(), anyInt());
+    FailoverVerificationCodeStore store = new FailoverVerificationCodeStore(
+            redis, new InMemoryVerificationCodeStore(1000), Duration.ofMinutes(1),
+            new SimpleMeterRegistry());
+    UUID first = UUID.randomUUID();
+    UUID second = UUID.randomUUID();
+
+    store.save(first, "hash", TTL);
+    store.save(second, "hash", TTL);
+
+    assertEquals(Result.VALID, store.validate(first, "hash", 5));
+    assertEquals(Result.VALID, store.validate(second, "hash", 5));
+    verify(redis, times(1)).save(any(), any(), any());
+  }
+}
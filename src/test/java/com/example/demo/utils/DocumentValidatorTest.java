@@ -0,0 +1,64 @@
+package com.example.demo.utils;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.example.demo.exception.BadRequestException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DocumentValidatorTest {
+
+  private final DocumentValidator documentValidator = new DocumentValidator();
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void acceptsDocumentsMatchingTheirExtension() throws IOException {
+    Path pdf = Files.writeString(dir.resolve("estatuto.pdf"), "%PDF-1.7 contenido");
+    Path doc = Files.write(dir.resolve("estatuto.doc"), new byte[] {
+      (byte) 0xD0, (byte) 0xCF, 0x11, (byte) 0xE0, (byte) 0xA1, (byte) 0xB1, 0x1A, (byte) 0xE1, 0
+    });
+    Path docx = zip("estatuto.docx", "[Content_Types].xml", "word/document.xml");
+
+    assertDoesNotThrow(() -> documentValidator.validate("estatuto.pdf", pdf));
+    assertDoesNotThrow(() -> documentValidator.validate("estatuto.doc", doc));
+    assertDoesNotThrow(() -> documentValidator.validate("Estatuto.DOCX", docx));
+  }
+
+  @Test
+  void rejectsContentThatDoesNotMatchTheExtension() throws IOException {
+    Path renamed = Files.writeString(dir.resolve("estatuto.pdf"), "MZ ejecutable");
+    Path pdf = Files.writeString(dir.resolve("real.pdf"), "%PDF-1.7 contenido");
+    Path archive = zip("fotos.docx", "foto.jpg");
+
+    assertThrows(BadRequestException.class,
+            () -> documentValidator.validate("estatuto.pdf", renamed));
+    assertThrows(BadRequestException.class, () -> documentValidator.validate("real.docx", pdf));
+    assertThrows(BadRequestException.class,
+            () -> documentValidator.validate("fotos.docx", archive));
+    assertThrows(BadRequestException.class, () -> documentValidator.checkSignature(
+            "corto.pdf", "%PD".getBytes(StandardCharsets.US_ASCII)));
+  }
+
+  private Path zip(String fileName, String... entries) throws IOException {
+    Path file = dir.resolve(fileName);
+    try (OutputStream out = Files.newOutputStream(file);
+         ZipOutputStream zip = new ZipOutputStream(out)) {
+      for (String entry : entries) {
+        zip.putNextEntry(new ZipEntry(entry));
+        zip.write("<xml/>".getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+      }
+    }
+    return file;
+  }
+}
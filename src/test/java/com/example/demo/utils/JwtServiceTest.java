@@ -0,0 +1,53 @@
+package com.example.demo.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.example.demo.dto.auth.JwtDataDto;
+import io.jsonwebtoken.JwtException;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class JwtServiceTest {
+
+  private JwtService jwtService;
+
+  @BeforeEach
+  void setUp() {
+    jwtService = new JwtService();
+    ReflectionTestUtils.setField(jwtService, "secretKey", "test-secret-test-secret-0123456789abcdef");
+    ReflectionTestUtils.setField(jwtService, "jwtExpiration", 60_000L);
+    jwtService.init();
+  }
+
+  @Test
+  void verifyExposesTypedClaims() {
+    UUID userId = UUID.randomUUID();
+    JwtDataDto data = new JwtDataDto();
+    data.setUuid(userId);
+    data.setFullname("Test User");
+    data.setEmail("test@example.com");
+    data.setRole("USER");
+
+    VerifiedToken token = jwtService.verify(jwtService.generateToken(data));
+
+    assertEquals("test@example.com", token.subject());
+    assertEquals("ROLE_USER", token.role());
+    assertEquals(userId, token.userId());
+    assertFalse(token.twoFaPending());
+    assertFalse(token.isExpired());
+  }
+
+  @Test
+  void verifyRejectsTamperedToken() {
+    JwtDataDto data = new JwtDataDto();
+    data.setEmail("test@example.com");
+    data.setRole("USER");
+    String token = jwtService.generateToken(data);
+
+    assertThrows(JwtException.class, () -> jwtService.verify(token + "x"));
+  }
+}
@@ -0,0 +1,22 @@
+package com.example.demo.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.lettuce.core.cluster.SlotHash;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class RedisKeysTest {
+
+  @Test
+  void keysOfTheSameUserShareASlot() {
+    UUID userId = UUID.randomUUID();
+
+    assertEquals(SlotHash.getSlot(RedisKeys.twoFactorCode(userId)),
+            SlotHash.getSlot(RedisKeys.tokenVersion(userId)));
+    assertEquals(SlotHash.getSlot(RedisKeys.twoFactorCode(userId)),
+            SlotHash.getSlot(RedisKeys.totpStep(userId)));
+    assertEquals(SlotHash.getSlot(userId.toString()),
+            SlotHash.getSlot(RedisKeys.twoFactorCode(userId)));
+  }
+}
@@ -0,0 +1,40 @@
+package com.example.demo.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.Test;
+
+class TotpAuthenticatorTest {
+
+  private static final byte[] RFC_SECRET = "12345678901234567890".getBytes(StandardCharsets.US_ASCII);
+  private static final String SECRET = TotpAuthenticator.encodeBase32(RFC_SECRET);
+
+  private static TotpAuthenticator at(long epochSecond) {
+    return new TotpAuthenticator(
+            Clock.fixed(Instant.ofEpochSecond(epochSecond), ZoneOffset.UTC), 1, "Demo");
+  }
+
+  @Test
+  void matchesRfc6238TestVectors() {
+    TotpAuthenticator totp = at(0);
+    assertEquals(287082, totp.generate(RFC_SECRET, 59 / 30));
+    assertEquals(81804, totp.generate(RFC_SECRET, 1111111109L / 30));
+    assertEquals(279037, totp.generate(RFC_SECRET, 2000000000L / 30));
+    assertArrayEquals(RFC_SECRET, TotpAuthenticator.decodeBase32(SECRET));
+  }
+
+  @Test
+  void acceptsCodesWithinTheSkew() {
+    long step = 1111111109L / 30;
+
+    assertEquals(step, at(1111111109L + 30).matchStep(SECRET, "081804"));
+    assertEquals(step, at(1111111109L - 30).matchStep(SECRET, " 081804 "));
+    assertEquals(-1, at(1111111109L + 60).matchStep(SECRET, "081804"));
+    assertEquals(-1, at(1111111109L).matchStep(SECRET, "000000"));
+  }
+}
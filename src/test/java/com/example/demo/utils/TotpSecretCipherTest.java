@@ -0,0 +1,26 @@
+package com.example.demo.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class TotpSecretCipherTest {
+
+  private final TotpSecretCipher cipher =
+          new TotpSecretCipher("", "test-secret-test-secret-0123456789abcdef");
+
+  @Test
+  void secretsAreStoredEncrypted() {
+    String stored = cipher.encrypt("JBSWY3DPEHPK3PXP");
+
+    assertFalse(stored.contains("JBSWY3DPEHPK3PXP"));
+    assertEquals("JBSWY3DPEHPK3PXP", cipher.decrypt(stored));
+  }
+
+  @Test
+  void plaintextSecretsAreRejected() {
+    assertThrows(IllegalStateException.class, () -> cipher.decrypt("JBSWY3DPEHPK3PXP"));
+  }
+}